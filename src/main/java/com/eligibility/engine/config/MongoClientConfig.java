@@ -0,0 +1,35 @@
+package com.eligibility.engine.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds concurrent Mongo work. With virtual threads ({@code spring.threads.virtual.enabled}) every request
+ * gets its own cheap thread, so the connection pool becomes the limiter: at most {@code max-pool-size}
+ * operations run at once, the rest park (cheaply) for up to {@code max-wait-ms} before failing.
+ * <p>
+ * Only active with the Mongo storage backend, as are the repositories it enables; with
+ * {@code eligibility.storage.backend=embedded} see {@link StorageBackendEnvironment}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "mongo", matchIfMissing = true)
+@EnableMongoRepositories(basePackages = "com.eligibility.engine.repository")
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolLimits(
+            @Value("${eligibility.mongo.max-pool-size:100}") int maxPoolSize,
+            @Value("${eligibility.mongo.max-connecting:4}") int maxConnecting,
+            @Value("${eligibility.mongo.max-wait-ms:2000}") long maxWaitMs) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxPoolSize)
+                .maxConnecting(maxConnecting)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
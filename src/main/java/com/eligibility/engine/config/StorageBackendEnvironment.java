@@ -0,0 +1,39 @@
+package com.eligibility.engine.config;
+
+import org.springframework.boot.EnvironmentPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes Mongo out of the context when {@code eligibility.storage.backend=embedded}: the Mongo and Spring Data
+ * Mongo auto-configurations are added to {@code spring.autoconfigure.exclude} (after any configured excludes)
+ * and index creation is switched off, so the application starts without a reachable database. The Mongo
+ * stores, {@link MongoClientConfig} and the repositories are gated on the same property.
+ */
+public class StorageBackendEnvironment implements EnvironmentPostProcessor {
+
+    static final List<String> MONGO_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.mongodb.autoconfigure.MongoAutoConfiguration",
+            "org.springframework.boot.mongodb.autoconfigure.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoRepositoriesAutoConfiguration",
+            "org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveRepositoriesAutoConfiguration");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!"embedded".equals(environment.getProperty("eligibility.storage.backend"))) return;
+        List<String> excluded = new ArrayList<>();
+        String configured = environment.getProperty("spring.autoconfigure.exclude");
+        if (configured != null && !configured.isBlank()) excluded.add(configured);
+        excluded.addAll(MONGO_AUTO_CONFIGURATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource("embeddedStorageBackend", Map.of(
+                "spring.autoconfigure.exclude", String.join(",", excluded),
+                "spring.data.mongodb.auto-index-creation", "false")));
+    }
+}
@@ -0,0 +1,18 @@
+package com.eligibility.engine.controller;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class AttributeChangeRequest {
+
+        private Long userId;
+        // Changed attributes only; a null value removes the attribute.
+        private Map<String, Object> attributes;
+        // List name -> whether the user is now a member.
+        private Map<String, Boolean> lists;
+
+}
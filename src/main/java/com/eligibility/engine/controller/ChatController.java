@@ -2,8 +2,11 @@ package com.eligibility.engine.controller;
 
 import com.eligibility.engine.model.*;
 import com.eligibility.engine.service.RuleAuthoringOrchestrator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,9 +16,12 @@ import java.util.UUID;
 public class ChatController {
 
     private final RuleAuthoringOrchestrator orchestrator;
+    private final int maxBatchMessages;
 
-    public ChatController(RuleAuthoringOrchestrator orchestrator) {
+    public ChatController(RuleAuthoringOrchestrator orchestrator,
+                          @Value("${eligibility.chat.batch.max-messages:5000}") int maxBatchMessages) {
         this.orchestrator = orchestrator;
+        this.maxBatchMessages = maxBatchMessages;
     }
 
     @PostMapping("/finalize")
@@ -25,16 +31,35 @@ public class ChatController {
 
     @PostMapping("/chat")
     public ChatResponse chat(@RequestBody ChatRequest request) {
+        String sessionId = sessionIdOrNew(request.getSessionId());
+        AgentTurnResult result = orchestrator.processUserMessage(sessionId, request.getMessage());
+        return toResponse(sessionId, result);
+    }
 
-        String sessionId = request.getSessionId();
-        if (sessionId == null || sessionId.trim().isEmpty()) {
-            sessionId = UUID.randomUUID().toString();
+    // Queued messages for many sessions; replies come back in request order. A message without a
+    // sessionId starts its own new session.
+    @PostMapping("/chat/batch")
+    public ResponseEntity<List<ChatResponse>> chatBatch(@RequestBody List<ChatRequest> requests) {
+        if (requests.size() > maxBatchMessages) {
+            return ResponseEntity.badRequest().build();
         }
+        List<RuleAuthoringOrchestrator.ChatTurn> turns = new ArrayList<>(requests.size());
+        for (ChatRequest request : requests) {
+            turns.add(new RuleAuthoringOrchestrator.ChatTurn(sessionIdOrNew(request.getSessionId()), request.getMessage()));
+        }
+        List<AgentTurnResult> results = orchestrator.processBatch(turns);
+        List<ChatResponse> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(toResponse(turns.get(i).sessionId(), results.get(i)));
+        }
+        return ResponseEntity.ok(responses);
+    }
 
+    private static String sessionIdOrNew(String sessionId) {
+        return sessionId == null || sessionId.trim().isEmpty() ? UUID.randomUUID().toString() : sessionId;
+    }
 
-        AgentTurnResult result = orchestrator.processUserMessage(sessionId, request.getMessage());
-
-
+    private static ChatResponse toResponse(String sessionId, AgentTurnResult result) {
         ChatResponse response = new ChatResponse();
         response.setSessionId(sessionId);
         response.setReply(result.getBotReply());
@@ -0,0 +1,36 @@
+package com.eligibility.engine.controller;
+
+import com.eligibility.engine.service.EligibilityMaterializationService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class EligibilityController {
+
+    private final EligibilityMaterializationService materializationService;
+
+    public EligibilityController(EligibilityMaterializationService materializationService) {
+        this.materializationService = materializationService;
+    }
+
+    @PostMapping("/events/attributes")
+    public EligibilityMaterializationService.ChangeResult attributesChanged(@RequestBody AttributeChangeRequest request) {
+        if (request.getUserId() == null) {
+            throw new IllegalArgumentException("userId is required.");
+        }
+        return materializationService.applyChange(request.getUserId(), request.getAttributes(), request.getLists());
+    }
+
+    @GetMapping("/eligibility")
+    public Map<String, Object> isEligible(@RequestParam String ruleId, @RequestParam long userId) {
+        return Map.of("ruleId", ruleId, "userId", userId, "eligible", materializationService.isEligible(ruleId, userId));
+    }
+
+    @GetMapping("/eligibility/count")
+    public Map<String, Object> eligibleCount(@RequestParam String ruleId) {
+        return Map.of("ruleId", ruleId, "count", materializationService.eligibleUsers(ruleId).size());
+    }
+}
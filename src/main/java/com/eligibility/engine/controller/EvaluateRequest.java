@@ -0,0 +1,26 @@
+package com.eligibility.engine.controller;
+
+import com.eligibility.engine.model.RuleNode;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class EvaluateRequest {
+
+        // Either a published rule id or an inline rule tree.
+        private String ruleId;
+        private RuleNode rule;
+
+        // Numeric user id, used for list membership lookups in the list store.
+        private Long userId;
+        private Map<String, Object> attributes;
+        private List<String> lists;
+
+        // Return the evaluation trace (failed predicates, short-circuit points) with the decision.
+        private boolean explain;
+
+}
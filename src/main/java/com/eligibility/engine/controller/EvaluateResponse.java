@@ -0,0 +1,20 @@
+package com.eligibility.engine.controller;
+
+import com.eligibility.engine.evaluation.RuleTrace;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EvaluateResponse {
+
+        private String ruleId;
+        private boolean eligible;
+        private String error;
+
+        // Only set when the request asked for explain.
+        private RuleTrace.Explanation explanation;
+
+}
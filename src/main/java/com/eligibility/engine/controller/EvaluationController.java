@@ -0,0 +1,80 @@
+package com.eligibility.engine.controller;
+
+import com.eligibility.engine.evaluation.DecisionCache;
+import com.eligibility.engine.evaluation.RuleTrace;
+import com.eligibility.engine.evaluation.UserFacts;
+import com.eligibility.engine.service.NdjsonEvaluationService;
+import com.eligibility.engine.service.RuleEvaluationService;
+import com.eligibility.engine.service.RuleMatchService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class EvaluationController {
+
+    private final RuleEvaluationService evaluationService;
+    private final RuleMatchService matchService;
+    private final NdjsonEvaluationService ndjsonService;
+
+    public EvaluationController(RuleEvaluationService evaluationService,
+                                RuleMatchService matchService,
+                                NdjsonEvaluationService ndjsonService) {
+        this.evaluationService = evaluationService;
+        this.matchService = matchService;
+        this.ndjsonService = ndjsonService;
+    }
+
+    @PostMapping("/evaluate")
+    public EvaluateResponse evaluate(@RequestBody EvaluateRequest request) {
+        try {
+            UserFacts facts = evaluationService.factsFor(request.getAttributes(), request.getLists(), request.getUserId());
+            if (request.isExplain()) {
+                RuleTrace.Explanation explanation = request.getRule() != null
+                        ? evaluationService.explain(request.getRule(), facts)
+                        : evaluationService.explain(request.getRuleId(), facts);
+                return new EvaluateResponse(request.getRuleId(), explanation.eligible(), null, explanation);
+            }
+            boolean eligible = request.getRule() != null
+                    ? evaluationService.evaluate(request.getRule(), facts)
+                    : evaluationService.evaluate(request.getRuleId(), facts);
+            return new EvaluateResponse(request.getRuleId(), eligible, null, null);
+        } catch (IllegalArgumentException e) {
+            return new EvaluateResponse(request.getRuleId(), false, e.getMessage(), null);
+        }
+    }
+
+    // Every published rule the user is eligible for; ruleId / rule in the request are ignored.
+    @PostMapping("/evaluate/matching")
+    public ResponseEntity<Map<String, Object>> matchingRules(@RequestBody EvaluateRequest request) {
+        try {
+            UserFacts facts = evaluationService.factsFor(request.getAttributes(), request.getLists(), request.getUserId());
+            return ResponseEntity.ok(Map.of("ruleIds", matchService.matchingRules(facts)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/evaluate/cache/stats")
+    public ResponseEntity<DecisionCache.Stats> decisionCacheStats() {
+        DecisionCache.Stats stats = evaluationService.decisionCacheStats();
+        return stats == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(stats);
+    }
+
+    // NDJSON in, NDJSON out: one EvaluateRequest-shaped record per line, one {userId, eligible} line back.
+    @PostMapping(value = "/evaluate/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> evaluateStream(@RequestParam String ruleId, InputStream body) {
+        try {
+            evaluationService.published(ruleId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(out -> ndjsonService.writeError(out, e.getMessage()));
+        }
+        return ResponseEntity.ok().body(out -> ndjsonService.evaluate(ruleId, body, out));
+    }
+}
@@ -0,0 +1,39 @@
+package com.eligibility.engine.controller;
+
+import com.eligibility.engine.service.RuleCatalogService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class RuleCatalogController {
+
+    private final RuleCatalogService catalog;
+
+    public RuleCatalogController(RuleCatalogService catalog) {
+        this.catalog = catalog;
+    }
+
+    // Newest first; pass the returned nextCursor back as cursor for the following page.
+    @GetMapping("/rules")
+    public ResponseEntity<RuleCatalogService.Page> list(@RequestParam(required = false) Long from,
+                                                        @RequestParam(required = false) Long to,
+                                                        @RequestParam(required = false) String sessionId,
+                                                        @RequestParam(required = false) String attribute,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(defaultValue = "false") boolean includeRule) {
+        try {
+            return ResponseEntity.ok(catalog.list(from, to, sessionId, attribute, cursor, limit, includeRule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/rules/{id}")
+    public ResponseEntity<RuleCatalogService.RuleSummary> get(@PathVariable String id,
+                                                              @RequestParam(defaultValue = "true") boolean includeRule) {
+        return ResponseEntity.of(catalog.get(id, includeRule));
+    }
+}
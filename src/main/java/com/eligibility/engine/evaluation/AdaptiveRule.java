@@ -0,0 +1,180 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates a {@link CompiledRule} with an execution plan that reorders AND / OR children by observed
+ * selectivity and cost, so short-circuiting skips as much work as possible.
+ * <p>
+ * One in {@code sampleEvery} evaluations is a measured run: every node is evaluated (no short-circuit),
+ * timed, and its pass / evaluation / nanos counters ({@link LongAdder}s) are bumped. All other evaluations
+ * just walk the current plan. {@link #replan()} turns the counters of the last window into estimates and
+ * publishes a new immutable plan with one volatile write:
+ * AND children run in ascending {@code cost / P(false)}, OR children in ascending {@code cost / P(true)}.
+ * <p>
+ * Leaves read a compatible {@link UserProfile} by ordinal, like {@link CompiledRule#test(UserFacts)}.
+ * Measured runs are timed with {@code System.nanoTime} unless a test supplies its own clock.
+ */
+public final class AdaptiveRule {
+
+    static final int DEFAULT_SAMPLE_EVERY = 64;
+
+    private final CompiledRule rule;
+    private final int sampleEvery;
+    private final LongSupplier clock;
+    private volatile Node plan;
+
+    public AdaptiveRule(CompiledRule rule) {
+        this(rule, DEFAULT_SAMPLE_EVERY, System::nanoTime);
+    }
+
+    AdaptiveRule(CompiledRule rule, int sampleEvery, LongSupplier clock) {
+        this.rule = rule;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.clock = clock;
+        this.plan = Node.of(rule.root());
+    }
+
+    public CompiledRule rule() {
+        return rule;
+    }
+
+    public boolean test(UserFacts facts) {
+        Node p = plan;
+        UserProfile profile = rule.layout() != null && facts instanceof UserProfile up
+                && up.layout().compatibleWith(rule.layout()) ? up : null;
+        if (sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0) {
+            return p.measure(facts, profile, clock);
+        }
+        return p.test(facts, profile);
+    }
+
+    public void replan() {
+        plan = plan.replanned();
+    }
+
+    /** Current evaluation order, rendered like the compiled predicate. */
+    public String plan() {
+        return plan.toString();
+    }
+
+    private static final class Node {
+        // Before any sample: assume a coin flip and unit cost.
+        private static final double PRIOR_PASS_RATE = 0.5;
+        private static final double PRIOR_COST_NANOS = 1.0;
+
+        final CompiledPredicate predicate;
+        final Node[] children;
+        final LongAdder evaluations;
+        final LongAdder passes;
+        final LongAdder nanos;
+        final double passRate;
+        final double cost;
+
+        private Node(CompiledPredicate predicate, Node[] children, LongAdder evaluations, LongAdder passes, LongAdder nanos,
+                     double passRate, double cost) {
+            this.predicate = predicate;
+            this.children = children;
+            this.evaluations = evaluations;
+            this.passes = passes;
+            this.nanos = nanos;
+            this.passRate = passRate;
+            this.cost = cost;
+        }
+
+        static Node of(CompiledPredicate root) {
+            return PredicateTraversal.<Node>fold(root, (p, children) -> new Node(p,
+                    children.isEmpty() ? null : children.toArray(new Node[0]),
+                    new LongAdder(), new LongAdder(), new LongAdder(), PRIOR_PASS_RATE, PRIOR_COST_NANOS));
+        }
+
+        // A non-null profile is compatible with the layout the leaves were bound to.
+        private boolean leaf(UserFacts facts, UserProfile profile) {
+            return profile != null ? predicate.test(profile) : predicate.test(facts);
+        }
+
+        boolean test(UserFacts facts, UserProfile profile) {
+            if (children == null) return leaf(facts, profile);
+            if (predicate instanceof And) {
+                for (Node c : children) if (!c.test(facts, profile)) return false;
+                return true;
+            }
+            if (predicate instanceof Or) {
+                for (Node c : children) if (c.test(facts, profile)) return true;
+                return false;
+            }
+            return !children[0].test(facts, profile);
+        }
+
+        boolean measure(UserFacts facts, UserProfile profile, LongSupplier clock) {
+            long start = clock.getAsLong();
+            boolean result;
+            if (children == null) {
+                result = leaf(facts, profile);
+            } else if (predicate instanceof And) {
+                result = true;
+                for (Node c : children) result &= c.measure(facts, profile, clock);
+            } else if (predicate instanceof Or) {
+                result = false;
+                for (Node c : children) result |= c.measure(facts, profile, clock);
+            } else {
+                result = !children[0].measure(facts, profile, clock);
+            }
+            evaluations.increment();
+            if (result) passes.increment();
+            nanos.add(clock.getAsLong() - start);
+            return result;
+        }
+
+        /** Folds this window's counters into the estimates and reorders children; counters restart from zero. */
+        Node replanned() {
+            long n = evaluations.sumThenReset();
+            long passed = passes.sumThenReset();
+            long spent = nanos.sumThenReset();
+            double newPassRate = n == 0 ? passRate : (double) passed / n;
+
+            if (children == null) {
+                double newCost = n == 0 ? cost : Math.max((double) spent / n, PRIOR_COST_NANOS);
+                return new Node(predicate, null, evaluations, passes, nanos, newPassRate, newCost);
+            }
+
+            Node[] next = Arrays.stream(children).map(Node::replanned).toArray(Node[]::new);
+            double expectedCost;
+            if (predicate instanceof And) {
+                Arrays.sort(next, Comparator.comparingDouble(c -> c.cost / Math.max(1.0 - c.passRate, 1e-9)));
+                expectedCost = expectedCost(next, true);
+            } else if (predicate instanceof Or) {
+                Arrays.sort(next, Comparator.comparingDouble(c -> c.cost / Math.max(c.passRate, 1e-9)));
+                expectedCost = expectedCost(next, false);
+            } else {
+                expectedCost = next[0].cost;
+            }
+            return new Node(predicate, next, evaluations, passes, nanos, newPassRate, expectedCost);
+        }
+
+        // Cost of a short-circuiting walk: each child runs only if every earlier child let evaluation continue.
+        private static double expectedCost(Node[] ordered, boolean conjunction) {
+            double total = 0, reach = 1.0;
+            for (Node c : ordered) {
+                total += reach * c.cost;
+                reach *= conjunction ? c.passRate : 1.0 - c.passRate;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            if (children == null) return predicate.toString();
+            if (predicate instanceof Not) return "NOT (" + children[0] + ")";
+            String op = predicate instanceof And ? " AND " : " OR ";
+            return Arrays.stream(children).map(Node::toString).collect(Collectors.joining(op, "(", ")"));
+        }
+    }
+}
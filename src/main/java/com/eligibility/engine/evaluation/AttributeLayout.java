@@ -0,0 +1,93 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.AttributeDef;
+
+import java.util.*;
+
+/**
+ * Ordinal and slot type for every schema attribute, so a {@link UserProfile} can hold values in primitive
+ * arrays and compiled leaves can read them by index instead of by name.
+ * <p>
+ * Layouts are immutable. {@link #extend(Collection)} keeps every existing ordinal and appends new names,
+ * so an ordinal bound by a rule stays valid for every later layout of the same lineage.
+ */
+public final class AttributeLayout {
+
+    public enum SlotType { LONG, DOUBLE, STRING, BOOLEAN }
+
+    private final Object lineage;
+    private final Map<String, Integer> ordinals;
+    private final String[] names;
+    private final SlotType[] types;
+
+    private AttributeLayout(Object lineage, Map<String, Integer> ordinals, String[] names, SlotType[] types) {
+        this.lineage = lineage;
+        this.ordinals = ordinals;
+        this.names = names;
+        this.types = types;
+    }
+
+    /** Starts a new lineage; layouts of different lineages never share ordinals. */
+    public static AttributeLayout empty() {
+        return new AttributeLayout(new Object(), Map.of(), new String[0], new SlotType[0]);
+    }
+
+    public static AttributeLayout of(Collection<AttributeDef> defs) {
+        return empty().extend(defs);
+    }
+
+    /** Same ordinals for known names (their slot type follows the new definition), new names appended in name order. */
+    public AttributeLayout extend(Collection<AttributeDef> defs) {
+        List<AttributeDef> sorted = new ArrayList<>(defs);
+        sorted.sort(Comparator.comparing(AttributeDef::name));
+
+        Map<String, Integer> nextOrdinals = new HashMap<>(ordinals);
+        List<String> nextNames = new ArrayList<>(Arrays.asList(names));
+        List<SlotType> nextTypes = new ArrayList<>(Arrays.asList(types));
+        for (AttributeDef def : sorted) {
+            SlotType type = slotType(def.type());
+            Integer ordinal = nextOrdinals.get(def.name());
+            if (ordinal == null) {
+                nextOrdinals.put(def.name(), nextNames.size());
+                nextNames.add(def.name());
+                nextTypes.add(type);
+            } else {
+                nextTypes.set(ordinal, type);
+            }
+        }
+        return new AttributeLayout(lineage, Collections.unmodifiableMap(nextOrdinals),
+                nextNames.toArray(new String[0]), nextTypes.toArray(new SlotType[0]));
+    }
+
+    static SlotType slotType(String type) {
+        switch (type == null ? "" : type.toLowerCase(Locale.ROOT)) {
+            case "integer": return SlotType.LONG;
+            case "number": return SlotType.DOUBLE;
+            case "boolean": return SlotType.BOOLEAN;
+            default: return SlotType.STRING;
+        }
+    }
+
+    /** Ordinal of an attribute, or -1 if the layout does not know it. */
+    public int ordinal(String attribute) {
+        Integer ordinal = ordinals.get(attribute);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    public SlotType type(int ordinal) {
+        return types[ordinal];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /** True when ordinals bound against {@code other} mean the same attributes here. */
+    public boolean compatibleWith(AttributeLayout other) {
+        return other != null && other.lineage == lineage;
+    }
+}
@@ -0,0 +1,164 @@
+package com.eligibility.engine.evaluation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.eligibility.engine.evaluation.BinaryRuleCodec.*;
+
+/**
+ * Evaluates a rule directly over its {@link BinaryRuleCodec} encoding. Only the small dictionary is decoded
+ * (into the strings {@link UserFacts} is queried with); the opcode stream is read in place with absolute
+ * gets, so one instance can be shared by any number of threads. Evaluation walks the code with a small int stack
+ * of open AND / OR / NOT nodes rather than recursing, so nesting depth is not bounded by the thread's stack.
+ */
+public final class BinaryRule {
+
+    private final ByteBuffer buffer;
+    private final String[] dictionary;
+    private final int codeStart;
+
+    private BinaryRule(ByteBuffer buffer, String[] dictionary, int codeStart) {
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        this.codeStart = codeStart;
+    }
+
+    /** Reads the header and dictionary of an encoded rule starting at the buffer's position. */
+    public static BinaryRule wrap(ByteBuffer source) {
+        ByteBuffer buf = source.slice();
+        if (buf.remaining() < 7 || buf.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary rule.");
+        }
+        if (buf.get(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary rule version " + buf.get(4) + ".");
+        }
+        int pos = 5;
+        String[] dictionary = new String[Short.toUnsignedInt(buf.getShort(pos))];
+        pos += 2;
+        for (int i = 0; i < dictionary.length; i++) {
+            int len = Short.toUnsignedInt(buf.getShort(pos));
+            byte[] utf8 = new byte[len];
+            buf.get(pos + 2, utf8);
+            dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+            pos += 2 + len;
+        }
+        int codeLength = buf.getInt(pos);
+        pos += 4;
+        if (pos + codeLength > buf.limit()) {
+            throw new IllegalArgumentException("Corrupt binary rule: truncated code.");
+        }
+        return new BinaryRule(buf, dictionary, pos);
+    }
+
+    public boolean test(UserFacts facts) {
+        ByteBuffer b = buffer;
+        // Three ints per open logical node: its position, children not yet finished, and the child being run.
+        int[] open = new int[3 * 16];
+        int top = 0;
+        int pos = codeStart;
+        while (true) {
+            byte op = b.get(pos);
+            boolean result;
+            if (op == AND || op == OR || op == NOT) {
+                int count = op == NOT ? 1 : Short.toUnsignedInt(b.getShort(pos + 1));
+                if (count > 0) {
+                    if (top == open.length) open = Arrays.copyOf(open, top * 2);
+                    int first = pos + (op == NOT ? NOT_HEADER : LOGICAL_HEADER);
+                    open[top] = pos;
+                    open[top + 1] = count;
+                    open[top + 2] = first;
+                    top += 3;
+                    pos = first;
+                    continue;
+                }
+                result = op == AND;
+            } else {
+                result = leaf(pos, facts);
+            }
+
+            // Hand the result up until a parent has another child to run: AND stops at the first false,
+            // OR at the first true.
+            while (true) {
+                if (top == 0) return result;
+                byte parent = b.get(open[top - 3]);
+                if (parent == NOT) {
+                    result = !result;
+                } else if (--open[top - 2] > 0 && result != (parent == OR)) {
+                    pos = open[top - 1] = next(open[top - 1]);
+                    break;
+                }
+                top -= 3;
+            }
+        }
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int codeStart() {
+        return codeStart;
+    }
+
+    String string(short index) {
+        return dictionary[Short.toUnsignedInt(index)];
+    }
+
+    /** Offset just past the node at {@code pos}. */
+    int next(int pos) {
+        switch (buffer.get(pos)) {
+            case LONG: case DOUBLE: return pos + 12;
+            case STRING: return pos + 6;
+            case STRING_IN: return pos + 5 + 2 * Short.toUnsignedInt(buffer.getShort(pos + 3));
+            case BOOLEAN: return pos + 5;
+            case LIST: return pos + 4;
+            case AND: case OR: return pos + LOGICAL_HEADER + buffer.getInt(pos + 3);
+            case NOT: return pos + NOT_HEADER + buffer.getInt(pos + 1);
+            default: throw new IllegalArgumentException("Corrupt binary rule: unknown opcode at " + pos + ".");
+        }
+    }
+
+    private boolean leaf(int pos, UserFacts facts) {
+        ByteBuffer b = buffer;
+        switch (b.get(pos)) {
+            case LONG: {
+                String a = string(b.getShort(pos + 1));
+                return facts.has(a) && CompiledPredicate.compare(facts.longValue(a), operator(b.get(pos + 3)), b.getLong(pos + 4));
+            }
+            case DOUBLE: {
+                String a = string(b.getShort(pos + 1));
+                return facts.has(a) && CompiledPredicate.compare(facts.doubleValue(a), operator(b.get(pos + 3)), b.getDouble(pos + 4));
+            }
+            case STRING: {
+                String a = string(b.getShort(pos + 1));
+                return facts.has(a) && string(b.getShort(pos + 4)).equals(facts.stringValue(a)) == (b.get(pos + 3) != 0);
+            }
+            case STRING_IN: {
+                String a = string(b.getShort(pos + 1));
+                return facts.has(a) && containsSorted(pos + 5, Short.toUnsignedInt(b.getShort(pos + 3)), facts.stringValue(a));
+            }
+            case BOOLEAN: {
+                String a = string(b.getShort(pos + 1));
+                return facts.has(a) && (facts.booleanValue(a) == (b.get(pos + 4) != 0)) == (b.get(pos + 3) != 0);
+            }
+            case LIST:
+                return facts.inList(string(b.getShort(pos + 1))) == (b.get(pos + 3) != 0);
+            default:
+                throw new IllegalArgumentException("Corrupt binary rule: unknown opcode at " + pos + ".");
+        }
+    }
+
+    // Binary search over dictionary indices stored in ascending order of their strings.
+    private boolean containsSorted(int start, int count, String value) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = string(buffer.getShort(start + 2 * mid)).compareTo(value);
+            if (cmp == 0) return true;
+            if (cmp < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,316 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary form of a {@link CompiledRule}, stored next to the JSON in {@code FinalizedRuleDoc.binaryRule}.
+ * <pre>
+ * header      int magic "ERB1", byte version
+ * dictionary  u16 count, then per entry u16 length + UTF-8 bytes (attribute names, list names, string constants)
+ * code        int length, then one node in prefix order:
+ *   LONG      u8 op, u16 attr, u8 operator, i64 value
+ *   DOUBLE    u8 op, u16 attr, u8 operator, f64 value
+ *   STRING    u8 op, u16 attr, u8 equal, u16 value
+ *   STRING_IN u8 op, u16 attr, u16 count, u16 value * count   (values in ascending string order)
+ *   BOOLEAN   u8 op, u16 attr, u8 equal, u8 value
+ *   LIST      u8 op, u16 list, u8 inList
+ *   AND / OR  u8 op, u16 childCount, i32 bodyLength, children
+ *   NOT       u8 op, i32 bodyLength, child
+ * </pre>
+ * Logical nodes carry their body length so an evaluator can skip a subtree without walking it
+ * ({@link BinaryRule}). The length is reserved and backpatched once the body is written, so encoding is linear
+ * in the rule size. A node with more than 65535 children or values cannot be encoded and is rejected.
+ * All multi-byte values are big-endian.
+ */
+public final class BinaryRuleCodec {
+
+    static final int MAGIC = 0x45524231; // "ERB1"
+    static final byte VERSION = 1;
+
+    static final byte LONG = 1, DOUBLE = 2, STRING = 3, STRING_IN = 4, BOOLEAN = 5, LIST = 6, AND = 7, OR = 8, NOT = 9;
+
+    static final int LOGICAL_HEADER = 1 + 2 + 4;
+    static final int NOT_HEADER = 1 + 4;
+
+    private BinaryRuleCodec() {}
+
+    public static byte[] encode(CompiledRule rule) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        CodeBuffer code = new CodeBuffer();
+        try {
+            writeCode(rule.root(), code, dictionary);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(code.size() + 64);
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeByte(VERSION);
+            data.writeShort(dictionary.size());
+            for (String s : dictionary.keySet()) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                if (utf8.length > 0xFFFF) throw new IllegalArgumentException("Rule constant too long to encode.");
+                data.writeShort(utf8.length);
+                data.write(utf8);
+            }
+            data.writeInt(code.size());
+            code.writeTo(data);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Rebuilds the compiled tree; used to load published rules without parsing JSON or consulting the schema. */
+    public static CompiledRule decode(String ruleId, byte[] bytes) {
+        return decode(ruleId, bytes, null);
+    }
+
+    /** As {@link #decode(String, byte[])}, binding leaves to {@code layout} ordinals (may be {@code null}). */
+    public static CompiledRule decode(String ruleId, byte[] bytes, AttributeLayout layout) {
+        BinaryRule binary = BinaryRule.wrap(ByteBuffer.wrap(bytes));
+        Set<String> attributes = new TreeSet<>();
+        Set<String> lists = new TreeSet<>();
+        CompiledPredicate root = readNode(binary, binary.codeStart(), attributes, lists, layout);
+        return new CompiledRule(ruleId, root, Collections.unmodifiableSet(attributes), Collections.unmodifiableSet(lists), layout);
+    }
+
+    /** Code being written; a reserved length is filled in once its body is complete. */
+    private static final class CodeBuffer extends ByteArrayOutputStream {
+        void u8(int v) {
+            write(v);
+        }
+
+        void u16(int v) {
+            write(v >>> 8);
+            write(v);
+        }
+
+        void i32(int v) {
+            u16(v >>> 16);
+            u16(v);
+        }
+
+        void i64(long v) {
+            i32((int) (v >>> 32));
+            i32((int) v);
+        }
+
+        void patchInt(int at, int value) {
+            buf[at] = (byte) (value >>> 24);
+            buf[at + 1] = (byte) (value >>> 16);
+            buf[at + 2] = (byte) (value >>> 8);
+            buf[at + 3] = (byte) value;
+        }
+    }
+
+    private static void writeCode(CompiledPredicate root, CodeBuffer code, Map<String, Integer> dict) {
+        // Offsets of the reserved body lengths of the logical nodes still open, innermost last.
+        Deque<Integer> lengths = new ArrayDeque<>();
+        PredicateTraversal.walk(root, new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate p, int depth) {
+                writeHeader(p, code, dict);
+                if (PredicateTraversal.childCount(p) > 0) {
+                    lengths.push(code.size());
+                    code.i32(0);
+                }
+                return true;
+            }
+
+            @Override
+            public void leave(CompiledPredicate p, int depth) {
+                if (PredicateTraversal.childCount(p) > 0) {
+                    int length = lengths.pop();
+                    code.patchInt(length, code.size() - length - 4);
+                }
+            }
+        });
+    }
+
+    /** A leaf in full; for AND / OR / NOT everything before the body length. */
+    private static void writeHeader(CompiledPredicate p, CodeBuffer code, Map<String, Integer> dict) {
+        if (p instanceof LongComparison c) {
+            code.u8(LONG);
+            code.u16(index(dict, c.attribute));
+            code.u8(operatorCode(c.op));
+            code.i64(c.value);
+        } else if (p instanceof DoubleComparison c) {
+            code.u8(DOUBLE);
+            code.u16(index(dict, c.attribute));
+            code.u8(operatorCode(c.op));
+            code.i64(Double.doubleToLongBits(c.value));
+        } else if (p instanceof StringComparison c) {
+            code.u8(STRING);
+            code.u16(index(dict, c.attribute));
+            code.u8(c.equal ? 1 : 0);
+            code.u16(index(dict, c.value));
+        } else if (p instanceof StringMembership c) {
+            code.u8(STRING_IN);
+            code.u16(index(dict, c.attribute));
+            code.u16(count(c.values.length, "values in one IN"));
+            for (String v : c.values) code.u16(index(dict, v));
+        } else if (p instanceof BooleanComparison c) {
+            code.u8(BOOLEAN);
+            code.u16(index(dict, c.attribute));
+            code.u8(c.equal ? 1 : 0);
+            code.u8(c.value ? 1 : 0);
+        } else if (p instanceof ListMembership c) {
+            code.u8(LIST);
+            code.u16(index(dict, c.listName));
+            code.u8(c.inList ? 1 : 0);
+        } else if (p instanceof And || p instanceof Or) {
+            code.u8(p instanceof And ? AND : OR);
+            code.u16(count(PredicateTraversal.childCount(p), "children under one AND / OR"));
+        } else {
+            code.u8(NOT);
+        }
+    }
+
+    private static int count(int n, String what) {
+        if (n > 0xFFFF) throw new IllegalArgumentException("Rule has too many " + what + " to encode (" + n + ").");
+        return n;
+    }
+
+    private static int ordinal(AttributeLayout layout, String attribute) {
+        return layout == null ? -1 : layout.ordinal(attribute);
+    }
+
+    /** A logical node being read: its position, the children read so far, and where the next one starts. */
+    private static final class Open {
+        final int pos;
+        final CompiledPredicate[] children;
+        int read;
+        int next;
+
+        Open(int pos, CompiledPredicate[] children, int first) {
+            this.pos = pos;
+            this.children = children;
+            this.next = first;
+        }
+    }
+
+    private static CompiledPredicate readNode(BinaryRule b, int root, Set<String> attributes, Set<String> lists, AttributeLayout layout) {
+        ByteBuffer buf = b.buffer();
+        Deque<Open> open = new ArrayDeque<>();
+        int pos = root;
+        while (true) {
+            byte op = buf.get(pos);
+            CompiledPredicate done;
+            if (op == AND || op == OR || op == NOT) {
+                int count = op == NOT ? 1 : Short.toUnsignedInt(buf.getShort(pos + 1));
+                Open node = new Open(pos, new CompiledPredicate[count], pos + (op == NOT ? NOT_HEADER : LOGICAL_HEADER));
+                if (count > 0) {
+                    open.push(node);
+                    pos = node.next;
+                    continue;
+                }
+                done = logical(buf, node);
+            } else {
+                done = readLeaf(b, pos, attributes, lists, layout);
+            }
+
+            // Hand the node up until a parent has another child to read.
+            while (true) {
+                Open parent = open.peek();
+                if (parent == null) return done;
+                parent.children[parent.read++] = done;
+                if (parent.read < parent.children.length) {
+                    parent.next = b.next(parent.next);
+                    pos = parent.next;
+                    break;
+                }
+                open.pop();
+                done = logical(buf, parent);
+            }
+        }
+    }
+
+    private static CompiledPredicate logical(ByteBuffer buf, Open node) {
+        switch (buf.get(node.pos)) {
+            case AND: return new And(node.children);
+            case OR: return new Or(node.children);
+            default: return new Not(node.children[0]);
+        }
+    }
+
+    private static CompiledPredicate readLeaf(BinaryRule b, int pos, Set<String> attributes, Set<String> lists, AttributeLayout layout) {
+        ByteBuffer buf = b.buffer();
+        switch (buf.get(pos)) {
+            case LONG: {
+                String a = b.string(buf.getShort(pos + 1));
+                attributes.add(a);
+                return new LongComparison(a, ordinal(layout, a), operator(buf.get(pos + 3)), buf.getLong(pos + 4));
+            }
+            case DOUBLE: {
+                String a = b.string(buf.getShort(pos + 1));
+                attributes.add(a);
+                return new DoubleComparison(a, ordinal(layout, a), operator(buf.get(pos + 3)), buf.getDouble(pos + 4));
+            }
+            case STRING: {
+                String a = b.string(buf.getShort(pos + 1));
+                attributes.add(a);
+                return new StringComparison(a, ordinal(layout, a), buf.get(pos + 3) != 0, b.string(buf.getShort(pos + 4)));
+            }
+            case STRING_IN: {
+                String a = b.string(buf.getShort(pos + 1));
+                attributes.add(a);
+                String[] values = new String[Short.toUnsignedInt(buf.getShort(pos + 3))];
+                for (int i = 0; i < values.length; i++) values[i] = b.string(buf.getShort(pos + 5 + 2 * i));
+                return new StringMembership(a, ordinal(layout, a), values);
+            }
+            case BOOLEAN: {
+                String a = b.string(buf.getShort(pos + 1));
+                attributes.add(a);
+                return new BooleanComparison(a, ordinal(layout, a), buf.get(pos + 3) != 0, buf.get(pos + 4) != 0);
+            }
+            case LIST: {
+                String l = b.string(buf.getShort(pos + 1));
+                lists.add(l);
+                return new ListMembership(l, buf.get(pos + 3) != 0);
+            }
+            default:
+                throw new IllegalArgumentException("Corrupt binary rule: unknown opcode " + buf.get(pos) + " at " + pos + ".");
+        }
+    }
+
+    private static int index(Map<String, Integer> dict, String s) {
+        Integer i = dict.get(s);
+        if (i != null) return i;
+        if (dict.size() == 0xFFFF) throw new IllegalArgumentException("Rule has too many distinct names / constants to encode.");
+        dict.put(s, dict.size());
+        return dict.size() - 1;
+    }
+
+    // Explicit codes rather than ordinals, so reordering the enum cannot change stored rules.
+    static int operatorCode(Operator op) {
+        switch (op) {
+            case GT: return 1;
+            case GE: return 2;
+            case LT: return 3;
+            case LE: return 4;
+            case EQ: return 5;
+            case NE: return 6;
+            default: return 7;
+        }
+    }
+
+    static Operator operator(byte code) {
+        switch (code) {
+            case 1: return Operator.GT;
+            case 2: return Operator.GE;
+            case 3: return Operator.LT;
+            case 4: return Operator.LE;
+            case 5: return Operator.EQ;
+            case 6: return Operator.NE;
+            case 7: return Operator.IN;
+            default: throw new IllegalArgumentException("Corrupt binary rule: unknown operator " + code + ".");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.*;
+
+/**
+ * A population of users laid out column-wise: one primitive array per attribute,
+ * keyed by schema attribute name, plus optional per-list membership bitsets.
+ * Row {@code i} of every column belongs to the same user.
+ * <p>
+ * Presence bitsets use the same word layout as results ({@code bit i} of {@code words[i >>> 6]});
+ * a {@code null} presence means every row has a value.
+ * When a list has no membership bitset, evaluation falls back to looking up each row's
+ * {@link #userIds()} in a {@link ListMembershipLookup}.
+ */
+public class ColumnarBatch {
+
+    public sealed interface Column permits IntColumn, LongColumn, DoubleColumn, BooleanColumn, DictionaryColumn {
+        long[] present();
+    }
+
+    public record IntColumn(int[] values, long[] present) implements Column {}
+
+    public record LongColumn(long[] values, long[] present) implements Column {}
+
+    public record DoubleColumn(double[] values, long[] present) implements Column {}
+
+    /** Boolean values packed as a bitset. */
+    public record BooleanColumn(long[] values, long[] present) implements Column {}
+
+    /** Strings encoded as indexes into {@code dictionary}; a negative code means no value. */
+    public record DictionaryColumn(int[] codes, String[] dictionary) implements Column {
+        @Override
+        public long[] present() {
+            return null;
+        }
+    }
+
+    private final int rowCount;
+    private final Map<String, Column> columns;
+    private final Map<String, long[]> listMembers;
+    private final long[] userIds;
+
+    private ColumnarBatch(int rowCount, Map<String, Column> columns, Map<String, long[]> listMembers, long[] userIds) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+        this.listMembers = listMembers;
+        this.userIds = userIds;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public Column column(String attribute) {
+        return columns.get(attribute);
+    }
+
+    public long[] listMembers(String listName) {
+        return listMembers.get(listName);
+    }
+
+    /** Numeric user id per row, or {@code null} if the batch carries none. */
+    public long[] userIds() {
+        return userIds;
+    }
+
+    public static int wordCount(int rowCount) {
+        return (rowCount + 63) >>> 6;
+    }
+
+    public static Builder builder(int rowCount) {
+        return new Builder(rowCount);
+    }
+
+    public static class Builder {
+        private final int rowCount;
+        private final Map<String, Column> columns = new HashMap<>();
+        private final Map<String, long[]> listMembers = new HashMap<>();
+        private long[] userIds;
+
+        private Builder(int rowCount) {
+            if (rowCount < 0) throw new IllegalArgumentException("Row count must not be negative.");
+            this.rowCount = rowCount;
+        }
+
+        public Builder intColumn(String attribute, int[] values, long[] present) {
+            checkLength(attribute, values.length, present);
+            columns.put(attribute, new IntColumn(values, present));
+            return this;
+        }
+
+        public Builder longColumn(String attribute, long[] values, long[] present) {
+            checkLength(attribute, values.length, present);
+            columns.put(attribute, new LongColumn(values, present));
+            return this;
+        }
+
+        public Builder doubleColumn(String attribute, double[] values, long[] present) {
+            checkLength(attribute, values.length, present);
+            columns.put(attribute, new DoubleColumn(values, present));
+            return this;
+        }
+
+        public Builder booleanColumn(String attribute, long[] values, long[] present) {
+            checkLength(attribute, rowCount, present);
+            checkWords(attribute, values);
+            columns.put(attribute, new BooleanColumn(values, present));
+            return this;
+        }
+
+        public Builder dictionaryColumn(String attribute, int[] codes, String[] dictionary) {
+            checkLength(attribute, codes.length, null);
+            columns.put(attribute, new DictionaryColumn(codes, dictionary));
+            return this;
+        }
+
+        /** Dictionary-encodes a plain string column; {@code null} entries become missing values. */
+        public Builder stringColumn(String attribute, String[] values) {
+            Map<String, Integer> dict = new LinkedHashMap<>();
+            int[] codes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                codes[i] = values[i] == null ? -1 : dict.computeIfAbsent(values[i], k -> dict.size());
+            }
+            return dictionaryColumn(attribute, codes, dict.keySet().toArray(new String[0]));
+        }
+
+        public Builder listMembers(String listName, long[] members) {
+            checkWords(listName, members);
+            listMembers.put(listName.toLowerCase(Locale.ROOT), members);
+            return this;
+        }
+
+        public Builder userIds(long[] ids) {
+            checkLength("userIds", ids.length, null);
+            this.userIds = ids;
+            return this;
+        }
+
+        public ColumnarBatch build() {
+            return new ColumnarBatch(rowCount, Map.copyOf(columns), Map.copyOf(listMembers), userIds);
+        }
+
+        private void checkLength(String name, int length, long[] present) {
+            if (length != rowCount) {
+                throw new IllegalArgumentException("Column '" + name + "' has " + length + " rows, expected " + rowCount + ".");
+            }
+            if (present != null) checkWords(name, present);
+        }
+
+        private void checkWords(String name, long[] words) {
+            if (words.length < wordCount(rowCount)) {
+                throw new IllegalArgumentException("Bitset for '" + name + "' is shorter than " + rowCount + " rows.");
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.ColumnarBatch.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Evaluates a {@link CompiledRule} over a whole {@link ColumnarBatch} at once.
+ * Every leaf predicate is one tight loop over a primitive column producing a bitset;
+ * AND / OR / NOT are then word-wise bit operations. Rows where the attribute is missing
+ * never match a comparison, exactly as in row-at-a-time evaluation.
+ */
+public final class ColumnarEvaluator {
+
+    private ColumnarEvaluator() {}
+
+    public static BitSet evaluate(CompiledRule rule, ColumnarBatch batch) {
+        return evaluate(rule, batch, null);
+    }
+
+    public static BitSet evaluate(CompiledRule rule, ColumnarBatch batch, ListMembershipLookup membership) {
+        return BitSet.valueOf(evaluateWords(rule.root(), batch, membership));
+    }
+
+    public static long count(CompiledRule rule, ColumnarBatch batch) {
+        return count(rule, batch, null);
+    }
+
+    public static long count(CompiledRule rule, ColumnarBatch batch, ListMembershipLookup membership) {
+        long n = 0;
+        for (long w : evaluateWords(rule.root(), batch, membership)) n += Long.bitCount(w);
+        return n;
+    }
+
+    static long[] evaluateWords(CompiledPredicate root, ColumnarBatch batch, ListMembershipLookup membership) {
+        int rows = batch.rowCount();
+        int words = ColumnarBatch.wordCount(rows);
+
+        // Per depth, the logical node open there and its bits, combined into as each child is left
+        // (null until its first child is done).
+        List<CompiledPredicate> open = new ArrayList<>();
+        List<long[]> acc = new ArrayList<>();
+        PredicateTraversal.walk(root, new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate p, int depth) {
+                if (depth == acc.size()) {
+                    open.add(p);
+                    acc.add(null);
+                } else {
+                    open.set(depth, p);
+                    acc.set(depth, null);
+                }
+                return true;
+            }
+
+            @Override
+            public void leave(CompiledPredicate p, int depth) {
+                long[] bits;
+                if (p instanceof CompiledPredicate.And || p instanceof CompiledPredicate.Or) {
+                    bits = acc.get(depth);
+                } else if (p instanceof CompiledPredicate.Not) {
+                    bits = acc.get(depth);
+                    for (int w = 0; w < words; w++) bits[w] = ~bits[w];
+                    clearTail(bits, rows);
+                } else if (p instanceof CompiledPredicate.ListMembership lm) {
+                    long[] members = batch.listMembers(lm.listName);
+                    bits = members != null ? Arrays.copyOf(members, words) : lookupMembers(lm.listName, batch, membership, words);
+                    if (!lm.inList) {
+                        for (int w = 0; w < words; w++) bits[w] = ~bits[w];
+                    }
+                    clearTail(bits, rows);
+                } else {
+                    bits = evaluateLeaf(p, batch, rows, words);
+                }
+
+                if (depth == 0) {
+                    acc.set(0, bits);
+                    return;
+                }
+                long[] into = acc.get(depth - 1);
+                if (into == null) {
+                    acc.set(depth - 1, bits);
+                } else if (open.get(depth - 1) instanceof CompiledPredicate.And) {
+                    for (int w = 0; w < words; w++) into[w] &= bits[w];
+                } else {
+                    for (int w = 0; w < words; w++) into[w] |= bits[w];
+                }
+            }
+        });
+        return acc.get(0);
+    }
+
+    private static long[] lookupMembers(String listName, ColumnarBatch batch, ListMembershipLookup membership, int words) {
+        long[] out = new long[words];
+        long[] ids = batch.userIds();
+        if (ids == null || membership == null) return out;
+        for (int i = 0; i < ids.length; i++) {
+            if (membership.contains(listName, ids[i])) out[i >>> 6] |= 1L << i;
+        }
+        return out;
+    }
+
+    private static long[] evaluateLeaf(CompiledPredicate p, ColumnarBatch batch, int rows, int words) {
+        long[] out = new long[words];
+        String attribute = p.attribute();
+        Column column = batch.column(attribute);
+        if (column == null) return out;
+
+        if (p instanceof CompiledPredicate.LongComparison c) {
+            if (column instanceof IntColumn ic) scanLong(ic.values(), c.op, c.value, out);
+            else if (column instanceof LongColumn lc) scanLong(lc.values(), c.op, c.value, out);
+            else if (column instanceof DoubleColumn dc) scanDouble(dc.values(), c.op, c.value, out);
+            else throw columnMismatch(attribute, column);
+        } else if (p instanceof CompiledPredicate.DoubleComparison c) {
+            if (column instanceof IntColumn ic) scanDouble(ic.values(), c.op, c.value, out);
+            else if (column instanceof LongColumn lc) scanDouble(lc.values(), c.op, c.value, out);
+            else if (column instanceof DoubleColumn dc) scanDouble(dc.values(), c.op, c.value, out);
+            else throw columnMismatch(attribute, column);
+        } else if (p instanceof CompiledPredicate.StringComparison c) {
+            if (!(column instanceof DictionaryColumn dc)) throw columnMismatch(attribute, column);
+            boolean[] matches = new boolean[dc.dictionary().length];
+            for (int d = 0; d < matches.length; d++) matches[d] = c.value.equals(dc.dictionary()[d]) == c.equal;
+            scanCodes(dc.codes(), matches, out);
+        } else if (p instanceof CompiledPredicate.StringMembership c) {
+            if (!(column instanceof DictionaryColumn dc)) throw columnMismatch(attribute, column);
+            boolean[] matches = new boolean[dc.dictionary().length];
+            for (int d = 0; d < matches.length; d++) matches[d] = Arrays.binarySearch(c.values, dc.dictionary()[d]) >= 0;
+            scanCodes(dc.codes(), matches, out);
+        } else if (p instanceof CompiledPredicate.BooleanComparison c) {
+            if (!(column instanceof BooleanColumn bc)) throw columnMismatch(attribute, column);
+            boolean wantSet = c.value == c.equal;
+            long[] values = bc.values();
+            for (int w = 0; w < words; w++) out[w] = wantSet ? values[w] : ~values[w];
+            clearTail(out, rows);
+        }
+
+        long[] present = column.present();
+        if (present != null) {
+            for (int w = 0; w < words; w++) out[w] &= present[w];
+        }
+        return out;
+    }
+
+    // Integer ranges: every ordering/equality operator is lo <= v <= hi, != is the complement of ==.
+    private static void scanLong(int[] v, Operator op, long c, long[] out) {
+        if (isEmptyRange(op, c)) return;
+        long lo = lowerBound(op, c), hi = upperBound(op, c);
+        boolean negate = op == Operator.NE;
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, v.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                long x = v[base + b];
+                bits |= ((x >= lo & x <= hi) != negate ? 1L : 0L) << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static void scanLong(long[] v, Operator op, long c, long[] out) {
+        if (isEmptyRange(op, c)) return;
+        long lo = lowerBound(op, c), hi = upperBound(op, c);
+        boolean negate = op == Operator.NE;
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, v.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                long x = v[base + b];
+                bits |= ((x >= lo & x <= hi) != negate ? 1L : 0L) << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static boolean isEmptyRange(Operator op, long c) {
+        return (op == Operator.GT && c == Long.MAX_VALUE) || (op == Operator.LT && c == Long.MIN_VALUE);
+    }
+
+    private static long lowerBound(Operator op, long c) {
+        return switch (op) {
+            case GT -> c + 1;
+            case GE, EQ, NE -> c;
+            default -> Long.MIN_VALUE;
+        };
+    }
+
+    private static long upperBound(Operator op, long c) {
+        return switch (op) {
+            case LT -> c - 1;
+            case LE, EQ, NE -> c;
+            default -> Long.MAX_VALUE;
+        };
+    }
+
+    private static void scanDouble(int[] v, Operator op, double c, long[] out) {
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, v.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                if (CompiledPredicate.compare((double) v[base + b], op, c)) bits |= 1L << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static void scanDouble(long[] v, Operator op, double c, long[] out) {
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, v.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                if (CompiledPredicate.compare((double) v[base + b], op, c)) bits |= 1L << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static void scanDouble(double[] v, Operator op, double c, long[] out) {
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, v.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                if (CompiledPredicate.compare(v[base + b], op, c)) bits |= 1L << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static void scanCodes(int[] codes, boolean[] matches, long[] out) {
+        for (int w = 0, base = 0; w < out.length; w++, base += 64) {
+            int end = Math.min(64, codes.length - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                int code = codes[base + b];
+                if (code >= 0 && matches[code]) bits |= 1L << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    private static void clearTail(long[] words, int rows) {
+        int tail = rows & 63;
+        if (tail != 0 && words.length > 0) {
+            words[words.length - 1] &= (1L << tail) - 1;
+        }
+    }
+
+    private static IllegalArgumentException columnMismatch(String attribute, Column column) {
+        return new IllegalArgumentException("Column '" + attribute + "' has incompatible type " + column.getClass().getSimpleName() + ".");
+    }
+}
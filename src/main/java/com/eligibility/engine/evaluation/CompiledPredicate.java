@@ -0,0 +1,443 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, typed form of a {@link com.eligibility.engine.model.RuleNode} tree.
+ * Operators are enums and constants are already unboxed, so {@link #test(UserFacts)}
+ * does no string comparison or boxing of rule values.
+ * An attribute that is absent from the facts makes every comparison on it false.
+ * <p>
+ * Equality is structural and the hash is computed once at construction, so identical subtrees can be
+ * shared through {@link PredicateInterner}; once interned, equal nodes are the same instance.
+ * <p>
+ * Leaves compiled against an {@link AttributeLayout} also carry the attribute's ordinal (-1 when unbound) and
+ * read a {@link UserProfile} of that layout's lineage by index through {@link #test(UserProfile)}.
+ */
+public abstract sealed class CompiledPredicate
+        permits CompiledPredicate.LongComparison, CompiledPredicate.DoubleComparison,
+                CompiledPredicate.StringComparison, CompiledPredicate.StringMembership,
+                CompiledPredicate.BooleanComparison, CompiledPredicate.ListMembership,
+                CompiledPredicate.And, CompiledPredicate.Or, CompiledPredicate.Not {
+
+    private final int hash;
+
+    CompiledPredicate(int hash) {
+        this.hash = hash;
+    }
+
+    public abstract boolean test(UserFacts facts);
+
+    /** Same result as {@link #test(UserFacts)}; only valid for a profile compatible with the layout the rule was bound to. */
+    public abstract boolean test(UserProfile profile);
+
+    /** Field-by-field comparison with a node of the same class. */
+    abstract boolean sameAs(CompiledPredicate other);
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof CompiledPredicate p && p.hash == hash && p.getClass() == getClass() && sameAs(p);
+    }
+
+    @Override
+    public final int hashCode() {
+        return hash;
+    }
+
+    private static int hash(Object kind, Object... parts) {
+        return 31 * kind.hashCode() + Arrays.hashCode(parts);
+    }
+
+    static boolean sameChildren(CompiledPredicate[] a, CompiledPredicate[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (!a[i].equals(b[i])) return false;
+        }
+        return true;
+    }
+
+    /** Attribute read by this leaf, or {@code null} for list and logical nodes. */
+    public String attribute() {
+        return null;
+    }
+
+    /** Layout ordinal of {@link #attribute()}, or -1 when unbound (and for list and logical nodes). */
+    public int ordinal() {
+        return -1;
+    }
+
+    static boolean compare(long v, Operator op, long c) {
+        return switch (op) {
+            case GT -> v > c;
+            case GE -> v >= c;
+            case LT -> v < c;
+            case LE -> v <= c;
+            case EQ -> v == c;
+            case NE -> v != c;
+            case IN -> false;
+        };
+    }
+
+    static boolean compare(double v, Operator op, double c) {
+        return switch (op) {
+            case GT -> v > c;
+            case GE -> v >= c;
+            case LT -> v < c;
+            case LE -> v <= c;
+            case EQ -> v == c;
+            case NE -> v != c;
+            case IN -> false;
+        };
+    }
+
+    public static final class LongComparison extends CompiledPredicate {
+        final String attribute;
+        final int ordinal;
+        final Operator op;
+        final long value;
+
+        LongComparison(String attribute, int ordinal, Operator op, long value) {
+            super(hash("long", attribute, op, value, ordinal));
+            this.attribute = attribute;
+            this.ordinal = ordinal;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override public String attribute() { return attribute; }
+        @Override public int ordinal() { return ordinal; }
+        public Operator op() { return op; }
+        public long value() { return value; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.has(attribute) && compare(facts.longValue(attribute), op, value);
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            if (ordinal < 0) return test((UserFacts) p);
+            return p.has(ordinal) && compare(p.longAt(ordinal), op, value);
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            LongComparison c = (LongComparison) o;
+            return ordinal == c.ordinal && value == c.value && op == c.op && attribute.equals(c.attribute);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + " " + op.symbol() + " " + value;
+        }
+    }
+
+    public static final class DoubleComparison extends CompiledPredicate {
+        final String attribute;
+        final int ordinal;
+        final Operator op;
+        final double value;
+
+        DoubleComparison(String attribute, int ordinal, Operator op, double value) {
+            super(hash("double", attribute, op, value, ordinal));
+            this.attribute = attribute;
+            this.ordinal = ordinal;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override public String attribute() { return attribute; }
+        @Override public int ordinal() { return ordinal; }
+        public Operator op() { return op; }
+        public double value() { return value; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.has(attribute) && compare(facts.doubleValue(attribute), op, value);
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            if (ordinal < 0) return test((UserFacts) p);
+            return p.has(ordinal) && compare(p.doubleAt(ordinal), op, value);
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            DoubleComparison c = (DoubleComparison) o;
+            return ordinal == c.ordinal && Double.compare(value, c.value) == 0 && op == c.op && attribute.equals(c.attribute);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + " " + op.symbol() + " " + value;
+        }
+    }
+
+    /** String equality ({@code ==} / {@code !=}). */
+    public static final class StringComparison extends CompiledPredicate {
+        final String attribute;
+        final int ordinal;
+        final boolean equal;
+        final String value;
+
+        StringComparison(String attribute, int ordinal, boolean equal, String value) {
+            super(hash("string", attribute, equal, value, ordinal));
+            this.attribute = attribute;
+            this.ordinal = ordinal;
+            this.equal = equal;
+            this.value = value;
+        }
+
+        @Override public String attribute() { return attribute; }
+        @Override public int ordinal() { return ordinal; }
+        public boolean equal() { return equal; }
+        public String value() { return value; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.has(attribute) && value.equals(facts.stringValue(attribute)) == equal;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            if (ordinal < 0) return test((UserFacts) p);
+            return p.has(ordinal) && value.equals(p.stringAt(ordinal)) == equal;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            StringComparison c = (StringComparison) o;
+            return ordinal == c.ordinal && equal == c.equal && value.equals(c.value) && attribute.equals(c.attribute);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + (equal ? " == " : " != ") + value;
+        }
+    }
+
+    /** String attribute {@code IN [a, b, ...]}; values are kept sorted for binary search. */
+    public static final class StringMembership extends CompiledPredicate {
+        final String attribute;
+        final int ordinal;
+        final String[] values;
+
+        StringMembership(String attribute, int ordinal, String[] sortedValues) {
+            super(hash("string-in", attribute, Arrays.hashCode(sortedValues), ordinal));
+            this.attribute = attribute;
+            this.ordinal = ordinal;
+            this.values = sortedValues;
+        }
+
+        @Override public String attribute() { return attribute; }
+        @Override public int ordinal() { return ordinal; }
+        public String[] values() { return values.clone(); }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.has(attribute) && Arrays.binarySearch(values, facts.stringValue(attribute)) >= 0;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            if (ordinal < 0) return test((UserFacts) p);
+            return p.has(ordinal) && Arrays.binarySearch(values, p.stringAt(ordinal)) >= 0;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            StringMembership c = (StringMembership) o;
+            return ordinal == c.ordinal && attribute.equals(c.attribute) && Arrays.equals(values, c.values);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + " IN " + Arrays.toString(values);
+        }
+    }
+
+    public static final class BooleanComparison extends CompiledPredicate {
+        final String attribute;
+        final int ordinal;
+        final boolean equal;
+        final boolean value;
+
+        BooleanComparison(String attribute, int ordinal, boolean equal, boolean value) {
+            super(hash("boolean", attribute, equal, value, ordinal));
+            this.attribute = attribute;
+            this.ordinal = ordinal;
+            this.equal = equal;
+            this.value = value;
+        }
+
+        @Override public String attribute() { return attribute; }
+        @Override public int ordinal() { return ordinal; }
+        public boolean equal() { return equal; }
+        public boolean value() { return value; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.has(attribute) && (facts.booleanValue(attribute) == value) == equal;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            if (ordinal < 0) return test((UserFacts) p);
+            return p.has(ordinal) && (p.booleanAt(ordinal) == value) == equal;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            BooleanComparison c = (BooleanComparison) o;
+            return ordinal == c.ordinal && equal == c.equal && value == c.value && attribute.equals(c.attribute);
+        }
+
+        @Override
+        public String toString() {
+            return attribute + (equal ? " == " : " != ") + value;
+        }
+    }
+
+    public static final class ListMembership extends CompiledPredicate {
+        final String listName;
+        final boolean inList;
+
+        ListMembership(String listName, boolean inList) {
+            super(hash("list", listName, inList));
+            this.listName = listName;
+            this.inList = inList;
+        }
+
+        public String listName() { return listName; }
+        public boolean inList() { return inList; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return facts.inList(listName) == inList;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            return p.inList(listName) == inList;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            ListMembership c = (ListMembership) o;
+            return inList == c.inList && listName.equals(c.listName);
+        }
+
+        @Override
+        public String toString() {
+            return (inList ? "IN " : "NOT IN ") + listName;
+        }
+    }
+
+    public static final class And extends CompiledPredicate {
+        final CompiledPredicate[] children;
+
+        And(CompiledPredicate[] children) {
+            super(hash("and", Arrays.hashCode(children)));
+            this.children = children;
+        }
+
+        public CompiledPredicate[] children() { return children.clone(); }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            for (CompiledPredicate c : children) {
+                if (!c.test(facts)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            for (CompiledPredicate c : children) {
+                if (!c.test(p)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            return sameChildren(children, ((And) o).children);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(children).map(Object::toString).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    public static final class Or extends CompiledPredicate {
+        final CompiledPredicate[] children;
+
+        Or(CompiledPredicate[] children) {
+            super(hash("or", Arrays.hashCode(children)));
+            this.children = children;
+        }
+
+        public CompiledPredicate[] children() { return children.clone(); }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            for (CompiledPredicate c : children) {
+                if (c.test(facts)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            for (CompiledPredicate c : children) {
+                if (c.test(p)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            return sameChildren(children, ((Or) o).children);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(children).map(Object::toString).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+
+    public static final class Not extends CompiledPredicate {
+        final CompiledPredicate child;
+
+        Not(CompiledPredicate child) {
+            super(hash("not", child.hashCode()));
+            this.child = child;
+        }
+
+        public CompiledPredicate child() { return child; }
+
+        @Override
+        public boolean test(UserFacts facts) {
+            return !child.test(facts);
+        }
+
+        @Override
+        public boolean test(UserProfile p) {
+            return !child.test(p);
+        }
+
+        @Override
+        boolean sameAs(CompiledPredicate o) {
+            return child.equals(((Not) o).child);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT (" + child + ")";
+        }
+    }
+}
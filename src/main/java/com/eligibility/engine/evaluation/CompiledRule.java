@@ -0,0 +1,23 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.Set;
+
+/**
+ * A rule compiled once and evaluated many times.
+ * {@code attributes} and {@code lists} are every attribute / list name the rule references.
+ * {@code layout} is the {@link AttributeLayout} the leaves were bound to, or {@code null} if they read by name only.
+ */
+public record CompiledRule(String ruleId, CompiledPredicate root, Set<String> attributes, Set<String> lists,
+                           AttributeLayout layout) {
+
+    public CompiledRule(String ruleId, CompiledPredicate root, Set<String> attributes, Set<String> lists) {
+        this(ruleId, root, attributes, lists, null);
+    }
+
+    public boolean test(UserFacts facts) {
+        if (layout != null && facts instanceof UserProfile profile && profile.layout().compatibleWith(layout)) {
+            return root.test(profile);
+        }
+        return root.test(facts);
+    }
+}
@@ -0,0 +1,190 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of eligibility decisions with a TTL and frequency-aware admission.
+ * <p>
+ * Entries live in striped access-ordered maps. When a stripe is full, a new key only replaces the stripe's
+ * least recently used entry if a count-min sketch says the new key has been asked for more often
+ * (TinyLFU-style); otherwise the new decision is simply not cached. The sketch is halved periodically so
+ * old popularity fades. Invalidation is by key: a {@link DecisionKey} carries a version, so bumping the
+ * version makes old entries unreachable and they age out.
+ */
+public final class DecisionCache {
+
+    public record Stats(long hits, long misses, long evictions, long rejections, long expirations,
+                        int size, int capacity, double hitRate) {}
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final FrequencySketch sketch;
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public DecisionCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, System::currentTimeMillis);
+    }
+
+    DecisionCache(int capacity, long ttlMillis, LongSupplier clock) {
+        if (capacity <= 0) throw new IllegalArgumentException("Decision cache capacity must be positive.");
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        int perStripe = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(perStripe);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    /** The cached decision, or {@code null} on a miss. */
+    public Boolean get(DecisionKey key) {
+        sketch.increment(key.hashCode());
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Entry e = stripe.map.get(key);
+            if (e != null && e.expiresAt <= clock.getAsLong()) {
+                stripe.map.remove(key);
+                expirations.increment();
+                e = null;
+            }
+            if (e == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return e.decision;
+        }
+    }
+
+    public void put(DecisionKey key, boolean decision) {
+        long now = clock.getAsLong();
+        Entry entry = new Entry(decision, now + ttlMillis);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            if (stripe.map.containsKey(key) || stripe.map.size() < stripe.capacity) {
+                stripe.map.put(key, entry);
+                return;
+            }
+            Iterator<Map.Entry<DecisionKey, Entry>> eldest = stripe.map.entrySet().iterator();
+            Map.Entry<DecisionKey, Entry> victim = eldest.next();
+            if (victim.getValue().expiresAt <= now) {
+                expirations.increment();
+            } else if (sketch.frequency(key.hashCode()) > sketch.frequency(victim.getKey().hashCode())) {
+                evictions.increment();
+            } else {
+                rejections.increment();
+                return;
+            }
+            eldest.remove();
+            stripe.map.put(key, entry);
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.map.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.map.size();
+            }
+        }
+        return size;
+    }
+
+    public Stats stats() {
+        long h = hits.sum(), m = misses.sum();
+        return new Stats(h, m, evictions.sum(), rejections.sum(), expirations.sum(), size(), capacity,
+                h + m == 0 ? 0.0 : (double) h / (h + m));
+    }
+
+    private Stripe stripeFor(DecisionKey key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private record Entry(boolean decision, long expiresAt) {}
+
+    private static final class Stripe {
+        final int capacity;
+        final LinkedHashMap<DecisionKey, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4 rows of 4-bit-range counters kept in bytes. Races between threads only lose
+     * increments, which an estimate tolerates.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX = 15;
+        private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+        private final byte[][] rows = new byte[DEPTH][];
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int capacity) {
+            // Too narrow a sketch saturates and stops telling keys apart, so small caches still get 1K columns.
+            int sized = Math.max(256, Math.min(capacity, 1 << 22));
+            int width = Integer.highestOneBit(4 * sized - 1) << 1;
+            for (int i = 0; i < DEPTH; i++) rows[i] = new byte[width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * sized;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int idx = index(hash, i);
+                if (rows[i][idx] < MAX) {
+                    rows[i][idx]++;
+                    added = true;
+                }
+            }
+            if (added && additions.incrementAndGet() >= sampleSize) age();
+        }
+
+        int frequency(int hash) {
+            int min = MAX;
+            for (int i = 0; i < DEPTH; i++) min = Math.min(min, rows[i][index(hash, i)]);
+            return min;
+        }
+
+        private synchronized void age() {
+            if (additions.get() < sampleSize) return;
+            for (byte[] row : rows) {
+                for (int j = 0; j < row.length; j++) row[j] = (byte) (row[j] >>> 1);
+            }
+            additions.set(0);
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 17)) & mask;
+        }
+    }
+}
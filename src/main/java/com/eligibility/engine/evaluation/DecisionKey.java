@@ -0,0 +1,41 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * Cache key for one eligibility decision: the rule, a version that changes whenever the rule, the schema
+ * or a referenced list changes, and the exact values of only the facts that rule reads.
+ */
+public final class DecisionKey {
+
+    final String ruleId;
+    final long version;
+    final long[] numbers;
+    final String[] strings;
+    private final int hash;
+
+    DecisionKey(String ruleId, long version, long[] numbers, String[] strings) {
+        this.ruleId = ruleId;
+        this.version = version;
+        this.numbers = numbers;
+        this.strings = strings;
+        int h = ruleId.hashCode();
+        h = 31 * h + Long.hashCode(version);
+        h = 31 * h + Arrays.hashCode(numbers);
+        h = 31 * h + Arrays.hashCode(strings);
+        this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DecisionKey k)) return false;
+        return hash == k.hash && version == k.version && ruleId.equals(k.ruleId)
+                && Arrays.equals(numbers, k.numbers) && Arrays.equals(strings, k.strings);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,75 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Which facts a compiled rule reads, and how: builds a {@link DecisionKey} from exactly those values,
+ * so users who differ only in attributes the rule ignores share a cache entry.
+ */
+public final class FactFingerprint {
+
+    private final String[] longAttributes;
+    private final String[] doubleAttributes;
+    private final String[] stringAttributes;
+    private final String[] booleanAttributes;
+    private final String[] lists;
+
+    private FactFingerprint(Set<String> longs, Set<String> doubles, Set<String> strings, Set<String> booleans, Set<String> lists) {
+        this.longAttributes = longs.toArray(new String[0]);
+        this.doubleAttributes = doubles.toArray(new String[0]);
+        this.stringAttributes = strings.toArray(new String[0]);
+        this.booleanAttributes = booleans.toArray(new String[0]);
+        this.lists = lists.toArray(new String[0]);
+    }
+
+    public static FactFingerprint of(CompiledRule rule) {
+        Set<String> longs = new LinkedHashSet<>(), doubles = new LinkedHashSet<>(), strings = new LinkedHashSet<>(),
+                booleans = new LinkedHashSet<>(), lists = new LinkedHashSet<>();
+        PredicateTraversal.walk(rule.root(), new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate p, int depth) {
+                if (p instanceof LongComparison c) longs.add(c.attribute);
+                else if (p instanceof DoubleComparison c) doubles.add(c.attribute);
+                else if (p instanceof StringComparison c) strings.add(c.attribute);
+                else if (p instanceof StringMembership c) strings.add(c.attribute);
+                else if (p instanceof BooleanComparison c) booleans.add(c.attribute);
+                else if (p instanceof ListMembership c) lists.add(c.listName);
+                return true;
+            }
+        });
+        return new FactFingerprint(longs, doubles, strings, booleans, lists);
+    }
+
+    /** Layout: presence bits, then long / double-bits / boolean values, then list membership bits. */
+    public DecisionKey key(String ruleId, long version, UserFacts facts) {
+        int numeric = longAttributes.length + doubleAttributes.length + booleanAttributes.length;
+        int presenceWords = (numeric + stringAttributes.length + 63) >>> 6;
+        long[] numbers = new long[presenceWords + numeric + ((lists.length + 63) >>> 6)];
+        String[] strings = stringAttributes.length == 0 ? null : new String[stringAttributes.length];
+
+        int bit = 0, i = presenceWords;
+        for (String a : longAttributes) {
+            if (facts.has(a)) { numbers[bit >>> 6] |= 1L << bit; numbers[i] = facts.longValue(a); }
+            bit++; i++;
+        }
+        for (String a : doubleAttributes) {
+            if (facts.has(a)) { numbers[bit >>> 6] |= 1L << bit; numbers[i] = Double.doubleToLongBits(facts.doubleValue(a)); }
+            bit++; i++;
+        }
+        for (String a : booleanAttributes) {
+            if (facts.has(a)) { numbers[bit >>> 6] |= 1L << bit; numbers[i] = facts.booleanValue(a) ? 1 : 0; }
+            bit++; i++;
+        }
+        for (int s = 0; s < stringAttributes.length; s++) {
+            if (facts.has(stringAttributes[s])) { numbers[bit >>> 6] |= 1L << bit; strings[s] = facts.stringValue(stringAttributes[s]); }
+            bit++;
+        }
+        for (int l = 0; l < lists.length; l++) {
+            if (facts.inList(lists[l])) numbers[i + (l >>> 6)] |= 1L << l;
+        }
+        return new DecisionKey(ruleId, version, numbers, strings);
+    }
+}
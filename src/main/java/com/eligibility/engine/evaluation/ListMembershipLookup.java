@@ -0,0 +1,10 @@
+package com.eligibility.engine.evaluation;
+
+/**
+ * Source of list membership for users identified by numeric id (e.g. the memory-mapped list store).
+ * Implementations must be safe for concurrent readers and should not allocate per call.
+ */
+@FunctionalInterface
+public interface ListMembershipLookup {
+    boolean contains(String listName, long userId);
+}
@@ -0,0 +1,82 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link UserFacts} backed by a plain attribute map (e.g. a deserialized request body),
+ * the list names the caller says the user belongs to and, when the user id is known,
+ * a {@link ListMembershipLookup} for lists held in the membership store.
+ */
+public class MapUserFacts implements UserFacts {
+
+    private final Map<String, Object> attributes;
+    private final Set<String> lists;
+    private final Long userId;
+    private final ListMembershipLookup membership;
+
+    public MapUserFacts(Map<String, Object> attributes, Collection<String> lists) {
+        this(attributes, lists, null, null);
+    }
+
+    public MapUserFacts(Map<String, Object> attributes, Collection<String> lists, Long userId, ListMembershipLookup membership) {
+        this.userId = userId;
+        this.membership = membership;
+        this.attributes = attributes == null ? Collections.emptyMap() : attributes;
+        if (lists == null || lists.isEmpty()) {
+            this.lists = Collections.emptySet();
+        } else {
+            Set<String> normalized = new HashSet<>();
+            for (String l : lists) normalized.add(l.toLowerCase(Locale.ROOT));
+            this.lists = normalized;
+        }
+    }
+
+    @Override
+    public boolean has(String attribute) {
+        return attributes.get(attribute) != null;
+    }
+
+    @Override
+    public long longValue(String attribute) {
+        return longOf(attributes.get(attribute));
+    }
+
+    @Override
+    public double doubleValue(String attribute) {
+        return doubleOf(attributes.get(attribute));
+    }
+
+    @Override
+    public String stringValue(String attribute) {
+        return attributes.get(attribute).toString();
+    }
+
+    @Override
+    public boolean booleanValue(String attribute) {
+        return booleanOf(attributes.get(attribute));
+    }
+
+    // Conversions of a request value, shared with UserProfile so both read the same value the same way.
+    static long longOf(Object v) {
+        return v instanceof Number n ? n.longValue() : Long.parseLong(v.toString().trim());
+    }
+
+    static double doubleOf(Object v) {
+        return v instanceof Number n ? n.doubleValue() : Double.parseDouble(v.toString().trim());
+    }
+
+    static boolean booleanOf(Object v) {
+        return v instanceof Boolean b ? b : Boolean.parseBoolean(v.toString().trim());
+    }
+
+    @Override
+    public boolean inList(String listName) {
+        if (lists.contains(listName)) return true;
+        return userId != null && membership != null && membership.contains(listName, userId);
+    }
+}
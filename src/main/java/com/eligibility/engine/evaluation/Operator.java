@@ -0,0 +1,35 @@
+package com.eligibility.engine.evaluation;
+
+/**
+ * Comparison operators supported by compiled attribute predicates.
+ * Resolved once at compile time so evaluation never compares operator strings.
+ */
+public enum Operator {
+    GT(">"), GE(">="), LT("<"), LE("<="), EQ("=="), NE("!="), IN("IN");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public boolean isOrdering() {
+        return this == GT || this == GE || this == LT || this == LE;
+    }
+
+    public static Operator fromSymbol(String symbol) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Operator is missing.");
+        }
+        String s = symbol.trim();
+        if (s.equals("=")) return EQ;
+        for (Operator op : values()) {
+            if (op.symbol.equalsIgnoreCase(s)) return op;
+        }
+        throw new IllegalArgumentException("Unsupported operator '" + symbol + "'.");
+    }
+}
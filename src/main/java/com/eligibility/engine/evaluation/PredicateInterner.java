@@ -0,0 +1,95 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-consing for compiled rules: every structurally equal subtree (and string constant) across all rules
+ * compiled through one interner is stored once. Interning is bottom-up, so children of an interned node are
+ * themselves interned and comparing two interned nodes is effectively an identity check.
+ * <p>
+ * Canonical nodes are held strongly. The owner bounds them by the trees still in use: {@link #retainOnly} drops
+ * every node and string that no live tree reaches, e.g. when published rules are retired.
+ */
+public final class PredicateInterner {
+
+    private final Map<CompiledPredicate, CompiledPredicate> nodes = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    public CompiledPredicate intern(CompiledPredicate p) {
+        CompiledPredicate canonical = nodes.get(p);
+        if (canonical != null) return canonical;
+
+        CompiledPredicate rebuilt = rebuild(p);
+        CompiledPredicate raced = nodes.putIfAbsent(rebuilt, rebuilt);
+        return raced != null ? raced : rebuilt;
+    }
+
+    /**
+     * Keeps only the nodes and strings reachable from {@code roots} (trees interned here that are still in use).
+     * Kept nodes stay canonical, so later trees go on sharing them with the live ones.
+     */
+    public void retainOnly(Collection<CompiledPredicate> roots) {
+        Set<CompiledPredicate> liveNodes = new HashSet<>();
+        Set<String> liveStrings = new HashSet<>();
+        PredicateTraversal.Visitor collect = new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate node, int depth) {
+                if (!liveNodes.add(node)) return false;   // a shared subtree, already walked
+                collectStrings(node, liveStrings);
+                return true;
+            }
+        };
+        for (CompiledPredicate root : roots) {
+            PredicateTraversal.walk(root, collect);
+        }
+        nodes.keySet().retainAll(liveNodes);
+        strings.keySet().retainAll(liveStrings);
+    }
+
+    private static void collectStrings(CompiledPredicate p, Set<String> out) {
+        if (p.attribute() != null) out.add(p.attribute());
+        if (p instanceof StringComparison c) out.add(c.value);
+        if (p instanceof StringMembership c) out.addAll(Arrays.asList(c.values));
+        if (p instanceof ListMembership c) out.add(c.listName);
+    }
+
+    /** Distinct subtrees held. */
+    public int size() {
+        return nodes.size();
+    }
+
+    private CompiledPredicate rebuild(CompiledPredicate p) {
+        if (p instanceof LongComparison c) return new LongComparison(string(c.attribute), c.ordinal, c.op, c.value);
+        if (p instanceof DoubleComparison c) return new DoubleComparison(string(c.attribute), c.ordinal, c.op, c.value);
+        if (p instanceof StringComparison c) return new StringComparison(string(c.attribute), c.ordinal, c.equal, string(c.value));
+        if (p instanceof StringMembership c) {
+            String[] values = new String[c.values.length];
+            for (int i = 0; i < values.length; i++) values[i] = string(c.values[i]);
+            return new StringMembership(string(c.attribute), c.ordinal, values);
+        }
+        if (p instanceof BooleanComparison c) return new BooleanComparison(string(c.attribute), c.ordinal, c.equal, c.value);
+        if (p instanceof ListMembership c) return new ListMembership(string(c.listName), c.inList);
+        if (p instanceof And a) return new And(internAll(a.children));
+        if (p instanceof Or o) return new Or(internAll(o.children));
+        Not n = (Not) p;
+        return new Not(intern(n.child));
+    }
+
+    private CompiledPredicate[] internAll(CompiledPredicate[] children) {
+        CompiledPredicate[] out = new CompiledPredicate[children.length];
+        for (int i = 0; i < children.length; i++) out[i] = intern(children[i]);
+        return out;
+    }
+
+    private String string(String s) {
+        String canonical = strings.putIfAbsent(s, s);
+        return canonical != null ? canonical : s;
+    }
+}
@@ -0,0 +1,85 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Depth-first traversal of a {@link CompiledPredicate} tree on an explicit stack, the compiled counterpart of
+ * {@link com.eligibility.engine.model.RuleTraversal}: nesting depth is bounded by heap rather than by the calling
+ * thread's stack. Children of AND / OR are visited in array order; a NOT has its operand as its only child.
+ */
+public final class PredicateTraversal {
+
+    public interface Visitor {
+        /** Pre-order; {@code false} skips this node's children ({@code leave} is still called). */
+        default boolean enter(CompiledPredicate node, int depth) { return true; }
+
+        /** Post-order, after all children of {@code node} have been left. */
+        default void leave(CompiledPredicate node, int depth) {}
+    }
+
+    private PredicateTraversal() {}
+
+    public static void walk(CompiledPredicate root, Visitor visitor) {
+        // Parallel stacks: the node, and the next child index to visit (-1 = not entered yet).
+        CompiledPredicate[] nodes = new CompiledPredicate[16];
+        int[] next = new int[16];
+        int top = 0;
+        nodes[0] = root;
+        next[0] = -1;
+        while (top >= 0) {
+            CompiledPredicate node = nodes[top];
+            if (next[top] < 0) {
+                next[top] = visitor.enter(node, top) ? 0 : Integer.MAX_VALUE;
+            }
+            if (next[top] < childCount(node)) {
+                CompiledPredicate child = child(node, next[top]++);
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                nodes[top] = child;
+                next[top] = -1;
+                continue;
+            }
+            visitor.leave(node, top);
+            nodes[top--] = null;
+        }
+    }
+
+    /**
+     * Bottom-up evaluation: {@code combine} receives each node with the results of its children
+     * (empty for leaves) and its return value is passed to the parent.
+     */
+    public static <R> R fold(CompiledPredicate root, BiFunction<CompiledPredicate, List<R>, R> combine) {
+        List<R> results = new ArrayList<>();
+        walk(root, new Visitor() {
+            @Override
+            public void leave(CompiledPredicate node, int depth) {
+                int n = childCount(node);
+                List<R> tail = results.subList(results.size() - n, results.size());
+                R value = combine.apply(node, n == 0 ? List.of() : Collections.unmodifiableList(new ArrayList<>(tail)));
+                tail.clear();
+                results.add(value);
+            }
+        });
+        return results.get(0);
+    }
+
+    static int childCount(CompiledPredicate p) {
+        if (p instanceof And a) return a.children.length;
+        if (p instanceof Or o) return o.children.length;
+        return p instanceof Not ? 1 : 0;
+    }
+
+    static CompiledPredicate child(CompiledPredicate p, int i) {
+        if (p instanceof And a) return a.children[i];
+        if (p instanceof Or o) return o.children[i];
+        return ((Not) p).child;
+    }
+}
@@ -0,0 +1,210 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.service.UserSchemaService;
+
+import java.util.*;
+
+/**
+ * Turns a {@link RuleNode} tree into a {@link CompiledRule}.
+ * Attribute types come from the schema snapshot; anything the schema would reject
+ * (unknown attribute, disallowed operator, wrong value type) fails compilation
+ * with an {@link IllegalArgumentException} instead of failing later at evaluation time.
+ * <p>
+ * Compiled predicates evaluate recursively, one plain loop per node, so compilation also rejects trees nested more
+ * than {@link #MAX_DEPTH} levels deep (after AND-in-AND / OR-in-OR splicing). That is far beyond any hand-written
+ * rule, and keeps the exported JSON (two levels per AND / OR) within Jackson's 1000-level read limit.
+ */
+public class RuleCompiler {
+
+    static final int MAX_DEPTH = 256;
+
+    private final UserSchemaService schema;
+    private final PredicateInterner interner;
+
+    public RuleCompiler(UserSchemaService schema) {
+        this(schema, null);
+    }
+
+    /** Compiled trees share identical subtrees through {@code interner} (may be {@code null}). */
+    public RuleCompiler(UserSchemaService schema, PredicateInterner interner) {
+        this.schema = schema;
+        this.interner = interner;
+    }
+
+    public CompiledRule compile(String ruleId, RuleNode root) {
+        if (root == null) {
+            throw new IllegalArgumentException("Rule is empty.");
+        }
+        Set<String> attributes = new TreeSet<>();
+        Set<String> lists = new TreeSet<>();
+        AttributeLayout layout = schema.layout();
+        CompiledPredicate predicate = compileNode(root, attributes, lists, layout);
+        checkDepth(predicate);
+        if (interner != null) {
+            predicate = interner.intern(predicate);
+        }
+        return new CompiledRule(ruleId, predicate, Collections.unmodifiableSet(attributes), Collections.unmodifiableSet(lists), layout);
+    }
+
+    private CompiledPredicate compileNode(RuleNode root, Set<String> attributes, Set<String> lists, AttributeLayout layout) {
+        // Logical nodes are checked on the way down and assembled from their compiled children on the way up.
+        Deque<CompiledPredicate> compiled = new ArrayDeque<>();
+        RuleTraversal.walk(root, new RuleTraversal.Visitor() {
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                if (node instanceof LogicalRule lr) checkLogical(lr);
+                return RuleTraversal.Step.CONTINUE;
+            }
+
+            @Override
+            public RuleTraversal.Step leave(RuleNode node, int depth) {
+                compiled.push(node instanceof LogicalRule lr
+                        ? compileLogical(lr, compiled)
+                        : compileLeaf(node, attributes, lists, layout));
+                return RuleTraversal.Step.CONTINUE;
+            }
+        });
+        return compiled.pop();
+    }
+
+    private static void checkDepth(CompiledPredicate root) {
+        PredicateTraversal.walk(root, new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate node, int depth) {
+                if (depth >= MAX_DEPTH) {
+                    throw new IllegalArgumentException("Rule nests more than " + MAX_DEPTH + " levels deep.");
+                }
+                return true;
+            }
+        });
+    }
+
+    private CompiledPredicate compileLeaf(RuleNode node, Set<String> attributes, Set<String> lists, AttributeLayout layout) {
+        if (node instanceof AttributeRule ar) {
+            return compileAttribute(ar, attributes, layout);
+        }
+        if (node instanceof ListRule lr) {
+            if (lr.getListName() == null || lr.getListName().isBlank()) {
+                throw new IllegalArgumentException("List rule has no list name.");
+            }
+            String listName = lr.getListName().trim().toLowerCase(Locale.ROOT);
+            lists.add(listName);
+            return new CompiledPredicate.ListMembership(listName, lr.isInList());
+        }
+        throw new IllegalArgumentException("Unsupported rule node: " + (node == null ? "null" : node.getClass().getSimpleName()));
+    }
+
+    private static void checkLogical(LogicalRule lr) {
+        List<RuleNode> rules = lr.getRules() == null ? List.of() : lr.getRules();
+        String op = lr.getOperator() == null ? "" : lr.getOperator().toUpperCase(Locale.ROOT);
+
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("Logical '" + op + "' has no conditions.");
+        }
+        if (op.equals("NOT")) {
+            if (rules.size() != 1) {
+                throw new IllegalArgumentException("NOT must have exactly one condition.");
+            }
+            return;
+        }
+        if (!op.equals("AND") && !op.equals("OR")) {
+            throw new IllegalArgumentException("Unsupported logical operator '" + lr.getOperator() + "'.");
+        }
+    }
+
+    /** Pops the compiled children of {@code lr} (pushed in order, so last child on top). */
+    private static CompiledPredicate compileLogical(LogicalRule lr, Deque<CompiledPredicate> compiled) {
+        String op = lr.getOperator().toUpperCase(Locale.ROOT);
+        CompiledPredicate[] children = new CompiledPredicate[lr.getRules().size()];
+        for (int i = children.length - 1; i >= 0; i--) {
+            children[i] = compiled.pop();
+        }
+        if (op.equals("NOT")) {
+            return negate(children[0]);
+        }
+        if (children.length == 1) {
+            return children[0];
+        }
+        // AND inside AND (OR inside OR) is spliced into its parent, so a left-deep chain such as
+        // ((a AND b) AND c) compiles to one flat node and evaluation depth tracks real nesting only.
+        List<CompiledPredicate> flat = new ArrayList<>(children.length);
+        for (CompiledPredicate child : children) {
+            if (op.equals("AND") && child instanceof CompiledPredicate.And and) {
+                flat.addAll(Arrays.asList(and.children));
+            } else if (op.equals("OR") && child instanceof CompiledPredicate.Or or) {
+                flat.addAll(Arrays.asList(or.children));
+            } else {
+                flat.add(child);
+            }
+        }
+        CompiledPredicate[] spliced = flat.toArray(new CompiledPredicate[0]);
+        return op.equals("AND") ? new CompiledPredicate.And(spliced) : new CompiledPredicate.Or(spliced);
+    }
+
+    // NOT NOT x is x and NOT over list membership flips it, since every user is either in a list or not. NOT over a
+    // comparison stays a Not: a user without the attribute fails both `age > 18` and `age <= 18`, so the inverted
+    // operator is not the negation. AND / OR keep their Not as well.
+    private static CompiledPredicate negate(CompiledPredicate operand) {
+        if (operand instanceof CompiledPredicate.Not not) {
+            return not.child;
+        }
+        if (operand instanceof CompiledPredicate.ListMembership lm) {
+            return new CompiledPredicate.ListMembership(lm.listName, !lm.inList);
+        }
+        return new CompiledPredicate.Not(operand);
+    }
+
+    private CompiledPredicate compileAttribute(AttributeRule ar, Set<String> attributes, AttributeLayout layout) {
+        if (ar.getAttribute() == null) {
+            throw new IllegalArgumentException("Attribute rule has no attribute.");
+        }
+        AttributeDef def = schema.getAttribute(ar.getAttribute());
+        if (def == null) {
+            throw new IllegalArgumentException("Unknown attribute '" + ar.getAttribute() + "'.");
+        }
+        Operator op = Operator.fromSymbol(ar.getOperator());
+        if (def.operators() != null && !def.operators().contains(op.symbol())) {
+            throw new IllegalArgumentException("Operator '" + op.symbol() + "' not allowed for attribute '" + def.name() + "'. Allowed: " + def.operators());
+        }
+        Object value = ar.getValue();
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for '" + def.name() + " " + op.symbol() + "'.");
+        }
+
+        String name = def.name();
+        int ordinal = layout == null ? -1 : layout.ordinal(name);
+        attributes.add(name);
+        switch (def.type().toLowerCase(Locale.ROOT)) {
+            case "integer", "number" -> {
+                if (!(value instanceof Number n) || op == Operator.IN) throw typeMismatch(def);
+                if ("integer".equalsIgnoreCase(def.type()) && isIntegral(n)) {
+                    return new CompiledPredicate.LongComparison(name, ordinal, op, n.longValue());
+                }
+                return new CompiledPredicate.DoubleComparison(name, ordinal, op, n.doubleValue());
+            }
+            case "string" -> {
+                if (op == Operator.IN) {
+                    if (!(value instanceof Collection<?> c) || c.isEmpty()) throw typeMismatch(def);
+                    String[] values = c.stream().map(String::valueOf).distinct().sorted().toArray(String[]::new);
+                    return new CompiledPredicate.StringMembership(name, ordinal, values);
+                }
+                if (!(value instanceof String s) || (op != Operator.EQ && op != Operator.NE)) throw typeMismatch(def);
+                return new CompiledPredicate.StringComparison(name, ordinal, op == Operator.EQ, s);
+            }
+            case "boolean" -> {
+                if (!(value instanceof Boolean b) || (op != Operator.EQ && op != Operator.NE)) throw typeMismatch(def);
+                return new CompiledPredicate.BooleanComparison(name, ordinal, op == Operator.EQ, b);
+            }
+            default -> throw new IllegalArgumentException("Unsupported attribute type '" + def.type() + "' for '" + name + "'.");
+        }
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+
+    private static IllegalArgumentException typeMismatch(AttributeDef def) {
+        return new IllegalArgumentException("Value type mismatch for '" + def.name() + "'. Expected " + def.type());
+    }
+}
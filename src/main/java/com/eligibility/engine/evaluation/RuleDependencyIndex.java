@@ -0,0 +1,48 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse dependency index: attribute / list name -> ids of the rules that reference it.
+ * Used to re-evaluate only the rules an attribute or membership change can affect.
+ */
+public class RuleDependencyIndex {
+
+    private final Map<String, Set<String>> byAttribute = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byList = new ConcurrentHashMap<>();
+
+    public void add(CompiledRule rule) {
+        for (String a : rule.attributes()) {
+            byAttribute.computeIfAbsent(a, k -> ConcurrentHashMap.newKeySet()).add(rule.ruleId());
+        }
+        for (String l : rule.lists()) {
+            byList.computeIfAbsent(l, k -> ConcurrentHashMap.newKeySet()).add(rule.ruleId());
+        }
+    }
+
+    public void remove(CompiledRule rule) {
+        for (String a : rule.attributes()) {
+            Set<String> ids = byAttribute.get(a);
+            if (ids != null) ids.remove(rule.ruleId());
+        }
+        for (String l : rule.lists()) {
+            Set<String> ids = byList.get(l);
+            if (ids != null) ids.remove(rule.ruleId());
+        }
+    }
+
+    /** Ids of every rule referencing at least one of the given attributes or lists. */
+    public Set<String> affectedRules(Collection<String> attributes, Collection<String> lists) {
+        Set<String> out = new HashSet<>();
+        for (String a : attributes) {
+            Set<String> ids = byAttribute.get(a);
+            if (ids != null) out.addAll(ids);
+        }
+        for (String l : lists) {
+            Set<String> ids = byList.get(l);
+            if (ids != null) out.addAll(ids);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,493 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Answers "which rules does this user match" without evaluating every rule.
+ * <p>
+ * Each rule is normalized to DNF. Every distinct leaf predicate becomes one entry in an inverted index
+ * (sorted threshold arrays for {@code > >= < <=}, equality postings, per-list postings). For a user,
+ * the index enumerates only the satisfied leaves; each satisfied positive literal increments its
+ * conjunction's counter, each satisfied negated literal kills its conjunction. A conjunction matches when
+ * its counter reaches its number of positive literals and it was not killed ("conjunction counting"),
+ * so the work is proportional to the satisfied predicates, not the number of rules.
+ * <p>
+ * {@code NOT IN list} is indexed as a negated {@code IN list} literal. Rules whose DNF would exceed
+ * {@link #MAX_CONJUNCTIONS_PER_RULE} are kept aside and evaluated directly.
+ * <p>
+ * Writers are serialized; each {@link #addAll(Collection)} rebuilds only the attribute indexes the new
+ * rules touch and publishes one new immutable {@link State}, so readers never lock.
+ */
+public class RuleMatchIndex {
+
+    static final int MAX_CONJUNCTIONS_PER_RULE = 256;
+
+    private static final int KILLED = Integer.MIN_VALUE / 2;
+
+    private record Literal(CompiledPredicate leaf, boolean negated) {}
+
+    /** Immutable published state of the index. */
+    private record State(String[] ruleIds,
+                         int[] conjRule,
+                         int[] conjPositives,
+                         int[] zeroPositiveConjs,
+                         int[][] leafPostings,
+                         Map<String, AttributeIndex> attributes,
+                         Map<String, Integer> listLeaves,
+                         CompiledRule[] fallbackRules) {
+        static final State EMPTY = new State(new String[0], new int[0], new int[0], new int[0], new int[0][],
+                Map.of(), Map.of(), new CompiledRule[0]);
+    }
+
+    private volatile State state = State.EMPTY;
+
+    // Writer-side bookkeeping, guarded by "this".
+    private final Map<CompiledPredicate, Integer> leafIds = new HashMap<>();
+    private final Map<String, List<LeafEntry>> leavesByAttribute = new HashMap<>();
+    private final Set<String> indexedRules = new HashSet<>();
+
+    private record LeafEntry(int leafId, CompiledPredicate leaf) {}
+
+    // Pooled rather than thread-local: request threads may be short-lived virtual threads.
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    public int size() {
+        State s = state;
+        return s.ruleIds.length;
+    }
+
+    public void add(CompiledRule rule) {
+        addAll(List.of(rule));
+    }
+
+    /**
+     * Indexes every rule not indexed yet and publishes one new {@link State}: the arrays are copied once per
+     * call, not once per rule, so loading N rules at startup costs O(N) rather than O(N^2).
+     */
+    public synchronized void addAll(Collection<CompiledRule> rules) {
+        List<CompiledRule> added = new ArrayList<>();
+        List<List<List<Literal>>> dnfs = new ArrayList<>();
+        List<CompiledRule> fallbackAdded = new ArrayList<>();
+        int conjunctions = 0;
+        for (CompiledRule rule : rules) {
+            if (!indexedRules.add(rule.ruleId())) continue;
+            List<List<Literal>> dnf = toDnf(rule.root(), false, MAX_CONJUNCTIONS_PER_RULE);
+            added.add(rule);
+            dnfs.add(dnf);
+            if (dnf == null) {
+                fallbackAdded.add(rule);
+            } else {
+                conjunctions += dnf.size();
+            }
+        }
+        if (added.isEmpty()) return;
+        State s = state;
+
+        String[] ruleIds = Arrays.copyOf(s.ruleIds, s.ruleIds.length + added.size());
+        int conjBase = s.conjRule.length;
+        int[] conjRule = Arrays.copyOf(s.conjRule, conjBase + conjunctions);
+        int[] conjPositives = Arrays.copyOf(s.conjPositives, conjBase + conjunctions);
+        List<int[]> postings = new ArrayList<>(Arrays.asList(s.leafPostings));
+        Map<Integer, List<Integer>> newPostings = new HashMap<>();
+        Map<String, Integer> listLeaves = new HashMap<>(s.listLeaves);
+        Set<String> touchedAttributes = new HashSet<>();
+        List<Integer> zero = new ArrayList<>();
+
+        int conj = conjBase;
+        for (int r = 0; r < added.size(); r++) {
+            int ruleIndex = s.ruleIds.length + r;
+            ruleIds[ruleIndex] = added.get(r).ruleId();
+            List<List<Literal>> dnf = dnfs.get(r);
+            if (dnf == null) continue;
+            for (List<Literal> conjunction : dnf) {
+                conjRule[conj] = ruleIndex;
+                Set<Long> seen = new HashSet<>();
+                int positives = 0;
+                for (Literal lit : conjunction) {
+                    int leafId = leafIdFor(lit.leaf(), postings, listLeaves, touchedAttributes);
+                    if (!seen.add(((long) leafId << 1) | (lit.negated() ? 1 : 0))) continue;
+                    if (!lit.negated()) positives++;
+                    newPostings.computeIfAbsent(leafId, k -> new ArrayList<>()).add((conj << 1) | (lit.negated() ? 1 : 0));
+                }
+                conjPositives[conj] = positives;
+                if (positives == 0) zero.add(conj);
+                conj++;
+            }
+        }
+
+        for (Map.Entry<Integer, List<Integer>> e : newPostings.entrySet()) {
+            int[] old = postings.get(e.getKey());
+            int[] grown = Arrays.copyOf(old, old.length + e.getValue().size());
+            for (int i = 0; i < e.getValue().size(); i++) grown[old.length + i] = e.getValue().get(i);
+            postings.set(e.getKey(), grown);
+        }
+        int[] zeroPositive = Arrays.copyOf(s.zeroPositiveConjs, s.zeroPositiveConjs.length + zero.size());
+        for (int i = 0; i < zero.size(); i++) zeroPositive[s.zeroPositiveConjs.length + i] = zero.get(i);
+        CompiledRule[] fallback = Arrays.copyOf(s.fallbackRules, s.fallbackRules.length + fallbackAdded.size());
+        for (int i = 0; i < fallbackAdded.size(); i++) fallback[s.fallbackRules.length + i] = fallbackAdded.get(i);
+
+        Map<String, AttributeIndex> attributes = new HashMap<>(s.attributes);
+        for (String a : touchedAttributes) {
+            attributes.put(a, AttributeIndex.build(leavesByAttribute.get(a)));
+        }
+
+        state = new State(ruleIds, conjRule, conjPositives, zeroPositive, postings.toArray(new int[0][]),
+                Map.copyOf(attributes), Map.copyOf(listLeaves), fallback);
+    }
+
+    private int leafIdFor(CompiledPredicate leaf, List<int[]> postings, Map<String, Integer> listLeaves, Set<String> touched) {
+        Integer existing = leafIds.get(leaf);
+        if (existing != null) return existing;
+
+        int id = postings.size();
+        postings.add(new int[0]);
+        leafIds.put(leaf, id);
+        if (leaf instanceof ListMembership lm) {
+            listLeaves.put(lm.listName, id);
+        } else {
+            leavesByAttribute.computeIfAbsent(leaf.attribute(), k -> new ArrayList<>()).add(new LeafEntry(id, leaf));
+            touched.add(leaf.attribute());
+        }
+        return id;
+    }
+
+    /** Ids of every indexed rule the user matches, in index order. */
+    public List<String> match(UserFacts facts) {
+        State s = state;
+        Scratch pooled = scratchPool.poll();
+        Scratch sc = pooled != null ? pooled : new Scratch();
+        sc.prepare(s.conjRule.length);
+        try {
+            for (Map.Entry<String, AttributeIndex> e : s.attributes.entrySet()) {
+                if (facts.has(e.getKey())) {
+                    e.getValue().visitSatisfied(e.getKey(), facts, leaf -> sc.hit(s, leaf));
+                }
+            }
+            for (Map.Entry<String, Integer> e : s.listLeaves.entrySet()) {
+                if (facts.inList(e.getKey())) sc.hit(s, e.getValue());
+            }
+
+            BitSet matchedRules = new BitSet(s.ruleIds.length);
+            for (int i = 0; i < sc.candidateCount; i++) {
+                int conj = sc.candidates[i];
+                if (sc.counts[conj] == s.conjPositives[conj]) matchedRules.set(s.conjRule[conj]);
+            }
+            for (int conj : s.zeroPositiveConjs) {
+                if (sc.counts[conj] == 0) matchedRules.set(s.conjRule[conj]);
+            }
+
+            List<String> out = new ArrayList<>();
+            for (int r = matchedRules.nextSetBit(0); r >= 0; r = matchedRules.nextSetBit(r + 1)) {
+                out.add(s.ruleIds[r]);
+            }
+            for (CompiledRule rule : s.fallbackRules) {
+                if (rule.test(facts)) out.add(rule.ruleId());
+            }
+            return out;
+        } finally {
+            sc.reset();
+            scratchPool.offer(sc);
+        }
+    }
+
+    /** Per-query counters, reset by touching only the conjunctions a query changed. */
+    private static final class Scratch {
+        int[] counts = new int[0];
+        int[] touched = new int[16];
+        int touchedCount;
+        int[] candidates = new int[16];
+        int candidateCount;
+
+        void prepare(int conjunctions) {
+            if (counts.length < conjunctions) counts = new int[Math.max(conjunctions, counts.length * 2)];
+        }
+
+        void hit(State s, int leafId) {
+            for (int posting : s.leafPostings[leafId]) {
+                int conj = posting >>> 1;
+                if (counts[conj] == 0) touched = push(touched, touchedCount++, conj);
+                if ((posting & 1) != 0) {
+                    counts[conj] = KILLED;
+                } else if (++counts[conj] == s.conjPositives[conj]) {
+                    candidates = push(candidates, candidateCount++, conj);
+                }
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) counts[touched[i]] = 0;
+            touchedCount = 0;
+            candidateCount = 0;
+        }
+
+        private static int[] push(int[] arr, int index, int value) {
+            if (index == arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+            arr[index] = value;
+            return arr;
+        }
+    }
+
+    /**
+     * DNF of {@code p} (negated when {@code negate}), or {@code null} if it has more than {@code limit} conjunctions.
+     * NOT is pushed to the leaves; list literals absorb it by flipping to the opposite membership.
+     */
+    static List<List<Literal>> toDnf(CompiledPredicate p, boolean negate, int limit) {
+        // Per depth, for the logical node open there: the node, whether it is negated, and the DNF of its children
+        // so far (a NOT just holds its operand's).
+        List<CompiledPredicate> open = new ArrayList<>();
+        List<Boolean> negated = new ArrayList<>();
+        List<List<List<Literal>>> acc = new ArrayList<>();
+        List<List<List<Literal>>> result = new ArrayList<>(1);
+        boolean[] tooLarge = {false};
+        PredicateTraversal.walk(p, new PredicateTraversal.Visitor() {
+            @Override
+            public boolean enter(CompiledPredicate node, int depth) {
+                if (tooLarge[0]) return false;
+                boolean neg = depth == 0 ? negate : negated.get(depth - 1) != (open.get(depth - 1) instanceof Not);
+                set(open, depth, node);
+                set(negated, depth, neg);
+                boolean group = node instanceof And || node instanceof Or;
+                set(acc, depth, !group ? null : conjunctive(node, neg) ? List.of(List.of()) : new ArrayList<>());
+                return true;
+            }
+
+            @Override
+            public void leave(CompiledPredicate node, int depth) {
+                if (tooLarge[0]) return;
+                List<List<Literal>> dnf;
+                if (node instanceof And || node instanceof Or || node instanceof Not) {
+                    dnf = acc.get(depth);
+                } else if (node instanceof ListMembership lm) {
+                    // NOT IN list == negated "IN list" literal, so only real members are ever looked up.
+                    boolean member = lm.inList != negated.get(depth);
+                    dnf = List.of(List.of(new Literal(new ListMembership(lm.listName, true), !member)));
+                } else {
+                    dnf = List.of(List.of(new Literal(node, negated.get(depth))));
+                }
+                if (depth == 0) {
+                    result.add(dnf);
+                    return;
+                }
+                CompiledPredicate parent = open.get(depth - 1);
+                List<List<Literal>> into = acc.get(depth - 1);
+                if (parent instanceof Not) {
+                    acc.set(depth - 1, dnf);
+                } else if (!conjunctive(parent, negated.get(depth - 1))) {
+                    into.addAll(dnf);
+                    tooLarge[0] = into.size() > limit;
+                } else if ((long) into.size() * dnf.size() > limit) {
+                    tooLarge[0] = true;
+                } else {
+                    List<List<Literal>> next = new ArrayList<>(into.size() * dnf.size());
+                    for (List<Literal> left : into) {
+                        for (List<Literal> right : dnf) {
+                            List<Literal> merged = new ArrayList<>(left.size() + right.size());
+                            merged.addAll(left);
+                            merged.addAll(right);
+                            next.add(merged);
+                        }
+                    }
+                    acc.set(depth - 1, next);
+                }
+            }
+        });
+        return tooLarge[0] ? null : result.get(0);
+    }
+
+    private static boolean conjunctive(CompiledPredicate node, boolean negated) {
+        return node instanceof And ? !negated : node instanceof Or && negated;
+    }
+
+    private static <T> void set(List<T> byDepth, int depth, T value) {
+        if (depth == byDepth.size()) byDepth.add(value);
+        else byDepth.set(depth, value);
+    }
+
+    @FunctionalInterface
+    private interface LeafVisitor {
+        void visit(int leafId);
+    }
+
+    /** Inverted index over the leaf predicates of one attribute. */
+    private static final class AttributeIndex {
+        // Ordering thresholds, indexed by Operator ordinal (GT, GE, LT, LE); keys sorted ascending.
+        final long[][] longKeys = new long[4][];
+        final int[][] longLeaves = new int[4][];
+        final double[][] doubleKeys = new double[4][];
+        final int[][] doubleLeaves = new int[4][];
+        long[] longEqKeys, longNeKeys;
+        int[] longEqLeaves, longNeLeaves;
+        double[] doubleEqKeys, doubleNeKeys;
+        int[] doubleEqLeaves, doubleNeLeaves;
+        Map<String, int[]> stringEq;
+        String[] stringNeKeys;
+        int[] stringNeLeaves;
+        int[] boolTrue, boolFalse;
+
+        static AttributeIndex build(List<LeafEntry> entries) {
+            AttributeIndex ix = new AttributeIndex();
+            List<List<LeafEntry>> longOrd = new ArrayList<>(), doubleOrd = new ArrayList<>();
+            for (int i = 0; i < 4; i++) { longOrd.add(new ArrayList<>()); doubleOrd.add(new ArrayList<>()); }
+            List<LeafEntry> longEq = new ArrayList<>(), longNe = new ArrayList<>();
+            List<LeafEntry> doubleEq = new ArrayList<>(), doubleNe = new ArrayList<>();
+            List<LeafEntry> stringNe = new ArrayList<>();
+            Map<String, List<Integer>> stringEq = new HashMap<>();
+            List<Integer> boolTrue = new ArrayList<>(), boolFalse = new ArrayList<>();
+
+            for (LeafEntry e : entries) {
+                CompiledPredicate leaf = e.leaf();
+                if (leaf instanceof LongComparison c) {
+                    if (c.op.isOrdering()) longOrd.get(c.op.ordinal()).add(e);
+                    else (c.op == Operator.EQ ? longEq : longNe).add(e);
+                } else if (leaf instanceof DoubleComparison c) {
+                    if (c.op.isOrdering()) doubleOrd.get(c.op.ordinal()).add(e);
+                    else (c.op == Operator.EQ ? doubleEq : doubleNe).add(e);
+                } else if (leaf instanceof StringComparison c) {
+                    if (c.equal) stringEq.computeIfAbsent(c.value, k -> new ArrayList<>()).add(e.leafId());
+                    else stringNe.add(e);
+                } else if (leaf instanceof StringMembership c) {
+                    for (String v : c.values) stringEq.computeIfAbsent(v, k -> new ArrayList<>()).add(e.leafId());
+                } else if (leaf instanceof BooleanComparison c) {
+                    (c.value == c.equal ? boolTrue : boolFalse).add(e.leafId());
+                }
+            }
+
+            for (int i = 0; i < 4; i++) {
+                List<LeafEntry> l = sortedByLong(longOrd.get(i));
+                ix.longKeys[i] = longKeys(l);
+                ix.longLeaves[i] = ids(l);
+                List<LeafEntry> d = sortedByDouble(doubleOrd.get(i));
+                ix.doubleKeys[i] = doubleKeys(d);
+                ix.doubleLeaves[i] = ids(d);
+            }
+            longEq = sortedByLong(longEq);
+            longNe = sortedByLong(longNe);
+            ix.longEqKeys = longKeys(longEq);
+            ix.longEqLeaves = ids(longEq);
+            ix.longNeKeys = longKeys(longNe);
+            ix.longNeLeaves = ids(longNe);
+            doubleEq = sortedByDouble(doubleEq);
+            doubleNe = sortedByDouble(doubleNe);
+            ix.doubleEqKeys = doubleKeys(doubleEq);
+            ix.doubleEqLeaves = ids(doubleEq);
+            ix.doubleNeKeys = doubleKeys(doubleNe);
+            ix.doubleNeLeaves = ids(doubleNe);
+
+            Map<String, int[]> eq = new HashMap<>();
+            stringEq.forEach((k, v) -> eq.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+            ix.stringEq = eq;
+            stringNe.sort(Comparator.comparing(e -> ((StringComparison) e.leaf()).value));
+            ix.stringNeKeys = stringNe.stream().map(e -> ((StringComparison) e.leaf()).value).toArray(String[]::new);
+            ix.stringNeLeaves = ids(stringNe);
+            ix.boolTrue = boolTrue.stream().mapToInt(Integer::intValue).toArray();
+            ix.boolFalse = boolFalse.stream().mapToInt(Integer::intValue).toArray();
+            return ix;
+        }
+
+        void visitSatisfied(String attribute, UserFacts facts, LeafVisitor visitor) {
+            if (hasLongLeaves()) {
+                long v = facts.longValue(attribute);
+                visitRange(longLeaves[Operator.GT.ordinal()], 0, lowerBound(longKeys[Operator.GT.ordinal()], v), visitor);
+                visitRange(longLeaves[Operator.GE.ordinal()], 0, upperBound(longKeys[Operator.GE.ordinal()], v), visitor);
+                visitRange(longLeaves[Operator.LT.ordinal()], upperBound(longKeys[Operator.LT.ordinal()], v), longKeys[Operator.LT.ordinal()].length, visitor);
+                visitRange(longLeaves[Operator.LE.ordinal()], lowerBound(longKeys[Operator.LE.ordinal()], v), longKeys[Operator.LE.ordinal()].length, visitor);
+                visitRange(longEqLeaves, lowerBound(longEqKeys, v), upperBound(longEqKeys, v), visitor);
+                visitRange(longNeLeaves, 0, lowerBound(longNeKeys, v), visitor);
+                visitRange(longNeLeaves, upperBound(longNeKeys, v), longNeKeys.length, visitor);
+            }
+            if (hasDoubleLeaves()) {
+                double v = facts.doubleValue(attribute);
+                visitRange(doubleLeaves[Operator.GT.ordinal()], 0, lowerBound(doubleKeys[Operator.GT.ordinal()], v), visitor);
+                visitRange(doubleLeaves[Operator.GE.ordinal()], 0, upperBound(doubleKeys[Operator.GE.ordinal()], v), visitor);
+                visitRange(doubleLeaves[Operator.LT.ordinal()], upperBound(doubleKeys[Operator.LT.ordinal()], v), doubleKeys[Operator.LT.ordinal()].length, visitor);
+                visitRange(doubleLeaves[Operator.LE.ordinal()], lowerBound(doubleKeys[Operator.LE.ordinal()], v), doubleKeys[Operator.LE.ordinal()].length, visitor);
+                visitRange(doubleEqLeaves, lowerBound(doubleEqKeys, v), upperBound(doubleEqKeys, v), visitor);
+                visitRange(doubleNeLeaves, 0, lowerBound(doubleNeKeys, v), visitor);
+                visitRange(doubleNeLeaves, upperBound(doubleNeKeys, v), doubleNeKeys.length, visitor);
+            }
+            if (!stringEq.isEmpty() || stringNeKeys.length > 0) {
+                String v = facts.stringValue(attribute);
+                int[] eq = stringEq.get(v);
+                if (eq != null) visitRange(eq, 0, eq.length, visitor);
+                int lo = 0, hi = stringNeKeys.length;
+                while (lo < hi) { int mid = (lo + hi) >>> 1; if (stringNeKeys[mid].compareTo(v) < 0) lo = mid + 1; else hi = mid; }
+                int from = lo;
+                hi = stringNeKeys.length;
+                while (lo < hi) { int mid = (lo + hi) >>> 1; if (stringNeKeys[mid].compareTo(v) <= 0) lo = mid + 1; else hi = mid; }
+                visitRange(stringNeLeaves, 0, from, visitor);
+                visitRange(stringNeLeaves, lo, stringNeKeys.length, visitor);
+            }
+            if (boolTrue.length > 0 || boolFalse.length > 0) {
+                int[] hit = facts.booleanValue(attribute) ? boolTrue : boolFalse;
+                visitRange(hit, 0, hit.length, visitor);
+            }
+        }
+
+        private boolean hasLongLeaves() {
+            for (long[] k : longKeys) if (k.length > 0) return true;
+            return longEqKeys.length > 0 || longNeKeys.length > 0;
+        }
+
+        private boolean hasDoubleLeaves() {
+            for (double[] k : doubleKeys) if (k.length > 0) return true;
+            return doubleEqKeys.length > 0 || doubleNeKeys.length > 0;
+        }
+
+        private static void visitRange(int[] leaves, int from, int to, LeafVisitor visitor) {
+            for (int i = from; i < to; i++) visitor.visit(leaves[i]);
+        }
+
+        /** First index whose key is {@code >= v}. */
+        private static int lowerBound(long[] keys, long v) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) { int mid = (lo + hi) >>> 1; if (keys[mid] < v) lo = mid + 1; else hi = mid; }
+            return lo;
+        }
+
+        /** First index whose key is {@code > v}. */
+        private static int upperBound(long[] keys, long v) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) { int mid = (lo + hi) >>> 1; if (keys[mid] <= v) lo = mid + 1; else hi = mid; }
+            return lo;
+        }
+
+        private static int lowerBound(double[] keys, double v) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) { int mid = (lo + hi) >>> 1; if (keys[mid] < v) lo = mid + 1; else hi = mid; }
+            return lo;
+        }
+
+        private static int upperBound(double[] keys, double v) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) { int mid = (lo + hi) >>> 1; if (keys[mid] <= v) lo = mid + 1; else hi = mid; }
+            return lo;
+        }
+
+        private static List<LeafEntry> sortedByLong(List<LeafEntry> l) {
+            List<LeafEntry> out = new ArrayList<>(l);
+            out.sort(Comparator.comparingLong(e -> ((LongComparison) e.leaf()).value));
+            return out;
+        }
+
+        private static List<LeafEntry> sortedByDouble(List<LeafEntry> l) {
+            List<LeafEntry> out = new ArrayList<>(l);
+            out.sort(Comparator.comparingDouble(e -> ((DoubleComparison) e.leaf()).value));
+            return out;
+        }
+
+        private static long[] longKeys(List<LeafEntry> l) {
+            return l.stream().mapToLong(e -> ((LongComparison) e.leaf()).value).toArray();
+        }
+
+        private static double[] doubleKeys(List<LeafEntry> l) {
+            return l.stream().mapToDouble(e -> ((DoubleComparison) e.leaf()).value).toArray();
+        }
+
+        private static int[] ids(List<LeafEntry> l) {
+            return l.stream().mapToInt(LeafEntry::leafId).toArray();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.evaluation.CompiledPredicate.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Explain mode: evaluates a compiled rule like {@link CompiledPredicate#test(UserFacts)} while recording, per node,
+ * its outcome and where AND / OR stopped early. Records go into preallocated arrays of a pooled buffer, and strings
+ * are only built by {@link #explain}, from the nodes' {@code toString()} forms (the same as the rule model's).
+ * <p>
+ * This is a separate walk, so evaluation without tracing runs the plain {@code test} path unchanged.
+ */
+public final class RuleTrace {
+
+    /**
+     * {@code failed} are the leaf conditions that made the rule fail: only leaves whose outcome propagated to the
+     * root, and a leaf that failed the rule by passing under a NOT appears negated ({@code NOT (age < 18)}).
+     * It is empty when the user is eligible. {@code trace} is one indented line per visited node.
+     */
+    public record Explanation(boolean eligible, List<String> failed, List<String> trace) {}
+
+    private static final byte PASS = 1, FAIL = 2, SKIPPED = 3;
+    private static final int INITIAL_CAPACITY = 128;
+
+    // Pooled rather than thread-local: requests run on virtual threads, which would each get their own buffer.
+    private static final ConcurrentLinkedQueue<RuleTrace> POOL = new ConcurrentLinkedQueue<>();
+
+    private CompiledPredicate[] nodes = new CompiledPredicate[INITIAL_CAPACITY];
+    private byte[] outcomes = new byte[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private RuleTrace() {}
+
+    /** Evaluates {@code rule} for {@code facts} and explains the outcome. */
+    public static Explanation explain(CompiledRule rule, UserFacts facts) {
+        RuleTrace trace = POOL.poll();
+        if (trace == null) trace = new RuleTrace();
+        try {
+            boolean eligible = trace.run(rule.root(), facts);
+            return trace.render(eligible);
+        } finally {
+            trace.clear();
+            POOL.offer(trace);
+        }
+    }
+
+    private boolean run(CompiledPredicate root, UserFacts facts) {
+        // Open logical nodes on an explicit stack: the node, its record, and the index of the child being run.
+        CompiledPredicate[] open = new CompiledPredicate[16];
+        int[] slots = new int[16];
+        int[] next = new int[16];
+        int top = -1;
+        CompiledPredicate p = root;
+        while (true) {
+            int slot = record(p, top + 1);
+            if (PredicateTraversal.childCount(p) > 0) {
+                if (++top == open.length) {
+                    open = Arrays.copyOf(open, top * 2);
+                    slots = Arrays.copyOf(slots, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                open[top] = p;
+                slots[top] = slot;
+                next[top] = 0;
+                p = PredicateTraversal.child(p, 0);
+                continue;
+            }
+            boolean result = p.test(facts);
+            outcomes[slot] = result ? PASS : FAIL;
+
+            // Hand the result up until a parent has another child to run.
+            while (true) {
+                if (top < 0) return result;
+                CompiledPredicate parent = open[top];
+                int i = ++next[top];
+                if (parent instanceof Not) {
+                    result = !result;
+                } else if (result == (parent instanceof Or)) {
+                    skip(parent, i, top + 1);
+                } else if (i < PredicateTraversal.childCount(parent)) {
+                    p = PredicateTraversal.child(parent, i);
+                    break;
+                }
+                outcomes[slots[top]] = result ? PASS : FAIL;
+                open[top--] = null;
+            }
+        }
+    }
+
+    private void skip(CompiledPredicate parent, int from, int depth) {
+        for (int i = from; i < PredicateTraversal.childCount(parent); i++) {
+            outcomes[record(PredicateTraversal.child(parent, i), depth)] = SKIPPED;
+        }
+    }
+
+    private int record(CompiledPredicate p, int depth) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            outcomes = Arrays.copyOf(outcomes, size * 2);
+            depths = Arrays.copyOf(depths, size * 2);
+        }
+        nodes[size] = p;
+        depths[size] = depth;
+        return size++;
+    }
+
+    private Explanation render(boolean eligible) {
+        List<String> failed = new ArrayList<>();
+        List<String> lines = new ArrayList<>(size);
+        int maxDepth = 0;
+        for (int i = 0; i < size; i++) maxDepth = Math.max(maxDepth, depths[i]);
+        // Per depth, for the latest node seen there (records are in prefix order, so for a node one level down that
+        // is its parent): whether it is a NOT, the outcome it needed, and whether its wrong outcome reached the root.
+        // A child is to blame when its parent is and it, too, came out other than it needed to.
+        boolean[] negates = new boolean[maxDepth + 1];
+        boolean[] wanted = new boolean[maxDepth + 1];
+        boolean[] blamed = new boolean[maxDepth + 1];
+        for (int i = 0; i < size; i++) {
+            CompiledPredicate p = nodes[i];
+            int d = depths[i];
+            boolean want = d == 0 || wanted[d - 1] != negates[d - 1];
+            boolean parentBlamed = d == 0 || blamed[d - 1];
+            negates[d] = p instanceof Not;
+            wanted[d] = want;
+            blamed[d] = parentBlamed && outcomes[i] != SKIPPED && (outcomes[i] == PASS) != want;
+
+            boolean leaf = !(p instanceof And || p instanceof Or || p instanceof Not);
+            if (leaf && blamed[d]) failed.add(want ? p.toString() : "NOT (" + p + ")");
+            String label = leaf ? p.toString() : p instanceof And ? "AND" : p instanceof Or ? "OR" : "NOT";
+            String outcome = outcomes[i] == PASS ? "PASS " : outcomes[i] == FAIL ? "FAIL " : "SKIP ";
+            lines.add("  ".repeat(d) + outcome + label);
+        }
+        return new Explanation(eligible, failed, lines);
+    }
+
+    private void clear() {
+        Arrays.fill(nodes, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.eligibility.engine.evaluation;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only view of one user's attributes and list memberships, as seen by compiled predicates.
+ * Typed accessors are only called after {@link #has(String)} returned true for that attribute.
+ */
+public interface UserFacts {
+    boolean has(String attribute);
+    long longValue(String attribute);
+    double doubleValue(String attribute);
+    String stringValue(String attribute);
+    boolean booleanValue(String attribute);
+    boolean inList(String listName);
+
+    /**
+     * {@code byName} keyed the way compiled rules name attributes and lists (lower case). Profile data entering the
+     * engine goes through this once; the map itself is returned when it is already normalized. Values, including
+     * {@code null}, are kept.
+     */
+    static <V> Map<String, V> normalizedNames(Map<String, V> byName) {
+        if (byName == null) return null;
+        boolean normalized = true;
+        for (String name : byName.keySet()) {
+            if (!name.equals(name.toLowerCase(Locale.ROOT))) {
+                normalized = false;
+                break;
+            }
+        }
+        if (normalized) return byName;
+        Map<String, V> out = new HashMap<>();
+        byName.forEach((name, value) -> out.put(name.toLowerCase(Locale.ROOT), value));
+        return out;
+    }
+}
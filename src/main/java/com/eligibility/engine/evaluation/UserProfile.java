@@ -0,0 +1,199 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.AttributeDef;
+
+import java.util.*;
+
+/**
+ * {@link UserFacts} held in arrays indexed by {@link AttributeLayout} ordinal, so compiled rules bound to the same
+ * layout lineage read them by index instead of hashing names. The by-name methods remain for callers that only
+ * know names.
+ * <p>
+ * Values from a plain map ({@link #of}) are stored as given and converted when a rule reads them, exactly as
+ * {@link MapUserFacts} does: an attribute no rule reads is never converted, and {@code 18.5} stays fractional for a
+ * double comparison. Streaming readers fill primitive slots through the typed setters instead, so nothing is boxed.
+ * <p>
+ * A profile can be refilled with {@link #reset()} and the setters; it is not thread-safe.
+ */
+public final class UserProfile implements UserFacts {
+
+    private static final byte ABSENT = 0, LONG = 1, DOUBLE = 2, BOOLEAN = 3, OBJECT = 4;
+
+    private final AttributeLayout layout;
+    private final byte[] kinds;
+    private final long[] longs;       // LONG and BOOLEAN (0 / 1) slots
+    private final double[] doubles;
+    private final Object[] objects;   // strings and values kept as given
+    private final ListMembershipLookup membership;
+    private final Set<String> lists = new HashSet<>();
+    private Long userId;
+
+    public UserProfile(AttributeLayout layout, ListMembershipLookup membership) {
+        int n = layout.size();
+        this.layout = layout;
+        this.kinds = new byte[n];
+        this.longs = new long[n];
+        this.doubles = new double[n];
+        this.objects = new Object[n];
+        this.membership = membership;
+    }
+
+    /** Profile from a plain attribute map; names the layout does not know are ignored. */
+    public static UserProfile of(AttributeLayout layout, Map<String, Object> attributes, Collection<String> lists,
+                                 Long userId, ListMembershipLookup membership) {
+        UserProfile profile = new UserProfile(layout, membership);
+        if (attributes != null) {
+            for (Map.Entry<String, Object> e : attributes.entrySet()) {
+                int ordinal = layout.ordinal(e.getKey());
+                if (ordinal >= 0) profile.set(ordinal, e.getValue());
+            }
+        }
+        profile.setLists(lists);
+        profile.setUserId(userId);
+        return profile;
+    }
+
+    /**
+     * Empty profile for evaluating one rule: laid out like the rule's leaves, or over just the attributes it reads
+     * when it was compiled without a layout.
+     */
+    public static UserProfile forRule(CompiledRule rule, ListMembershipLookup membership) {
+        AttributeLayout layout = rule.layout();
+        if (layout == null) {
+            List<AttributeDef> defs = new ArrayList<>();
+            for (String a : rule.attributes()) defs.add(new AttributeDef(a, null, Set.of()));
+            layout = AttributeLayout.of(defs);
+        }
+        return new UserProfile(layout, membership);
+    }
+
+    public AttributeLayout layout() {
+        return layout;
+    }
+
+    public void reset() {
+        Arrays.fill(kinds, ABSENT);
+        Arrays.fill(objects, null);
+        lists.clear();
+        userId = null;
+    }
+
+    /** Stores {@code value} as given; it is converted when read. {@code null} leaves the attribute absent. */
+    public void set(int ordinal, Object value) {
+        if (value == null) {
+            kinds[ordinal] = ABSENT;
+            objects[ordinal] = null;
+            return;
+        }
+        objects[ordinal] = value;
+        kinds[ordinal] = OBJECT;
+    }
+
+    public void setLong(int ordinal, long value) {
+        longs[ordinal] = value;
+        kinds[ordinal] = LONG;
+    }
+
+    public void setDouble(int ordinal, double value) {
+        doubles[ordinal] = value;
+        kinds[ordinal] = DOUBLE;
+    }
+
+    public void setBoolean(int ordinal, boolean value) {
+        longs[ordinal] = value ? 1 : 0;
+        kinds[ordinal] = BOOLEAN;
+    }
+
+    public void setString(int ordinal, String value) {
+        set(ordinal, value);
+    }
+
+    public void setLists(Collection<String> names) {
+        lists.clear();
+        if (names == null) return;
+        for (String l : names) lists.add(l.toLowerCase(Locale.ROOT));
+    }
+
+    /** Adds one list the user belongs to; the name must already be lower case. */
+    public void addList(String listName) {
+        lists.add(listName);
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long userId() {
+        return userId;
+    }
+
+    /** False for ordinals beyond this profile's layout, e.g. an attribute added after the profile was built. */
+    public boolean has(int ordinal) {
+        return ordinal < kinds.length && kinds[ordinal] != ABSENT;
+    }
+
+    public long longAt(int ordinal) {
+        switch (kinds[ordinal]) {
+            case LONG: case BOOLEAN: return longs[ordinal];
+            case DOUBLE: return (long) doubles[ordinal];
+            default: return MapUserFacts.longOf(objects[ordinal]);
+        }
+    }
+
+    public double doubleAt(int ordinal) {
+        switch (kinds[ordinal]) {
+            case LONG: case BOOLEAN: return longs[ordinal];
+            case DOUBLE: return doubles[ordinal];
+            default: return MapUserFacts.doubleOf(objects[ordinal]);
+        }
+    }
+
+    public String stringAt(int ordinal) {
+        switch (kinds[ordinal]) {
+            case LONG: return Long.toString(longs[ordinal]);
+            case DOUBLE: return Double.toString(doubles[ordinal]);
+            case BOOLEAN: return Boolean.toString(longs[ordinal] != 0);
+            default: return objects[ordinal].toString();
+        }
+    }
+
+    public boolean booleanAt(int ordinal) {
+        switch (kinds[ordinal]) {
+            case LONG: case BOOLEAN: return longs[ordinal] != 0;
+            case DOUBLE: return doubles[ordinal] != 0;
+            default: return MapUserFacts.booleanOf(objects[ordinal]);
+        }
+    }
+
+    @Override
+    public boolean has(String attribute) {
+        int ordinal = layout.ordinal(attribute);
+        return ordinal >= 0 && has(ordinal);
+    }
+
+    @Override
+    public long longValue(String attribute) {
+        return longAt(layout.ordinal(attribute));
+    }
+
+    @Override
+    public double doubleValue(String attribute) {
+        return doubleAt(layout.ordinal(attribute));
+    }
+
+    @Override
+    public String stringValue(String attribute) {
+        return stringAt(layout.ordinal(attribute));
+    }
+
+    @Override
+    public boolean booleanValue(String attribute) {
+        return booleanAt(layout.ordinal(attribute));
+    }
+
+    @Override
+    public boolean inList(String listName) {
+        if (lists.contains(listName)) return true;
+        return userId != null && membership != null && membership.contains(listName, userId);
+    }
+}
@@ -0,0 +1,157 @@
+package com.eligibility.engine.membership;
+
+import com.eligibility.engine.evaluation.ListMembershipLookup;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Off-heap membership store for static lists ({@code premium_users}, {@code blocked_users}, ...).
+ * Each list is one immutable memory-mapped {@link ListSegment} file named {@code <list>.<version>.seg}.
+ * <p>
+ * Refreshing a list writes a new segment and swaps it in with a single map update, so concurrent
+ * {@link #contains(String, long)} calls see either the old or the new list, never a mix. Each swap publishes a
+ * {@link ListReplacedEvent} so state derived from the old membership can be rebuilt.
+ */
+@Service
+public class ListMembershipStore implements ListMembershipLookup {
+
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final ApplicationEventPublisher events;
+    private final Map<String, ListSegment> segments = new ConcurrentHashMap<>();
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public ListMembershipStore(@Value("${eligibility.lists.dir:data/lists}") String directory,
+                               ApplicationEventPublisher events) {
+        this.directory = Path.of(directory);
+        this.events = events;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(directory);
+            Map<String, Path> latest = new HashMap<>();
+            Map<String, Long> latestVersion = new HashMap<>();
+            List<Path> stale = new ArrayList<>();
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String base = name.substring(0, name.length() - SUFFIX.length());
+                    int dot = base.lastIndexOf('.');
+                    if (dot <= 0) continue;
+                    String list = base.substring(0, dot);
+                    long version;
+                    try {
+                        version = Long.parseLong(base.substring(dot + 1));
+                    } catch (NumberFormatException e) {
+                        System.out.println("--- [LISTS] Skipping " + name + ": version is not a number ---");
+                        continue;
+                    }
+                    Long current = latestVersion.get(list);
+                    if (current == null || version > current) {
+                        if (current != null) stale.add(latest.get(list));
+                        latest.put(list, file);
+                        latestVersion.put(list, version);
+                    } else {
+                        stale.add(file);
+                    }
+                }
+            }
+            for (Map.Entry<String, Path> e : latest.entrySet()) {
+                try {
+                    segments.put(e.getKey(), ListSegment.open(e.getValue()));
+                } catch (Exception ex) {
+                    System.out.println("--- [LISTS] Skipping unreadable " + e.getValue().getFileName() + ": " + ex.getMessage() + " ---");
+                }
+            }
+            for (Path p : stale) Files.deleteIfExists(p);
+
+            System.out.println("--- [LISTS] Loaded " + segments.size() + " list segments from " + directory + " ---");
+        } catch (IOException e) {
+            // Fail startup rather than serve a half-loaded store as if every list were empty.
+            throw new UncheckedIOException("Cannot load list segments from " + directory, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String listName, long userId) {
+        ListSegment segment = segments.get(listName);
+        return segment != null && segment.contains(userId);
+    }
+
+    public boolean isLoaded(String listName) {
+        return segments.containsKey(normalize(listName));
+    }
+
+    public long size(String listName) {
+        ListSegment segment = segments.get(normalize(listName));
+        return segment == null ? 0 : segment.size();
+    }
+
+    /** Number of times a list was replaced since startup; lets callers invalidate state derived from it. */
+    public long generation(String listName) {
+        return generations.getOrDefault(listName, 0L);
+    }
+
+    public Set<String> loadedLists() {
+        return Collections.unmodifiableSet(segments.keySet());
+    }
+
+    /** Replaces a list with the given ids, which must be in ascending order. Returns the new list size. */
+    public long replace(String listName, PrimitiveIterator.OfLong sortedIds) throws IOException {
+        String list = normalize(listName);
+        long size;
+        long generation;
+        synchronized (this) {
+            Path file = directory.resolve(list + "." + nextVersion(list) + SUFFIX);
+            ListSegmentWriter.write(file, sortedIds);
+            ListSegment fresh = ListSegment.open(file);
+
+            ListSegment old = segments.put(list, fresh);
+            generation = generations.merge(list, 1L, Long::sum);
+            // A mapping stays valid after its file is unlinked, so readers still holding the old segment are safe.
+            if (old != null) Files.deleteIfExists(old.path());
+            size = fresh.size();
+        }
+        // Listeners run outside the lock; they may re-read the list for every known user.
+        events.publishEvent(new ListReplacedEvent(list, generation));
+        return size;
+    }
+
+    public long replace(String listName, long[] ids) throws IOException {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return replace(listName, Arrays.stream(sorted).iterator());
+    }
+
+    private long nextVersion(String list) {
+        ListSegment current = segments.get(list);
+        long version = System.currentTimeMillis();
+        if (current != null) {
+            String name = current.path().getFileName().toString();
+            String base = name.substring(0, name.length() - SUFFIX.length());
+            version = Math.max(version, Long.parseLong(base.substring(base.lastIndexOf('.') + 1)) + 1);
+        }
+        return version;
+    }
+
+    private static String normalize(String listName) {
+        if (listName == null || listName.isBlank() || listName.contains("/") || listName.contains("\\")) {
+            throw new IllegalArgumentException("Invalid list name '" + listName + "'.");
+        }
+        return listName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,6 @@
+package com.eligibility.engine.membership;
+
+/**
+ * Published by {@link ListMembershipStore} after a new segment for {@code listName} has been swapped in.
+ */
+public record ListReplacedEvent(String listName, long generation) {}
@@ -0,0 +1,120 @@
+package com.eligibility.engine.membership;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only, memory-mapped view of one list segment file written by {@link ListSegmentWriter}.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ *   int magic | int formatVersion | long count | int fenceStride | int fenceCount
+ *   long[count]      sorted, unique user ids
+ *   long[fenceCount] ids[0], ids[stride], ids[2*stride], ...
+ * </pre>
+ * Only the small fence array lives on the heap; ids stay in the page cache.
+ * {@link #contains(long)} binary-searches the fences, then one block of the mapped ids, without allocating.
+ */
+public final class ListSegment {
+
+    static final int MAGIC = 0x4C495354; // "LIST"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    // One mapping covers at most 2^27 ids (1 GiB), keeping each buffer well under the 2 GiB mapping limit.
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final Path path;
+    private final long count;
+    private final int stride;
+    private final long[] fences;
+    private final LongBuffer[] chunks;
+
+    private ListSegment(Path path, long count, int stride, long[] fences, LongBuffer[] chunks) {
+        this.path = path;
+        this.count = count;
+        this.stride = stride;
+        this.fences = fences;
+        this.chunks = chunks;
+    }
+
+    public static ListSegment open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && ch.read(header, header.position()) >= 0) {}
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not a list segment: " + path);
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported list segment version " + version + ": " + path);
+            }
+            long count = header.getLong();
+            int stride = header.getInt();
+            int fenceCount = header.getInt();
+
+            long dataBytes = count * Long.BYTES;
+            if (ch.size() < HEADER_BYTES + dataBytes + (long) fenceCount * Long.BYTES) {
+                throw new IOException("Truncated list segment: " + path);
+            }
+
+            int chunkCount = (int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT);
+            LongBuffer[] chunks = new LongBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                long first = (long) c << CHUNK_SHIFT;
+                long len = Math.min(1L << CHUNK_SHIFT, count - first);
+                chunks[c] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * Long.BYTES, len * Long.BYTES).asLongBuffer();
+            }
+
+            ByteBuffer fenceBytes = ByteBuffer.allocate(fenceCount * Long.BYTES);
+            long pos = HEADER_BYTES + dataBytes;
+            while (fenceBytes.hasRemaining()) {
+                int n = ch.read(fenceBytes, pos + fenceBytes.position());
+                if (n < 0) throw new IOException("Truncated list segment: " + path);
+            }
+            fenceBytes.flip();
+            long[] fences = new long[fenceCount];
+            fenceBytes.asLongBuffer().get(fences);
+
+            return new ListSegment(path, count, stride, fences, chunks);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public boolean contains(long id) {
+        if (count == 0) return false;
+        int f = Arrays.binarySearch(fences, id);
+        if (f >= 0) return true;
+        int block = -f - 2;
+        if (block < 0) return false;
+
+        long lo = (long) block * stride + 1;
+        long hi = Math.min((long) block * stride + stride, count) - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long v = get(mid);
+            if (v < id) lo = mid + 1;
+            else if (v > id) hi = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    long get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+}
@@ -0,0 +1,81 @@
+package com.eligibility.engine.membership;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes a {@link ListSegment} file from ids in ascending order, streaming, so a list of any size
+ * can be written without holding it on the heap. Duplicates are dropped; out-of-order ids are rejected.
+ * The file is written next to the target and moved into place only once complete.
+ */
+public final class ListSegmentWriter {
+
+    static final int DEFAULT_FENCE_STRIDE = 1024;
+
+    private ListSegmentWriter() {}
+
+    public static long write(Path target, PrimitiveIterator.OfLong sortedIds) throws IOException {
+        return write(target, sortedIds, DEFAULT_FENCE_STRIDE);
+    }
+
+    static long write(Path target, PrimitiveIterator.OfLong sortedIds, int stride) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long count = 0;
+        long[] fences = new long[64];
+        int fenceCount = 0;
+
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+            ch.position(ListSegment.HEADER_BYTES);
+
+            long previous = 0;
+            while (sortedIds.hasNext()) {
+                long id = sortedIds.nextLong();
+                if (count > 0) {
+                    if (id == previous) continue;
+                    if (id < previous) {
+                        throw new IllegalArgumentException("List ids must be in ascending order (" + id + " after " + previous + ").");
+                    }
+                }
+                if (count % stride == 0) {
+                    if (fenceCount == fences.length) fences = Arrays.copyOf(fences, fenceCount * 2);
+                    fences[fenceCount++] = id;
+                }
+                if (!buf.hasRemaining()) drain(ch, buf);
+                buf.putLong(id);
+                previous = id;
+                count++;
+            }
+            for (int i = 0; i < fenceCount; i++) {
+                if (!buf.hasRemaining()) drain(ch, buf);
+                buf.putLong(fences[i]);
+            }
+            drain(ch, buf);
+
+            buf.putInt(ListSegment.MAGIC).putInt(ListSegment.FORMAT_VERSION).putLong(count).putInt(stride).putInt(fenceCount);
+            buf.flip();
+            long pos = 0;
+            while (buf.hasRemaining()) pos += ch.write(buf, pos);
+            ch.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
@@ -2,6 +2,7 @@ package com.eligibility.engine.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -19,6 +20,16 @@ public class ConversationState {
 
     private String pendingAttribute;
 
+    // Highest session write-ahead-log record reflected in this document; replay skips records at or below it.
+    private long walLsn;
+
+    // Older messages moved out of history into compressed archive chunks 0..archivedChunks-1 (conversation_archive).
+    private int archivedChunks;
+
+    // Time of the last flushed turn; sessions idle past eligibility.sessions.ttl-ms are deleted.
+    @Indexed
+    private long lastActiveEpochMs;
+
     public void addMessage(String sender, String text) {
         this.history.add(new ChatMessage(sender, text));
     }
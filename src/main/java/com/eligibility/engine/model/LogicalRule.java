@@ -6,7 +6,6 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -28,12 +27,43 @@ public class LogicalRule extends RuleNode {
 
     @Override
     public String toString() {
-        if (rules == null || rules.isEmpty()) return "";
-        if (isUnaryNot()) {
-            return "NOT (" + rules.get(0).toString() + ")";
-        }
-        return "(" + rules.stream()
-                .map(RuleNode::toString)
-                .collect(Collectors.joining(" " + operator + " ")) + ")";
+        StringBuilder sb = new StringBuilder();
+        List<RuleNode> path = new ArrayList<>();
+        RuleTraversal.walk(this, new RuleTraversal.Visitor() {
+            int hidden = -1;   // depth of a NOT operand past the first, which is not rendered
+
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                path.subList(depth, path.size()).clear();
+                path.add(node);
+                if (depth > 0) {
+                    LogicalRule parent = (LogicalRule) path.get(depth - 1);
+                    if (index > 0 && parent.isUnaryNot()) {
+                        hidden = depth;
+                        return RuleTraversal.Step.SKIP_CHILDREN;
+                    }
+                    if (index > 0) sb.append(' ').append(parent.operator).append(' ');
+                }
+                if (!(node instanceof LogicalRule lr)) {
+                    sb.append(node);
+                } else if (lr.rules == null || lr.rules.isEmpty()) {
+                    return RuleTraversal.Step.SKIP_CHILDREN;
+                } else {
+                    sb.append(lr.isUnaryNot() ? "NOT (" : "(");
+                }
+                return RuleTraversal.Step.CONTINUE;
+            }
+
+            @Override
+            public RuleTraversal.Step leave(RuleNode node, int depth) {
+                if (hidden == depth) {
+                    hidden = -1;
+                } else if (node instanceof LogicalRule lr && lr.rules != null && !lr.rules.isEmpty()) {
+                    sb.append(')');
+                }
+                return RuleTraversal.Step.CONTINUE;
+            }
+        });
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
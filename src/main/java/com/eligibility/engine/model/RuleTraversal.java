@@ -0,0 +1,93 @@
+package com.eligibility.engine.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Depth-first traversal of a {@link RuleNode} tree on an explicit stack, so nesting depth is bounded
+ * by heap rather than by the calling thread's stack. Children of a {@link LogicalRule} are visited in
+ * list order; a {@code null} child is handed to the visitor as-is.
+ */
+public final class RuleTraversal {
+
+    public enum Step {
+        CONTINUE,
+        /** From {@link Visitor#enter}: do not descend into this node; {@code leave} is still called. */
+        SKIP_CHILDREN,
+        /** End the whole walk; no further callbacks. */
+        STOP
+    }
+
+    public interface Visitor {
+        /** Pre-order. {@code index} is the node's position among its parent's children (0 for the root). */
+        default Step enter(RuleNode node, int index, int depth) { return Step.CONTINUE; }
+
+        /** Post-order, after all children of {@code node} have been left. */
+        default Step leave(RuleNode node, int depth) { return Step.CONTINUE; }
+    }
+
+    private RuleTraversal() {}
+
+    /** Walks {@code root}; {@code false} when a callback returned {@link Step#STOP}. */
+    public static boolean walk(RuleNode root, Visitor visitor) {
+        // Parallel stacks: the node, and the next child index to visit (-1 = not entered yet).
+        RuleNode[] nodes = new RuleNode[16];
+        int[] next = new int[16];
+        int top = 0;
+        nodes[0] = root;
+        next[0] = -1;
+        while (top >= 0) {
+            RuleNode node = nodes[top];
+            int depth = top;
+            if (next[top] < 0) {
+                int index = top == 0 ? 0 : next[top - 1] - 1;
+                Step step = visitor.enter(node, index, depth);
+                if (step == Step.STOP) return false;
+                next[top] = step == Step.SKIP_CHILDREN ? Integer.MAX_VALUE : 0;
+            }
+            List<RuleNode> children = children(node);
+            if (next[top] < children.size()) {
+                RuleNode child = children.get(next[top]++);
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                nodes[top] = child;
+                next[top] = -1;
+                continue;
+            }
+            if (visitor.leave(node, depth) == Step.STOP) return false;
+            nodes[top--] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Bottom-up evaluation: {@code combine} receives each node with the results of its children
+     * (empty for leaves and {@code null} nodes) and its return value is passed to the parent.
+     */
+    public static <R> R fold(RuleNode root, BiFunction<RuleNode, List<R>, R> combine) {
+        List<R> results = new ArrayList<>();
+        walk(root, new Visitor() {
+            @Override
+            public Step leave(RuleNode node, int depth) {
+                int n = children(node).size();
+                List<R> tail = results.subList(results.size() - n, results.size());
+                R value = combine.apply(node, n == 0 ? List.of() : Collections.unmodifiableList(new ArrayList<>(tail)));
+                tail.clear();
+                results.add(value);
+                return Step.CONTINUE;
+            }
+        });
+        return results.get(0);
+    }
+
+    /** The children a walk descends into: a logical node's rules, nothing for anything else. */
+    public static List<RuleNode> children(RuleNode node) {
+        if (node instanceof LogicalRule lr && lr.getRules() != null) return lr.getRules();
+        return List.of();
+    }
+}
@@ -0,0 +1,28 @@
+package com.eligibility.engine.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** Messages moved out of a session's inline history, compressed with {@code HistoryCodec}. */
+@Document(collection = "conversation_archive")
+@CompoundIndex(name = "session_seq", def = "{'sessionId': 1, 'seq': 1}")
+public class ArchivedHistoryChunk {
+    @Id
+    public String id; // <sessionId>:<seq>, so re-archiving after a failed trim overwrites instead of duplicating
+
+    public String sessionId;
+    public int seq;
+    public int messageCount;
+    public byte[] data;
+
+    public ArchivedHistoryChunk() {}
+
+    public ArchivedHistoryChunk(String sessionId, int seq, int messageCount, byte[] data) {
+        this.id = sessionId + ":" + seq;
+        this.sessionId = sessionId;
+        this.seq = seq;
+        this.messageCount = messageCount;
+        this.data = data;
+    }
+}
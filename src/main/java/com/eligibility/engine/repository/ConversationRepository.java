@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ConversationRepository extends MongoRepository<ConversationState, String> {
+public interface ConversationRepository extends MongoRepository<ConversationState, String>, ConversationRepositoryCustom {
 }
\ No newline at end of file
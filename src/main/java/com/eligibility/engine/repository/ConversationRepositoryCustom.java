@@ -0,0 +1,42 @@
+package com.eligibility.engine.repository;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Turn-sized reads and writes. Chat turns never load or rewrite {@code history}: states are read without it,
+ * so their {@code history} holds only the messages added since the read, and writing a state appends exactly
+ * those messages and sets the draft fields. Cost per turn does not grow with the conversation.
+ */
+public interface ConversationRepositoryCustom {
+
+    Optional<ConversationState> findWithoutHistory(String id);
+
+    List<ConversationState> findAllWithoutHistory(Collection<String> ids);
+
+    /**
+     * For each state, appends its new messages and sets draft / pending attribute (creating the session if
+     * needed), all in one unordered bulk write. A state whose {@code walLsn} the session already holds is
+     * skipped, so retrying a partly applied write does not repeat messages. Returns the number of sessions written.
+     */
+    int appendTurns(Collection<ConversationState> states);
+
+    /** Ids of up to {@code limit} sessions holding at least {@code minMessages} messages inline. */
+    List<String> findIdsWithHistoryOver(int minMessages, int limit);
+
+    /**
+     * Moves all but the newest {@code keep} inline messages into the next archive chunk. False when there was
+     * nothing to move or a turn landed meanwhile (the next run retries).
+     */
+    boolean archiveHistory(String id, int keep);
+
+    /** The messages of archive chunks {@code 0..chunks-1}, oldest first. */
+    List<ChatMessage> archivedHistory(String id, int chunks);
+
+    /** Deletes up to {@code limit} sessions idle since before {@code cutoffEpochMs}, with their archives; returns their ids. */
+    List<String> deleteIdleSince(long cutoffEpochMs, int limit);
+}
@@ -0,0 +1,164 @@
+package com.eligibility.engine.repository;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.util.HistoryCodec;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+public class ConversationRepositoryCustomImpl implements ConversationRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ConversationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<ConversationState> findWithoutHistory(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().exclude("history");
+        return Optional.ofNullable(mongoTemplate.findOne(query, ConversationState.class));
+    }
+
+    @Override
+    public List<ConversationState> findAllWithoutHistory(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().exclude("history");
+        return mongoTemplate.find(query, ConversationState.class);
+    }
+
+    @Override
+    public int appendTurns(Collection<ConversationState> states) {
+        if (states.isEmpty()) return 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ConversationState.class);
+        for (ConversationState state : states) {
+            bulk.upsert(unapplied(state), turnUpdate(state));
+        }
+        try {
+            BulkWriteResult result = bulk.execute();
+            return result.getMatchedCount() + result.getUpserts().size();
+        } catch (BulkOperationException e) {
+            // A duplicate key means the filter skipped a session that already holds this walLsn and the upsert
+            // then tried to insert it again: the turn was applied by an earlier, partly failed write.
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) throw e;
+            }
+            return states.size() - e.getErrors().size();
+        }
+    }
+
+    // Matches the session only while it does not hold this turn yet, so writing the same state twice (a retried
+    // flush, a replayed log) appends its messages once.
+    private static Query unapplied(ConversationState state) {
+        Criteria byId = Criteria.where("_id").is(state.getId());
+        if (state.getWalLsn() <= 0) return Query.query(byId);
+        return Query.query(byId.orOperator(
+                Criteria.where("walLsn").lt(state.getWalLsn()),
+                Criteria.where("walLsn").exists(false)));
+    }
+
+    // $push of the new messages only, $set / $unset of the two small draft fields, $max of the log position.
+    private static Update turnUpdate(ConversationState state) {
+        Update update = new Update();
+        if (!state.getHistory().isEmpty()) {
+            update.push("history").each(state.getHistory().toArray());
+        }
+        if (state.getCurrentDraftRule() != null) {
+            update.set("currentDraftRule", state.getCurrentDraftRule());
+        } else {
+            update.unset("currentDraftRule");
+        }
+        if (state.getPendingAttribute() != null) {
+            update.set("pendingAttribute", state.getPendingAttribute());
+        } else {
+            update.unset("pendingAttribute");
+        }
+        if (state.getWalLsn() > 0) {
+            update.max("walLsn", state.getWalLsn());
+        }
+        update.max("lastActiveEpochMs", System.currentTimeMillis());
+        return update;
+    }
+
+    @Override
+    public List<String> findIdsWithHistoryOver(int minMessages, int limit) {
+        // history.<n> exists exactly when history has more than n elements.
+        Query query = Query.query(Criteria.where("history." + (minMessages - 1)).exists(true)).limit(limit);
+        query.fields().include("_id");
+        return ids(mongoTemplate.find(query, ConversationState.class));
+    }
+
+    @Override
+    public boolean archiveHistory(String id, int keep) {
+        Query read = Query.query(Criteria.where("_id").is(id));
+        read.fields().include("history").include("archivedChunks");
+        ConversationState state = mongoTemplate.findOne(read, ConversationState.class);
+        if (state == null) return false;
+        int size = state.getHistory().size();
+        int move = size - keep;
+        if (move <= 0) return false;
+
+        // Chunk first, then trim only if history is exactly as read; a lost race leaves a chunk past
+        // archivedChunks, which readers ignore and the next attempt overwrites.
+        List<ChatMessage> archived = state.getHistory().subList(0, move);
+        mongoTemplate.save(new ArchivedHistoryChunk(id, state.getArchivedChunks(), move, HistoryCodec.compress(archived)));
+        Query guard = Query.query(Criteria.where("_id").is(id)
+                .and("archivedChunks").is(state.getArchivedChunks())
+                .and("history").size(size));
+        Update trim = new Update().push("history").slice(-keep).each();
+        trim.inc("archivedChunks", 1);
+        return mongoTemplate.updateFirst(guard, trim, ConversationState.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public List<ChatMessage> archivedHistory(String id, int chunks) {
+        Query query = Query.query(Criteria.where("sessionId").is(id).and("seq").lt(chunks))
+                .with(Sort.by(Sort.Direction.ASC, "seq"));
+        List<ChatMessage> messages = new ArrayList<>();
+        for (ArchivedHistoryChunk chunk : mongoTemplate.find(query, ArchivedHistoryChunk.class)) {
+            messages.addAll(HistoryCodec.decompress(chunk.data));
+        }
+        return messages;
+    }
+
+    @Override
+    public List<String> deleteIdleSince(long cutoffEpochMs, int limit) {
+        Query idle = Query.query(Criteria.where("lastActiveEpochMs").lt(cutoffEpochMs)).limit(limit);
+        idle.fields().include("_id");
+        List<String> candidates = ids(mongoTemplate.find(idle, ConversationState.class));
+        if (candidates.isEmpty()) return List.of();
+
+        // Re-check idleness in the delete itself, then drop archives only for sessions that are really gone.
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(candidates).and("lastActiveEpochMs").lt(cutoffEpochMs)),
+                ConversationState.class);
+        Query survivors = Query.query(Criteria.where("_id").in(candidates));
+        survivors.fields().include("_id");
+        Set<String> kept = new HashSet<>(ids(mongoTemplate.find(survivors, ConversationState.class)));
+        List<String> deleted = new ArrayList<>();
+        for (String id : candidates) {
+            if (!kept.contains(id)) deleted.add(id);
+        }
+        if (!deleted.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("sessionId").in(deleted)), ArchivedHistoryChunk.class);
+        }
+        return deleted;
+    }
+
+    private static List<String> ids(List<ConversationState> states) {
+        List<String> ids = new ArrayList<>(states.size());
+        for (ConversationState s : states) ids.add(s.getId());
+        return ids;
+    }
+}
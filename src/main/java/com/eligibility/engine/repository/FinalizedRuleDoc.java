@@ -1,17 +1,28 @@
 package com.eligibility.engine.repository;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
+import java.util.List;
 
+// Catalog listing (RuleQuery) pages newest first on each of these; the registry poll uses the first.
 @Document(collection = "finalized_rules")
+@CompoundIndexes({
+        @CompoundIndex(name = "created_id", def = "{'createdAtEpochMs': -1, '_id': -1}"),
+        @CompoundIndex(name = "session_created_id", def = "{'sessionId': 1, 'createdAtEpochMs': -1, '_id': -1}"),
+        @CompoundIndex(name = "attribute_created_id", def = "{'attributes': 1, 'createdAtEpochMs': -1, '_id': -1}")
+})
 public class FinalizedRuleDoc {
     @Id
     public String id; // usually generated UUID or same as sessionId
 
     public String sessionId;
     public String finalRuleJson;
+    public byte[] binaryRule; // BinaryRuleCodec form of finalRuleJson; null for rules published before it existed
     public String validationReportJson;
+    public List<String> attributes; // lower-cased attribute names the rule references; null for rules published before it existed
     public long createdAtEpochMs;
 
     public FinalizedRuleDoc() {}
@@ -1,4 +1,10 @@
 package com.eligibility.engine.repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface FinalizedRuleRepository extends MongoRepository<FinalizedRuleDoc, String> {}
\ No newline at end of file
+import java.util.List;
+
+public interface FinalizedRuleRepository extends MongoRepository<FinalizedRuleDoc, String>, FinalizedRuleRepositoryCustom {
+
+    /** Rules published at or after {@code sinceEpochMs}, oldest first; used by the registry poll. */
+    List<FinalizedRuleDoc> findByCreatedAtEpochMsGreaterThanEqualOrderByCreatedAtEpochMsAsc(long sinceEpochMs);
+}
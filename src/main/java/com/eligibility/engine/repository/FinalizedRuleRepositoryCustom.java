@@ -0,0 +1,9 @@
+package com.eligibility.engine.repository;
+
+import java.util.List;
+
+/** Keyset-paged catalog reads, served from the compound indexes on {@link FinalizedRuleDoc}. */
+public interface FinalizedRuleRepositoryCustom {
+
+    List<FinalizedRuleDoc> findPage(RuleQuery query);
+}
@@ -0,0 +1,39 @@
+package com.eligibility.engine.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FinalizedRuleRepositoryCustomImpl implements FinalizedRuleRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public FinalizedRuleRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findPage(RuleQuery q) {
+        List<Criteria> filters = new ArrayList<>();
+        if (q.sessionId() != null) filters.add(Criteria.where("sessionId").is(q.sessionId()));
+        if (q.attribute() != null) filters.add(Criteria.where("attributes").is(q.attribute()));
+        if (q.fromEpochMs() != null) filters.add(Criteria.where("createdAtEpochMs").gte(q.fromEpochMs()));
+        if (q.toEpochMs() != null) filters.add(Criteria.where("createdAtEpochMs").lt(q.toEpochMs()));
+        if (q.hasCursor()) {
+            // Strictly after the cursor in (createdAtEpochMs, _id) descending order.
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("createdAtEpochMs").lt(q.afterCreatedAt()),
+                    Criteria.where("createdAtEpochMs").is(q.afterCreatedAt()).and("_id").lt(q.afterId())));
+        }
+        Query query = filters.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(filters));
+        query.with(Sort.by(Sort.Direction.DESC, "createdAtEpochMs", "_id")).limit(q.limit());
+        if (!q.includeBodies()) {
+            query.fields().exclude("finalRuleJson").exclude("binaryRule").exclude("validationReportJson");
+        }
+        return mongoTemplate.find(query, FinalizedRuleDoc.class);
+    }
+}
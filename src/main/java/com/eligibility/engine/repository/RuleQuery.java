@@ -0,0 +1,15 @@
+package com.eligibility.engine.repository;
+
+/**
+ * One page of the rule catalog, newest first ({@code createdAtEpochMs}, then {@code id}, both descending).
+ * Every filter is optional: {@code [fromEpochMs, toEpochMs)}, {@code sessionId}, and {@code attribute} (lower case,
+ * matched against {@link FinalizedRuleDoc#attributes}). {@code afterCreatedAt} / {@code afterId} is the last rule
+ * of the previous page. Without {@code includeBodies} the rule JSON, binary form and report are left out.
+ */
+public record RuleQuery(Long fromEpochMs, Long toEpochMs, String sessionId, String attribute,
+                        Long afterCreatedAt, String afterId, int limit, boolean includeBodies) {
+
+    public boolean hasCursor() {
+        return afterCreatedAt != null && afterId != null;
+    }
+}
@@ -0,0 +1,162 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.CompiledRule;
+import com.eligibility.engine.evaluation.RuleDependencyIndex;
+import com.eligibility.engine.evaluation.UserFacts;
+import com.eligibility.engine.membership.ListReplacedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a materialized eligible-user set per published rule, updated from attribute change events.
+ * A change only re-evaluates the rules that reference a changed attribute or list
+ * (via {@link RuleDependencyIndex}), so answering "is user X eligible for rule R" is a set lookup.
+ * <p>
+ * Updates for one user run inside that user's {@code profiles.compute}, so concurrent events
+ * for the same user are applied in order and never leave a stale decision behind.
+ * <p>
+ * A list replaced in the list store ({@link ListReplacedEvent}) re-evaluates every known user for the rules that
+ * read it. Published rules are never changed (each finalize stores a new id); a rule's set is created when the
+ * registry registers the rule and dropped when the registry retires it ({@link RulesRetiredEvent}).
+ */
+@Service
+public class EligibilityMaterializationService {
+
+    private final RuleEvaluationService evaluationService;
+
+    private final RuleDependencyIndex dependencies = new RuleDependencyIndex();
+    private final Map<String, CompiledRule> rules = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> eligibleSets = new ConcurrentHashMap<>();
+    private final Map<Long, StoredProfile> profiles = new ConcurrentHashMap<>();
+
+    public EligibilityMaterializationService(RuleEvaluationService evaluationService) {
+        this.evaluationService = evaluationService;
+    }
+
+    record StoredProfile(Map<String, Object> attributes, Set<String> lists) {}
+
+    public record ChangeResult(long userId, int rulesEvaluated, List<String> gained, List<String> lost) {}
+
+    @EventListener
+    public void onRulesRegistered(RulesRegisteredEvent event) {
+        for (CompiledRule rule : event.added()) {
+            register(rule);
+        }
+    }
+
+    @EventListener
+    public void onRulesRetired(RulesRetiredEvent event) {
+        for (String ruleId : event.retired()) {
+            CompiledRule rule = rules.remove(ruleId);
+            if (rule == null) continue;
+            dependencies.remove(rule);
+            eligibleSets.remove(ruleId);
+        }
+    }
+
+    void register(CompiledRule rule) {
+        String ruleId = rule.ruleId();
+        if (rules.containsKey(ruleId)) return;
+
+        eligibleSets.put(ruleId, ConcurrentHashMap.newKeySet());
+        rules.put(ruleId, rule);
+        dependencies.add(rule);
+
+        for (Long userId : profiles.keySet()) {
+            profiles.computeIfPresent(userId, (id, profile) -> {
+                apply(rule, id, profile, null, null);
+                return profile;
+            });
+        }
+    }
+
+    /**
+     * Applies one user's attribute / list-membership changes and re-evaluates the affected rules.
+     * A {@code null} attribute value removes the attribute; list entries map list name to "is member".
+     */
+    public ChangeResult applyChange(long userId, Map<String, Object> changedAttributes, Map<String, Boolean> changedLists) {
+        // Normalized once here, so the stored profile, the dependency lookup and evaluation all use the same names.
+        Map<String, Object> attrChanges = changedAttributes == null ? Map.of() : UserFacts.normalizedNames(changedAttributes);
+        Map<String, Boolean> listChanges = changedLists == null ? Map.of() : UserFacts.normalizedNames(changedLists);
+
+        List<String> gained = new ArrayList<>();
+        List<String> lost = new ArrayList<>();
+        int[] evaluated = new int[1];
+
+        profiles.compute(userId, (id, old) -> {
+            Map<String, Object> attrs = old == null ? new HashMap<>() : new HashMap<>(old.attributes());
+            Set<String> lists = old == null ? new HashSet<>() : new HashSet<>(old.lists());
+            attrChanges.forEach((k, v) -> {
+                if (v == null) attrs.remove(k);
+                else attrs.put(k, v);
+            });
+            listChanges.forEach((k, member) -> {
+                if (Boolean.TRUE.equals(member)) lists.add(k);
+                else lists.remove(k);
+            });
+            StoredProfile updated = new StoredProfile(Collections.unmodifiableMap(attrs), Collections.unmodifiableSet(lists));
+
+            // A user seen for the first time may match rules regardless of what changed (e.g. NOT IN blocked_users).
+            Collection<String> affected = old == null
+                    ? rules.keySet()
+                    : dependencies.affectedRules(attrChanges.keySet(), listChanges.keySet());
+            for (String ruleId : affected) {
+                CompiledRule rule = rules.get(ruleId);
+                if (rule == null) continue;
+                evaluated[0]++;
+                apply(rule, id, updated, gained, lost);
+            }
+            return updated;
+        });
+
+        return new ChangeResult(userId, evaluated[0], gained, lost);
+    }
+
+    @EventListener
+    public void onListReplaced(ListReplacedEvent event) {
+        recomputeList(event.listName());
+    }
+
+    /** Re-evaluates every known user for the rules referencing a list, e.g. after the list store refreshed it. */
+    public void recomputeList(String listName) {
+        Set<String> affected = dependencies.affectedRules(List.of(), List.of(listName.toLowerCase(Locale.ROOT)));
+        for (Long userId : profiles.keySet()) {
+            profiles.computeIfPresent(userId, (id, profile) -> {
+                for (String ruleId : affected) {
+                    CompiledRule rule = rules.get(ruleId);
+                    if (rule != null) apply(rule, id, profile, null, null);
+                }
+                return profile;
+            });
+        }
+    }
+
+    public boolean isEligible(String ruleId, long userId) {
+        Set<Long> users = eligibleSets.get(ruleId);
+        if (users == null) {
+            throw new IllegalArgumentException("Rule '" + ruleId + "' is not materialized.");
+        }
+        return users.contains(userId);
+    }
+
+    public Set<Long> eligibleUsers(String ruleId) {
+        Set<Long> users = eligibleSets.get(ruleId);
+        if (users == null) {
+            throw new IllegalArgumentException("Rule '" + ruleId + "' is not materialized.");
+        }
+        return Collections.unmodifiableSet(users);
+    }
+
+    private void apply(CompiledRule rule, long userId, StoredProfile profile, List<String> gained, List<String> lost) {
+        UserFacts facts = evaluationService.factsFor(profile.attributes(), profile.lists(), userId);
+        Set<Long> users = eligibleSets.get(rule.ruleId());
+        if (rule.test(facts)) {
+            if (users.add(userId) && gained != null) gained.add(rule.ruleId());
+        } else {
+            if (users.remove(userId) && lost != null) lost.add(rule.ruleId());
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.eligibility.engine.service;
 
 import com.eligibility.engine.model.AttributeDef;
 import com.eligibility.engine.repository.CachedMetadata;
-import com.eligibility.engine.repository.MetadataRepository;
+import com.eligibility.engine.storage.MetadataStore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
@@ -13,13 +13,13 @@ import java.util.*;
 @Service
 public class MetadataWarmupService {
 
-    private final MetadataRepository repo;
+    private final MetadataStore repo;
     private final MockExternalDiscoveryService api;
     private final SchemaServiceImpl schemaService;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public MetadataWarmupService(MetadataRepository repo,
+    public MetadataWarmupService(MetadataStore repo,
                                  MockExternalDiscoveryService api,
                                  SchemaServiceImpl schemaService) {
         this.repo = repo;
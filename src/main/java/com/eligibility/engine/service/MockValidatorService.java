@@ -30,17 +30,24 @@ public class MockValidatorService {
     }
 
 
-    private void validateNode(RuleNode node, ValidationReport report, boolean insideNot) {
-        if (node instanceof LogicalRule) {
-            LogicalRule lr = (LogicalRule) node;
-            boolean isNot = "NOT".equalsIgnoreCase(lr.getOperator());
-
-            for (RuleNode child : lr.getRules()) {
-
-                validateNode(child, report, insideNot ^ isNot);
+    private void validateNode(RuleNode root, ValidationReport report, boolean insideNot) {
+        // negated.get(d): whether a node at depth d sits under an odd number of NOTs.
+        List<Boolean> negated = new ArrayList<>();
+        negated.add(insideNot);
+        RuleTraversal.walk(root, new RuleTraversal.Visitor() {
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                negated.subList(depth + 1, negated.size()).clear();
+                boolean isNot = node instanceof LogicalRule lr && "NOT".equalsIgnoreCase(lr.getOperator());
+                negated.add(negated.get(depth) ^ isNot);
+                checkNode(node, report, negated.get(depth));
+                return RuleTraversal.Step.CONTINUE;
             }
-        }
-        else if (node instanceof AttributeRule) {
+        });
+    }
+
+    private void checkNode(RuleNode node, ValidationReport report, boolean insideNot) {
+        if (node instanceof AttributeRule) {
             AttributeRule ar = (AttributeRule) node;
 
 
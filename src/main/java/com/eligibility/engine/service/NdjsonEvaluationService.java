@@ -0,0 +1,184 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.CompiledRule;
+import com.eligibility.engine.evaluation.UserProfile;
+import com.eligibility.engine.membership.ListMembershipStore;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk evaluation over NDJSON. Each input line has the {@code POST /api/evaluate} shape
+ * ({@code {"userId": 1, "attributes": {...}, "lists": [...]}}); each output line is
+ * {@code {"userId": 1, "eligible": true}}, plus {@code "error"} when that one record could not be evaluated.
+ * <p>
+ * Records are pulled token by token into one reused {@link UserProfile} laid out like the rule; attributes and
+ * lists the rule does not read are skipped undecoded. Each record runs the compiled rule directly: a scan has no repeats to gain from the
+ * decision cache and would only push online entries out of it. Output goes through the generator's fixed-size buffer and is flushed every
+ * {@value #FLUSH_EVERY} records, so memory stays flat however long the stream is.
+ */
+@Service
+public class NdjsonEvaluationService {
+
+    static final int FLUSH_EVERY = 4096;
+
+    // The caller owns both streams.
+    private final JsonFactory factory = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final RuleEvaluationService evaluationService;
+    private final ListMembershipStore listStore;
+
+    public NdjsonEvaluationService(RuleEvaluationService evaluationService, ListMembershipStore listStore) {
+        this.evaluationService = evaluationService;
+        this.listStore = listStore;
+    }
+
+    public record StreamResult(long records, long eligible, long errors) {}
+
+    /** Evaluates every record on {@code in} against a published rule; neither stream is closed. */
+    public StreamResult evaluate(String ruleId, InputStream in, OutputStream out) throws IOException {
+        CompiledRule rule = evaluationService.published(ruleId);
+        UserProfile facts = UserProfile.forRule(rule, listStore);
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (String a : rule.attributes()) {
+            int ordinal = facts.layout().ordinal(a);
+            if (ordinal >= 0) ordinals.put(a, ordinal);
+        }
+        long records = 0, eligible = 0, errors = 0;
+
+        try (JsonParser parser = factory.createParser(in);
+             JsonGenerator gen = factory.createGenerator(out)) {
+            gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected one JSON object per line at record " + (records + 1) + ".");
+                }
+                String idText = readRecord(parser, facts, ordinals, rule.lists());
+                String error = null;
+                boolean ok = false;
+                try {
+                    ok = rule.test(facts);
+                } catch (RuntimeException e) {
+                    error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                    errors++;
+                }
+                if (ok) eligible++;
+                records++;
+
+                gen.writeStartObject();
+                if (facts.userId() != null) gen.writeNumberField("userId", facts.userId());
+                else if (idText != null) gen.writeStringField("userId", idText);
+                else gen.writeNullField("userId");
+                gen.writeBooleanField("eligible", ok);
+                if (error != null) gen.writeStringField("error", error);
+                gen.writeEndObject();
+
+                if (records % FLUSH_EVERY == 0) gen.flush();
+            }
+            gen.flush();
+        }
+        System.out.println("--- [STREAM] Rule " + ruleId + ": " + records + " records, " + eligible + " eligible, " + errors + " errors ---");
+        return new StreamResult(records, eligible, errors);
+    }
+
+    /** A single {@code {"error": ...}} line, for failures before the first record. */
+    public void writeError(OutputStream out, String message) throws IOException {
+        try (JsonGenerator gen = factory.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("error", message);
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+    }
+
+    /** File mode: same format, {@code input} to {@code output}. */
+    public StreamResult evaluateFile(String ruleId, Path input, Path output) throws IOException {
+        try (InputStream in = Files.newInputStream(input);
+             OutputStream out = Files.newOutputStream(output)) {
+            return evaluate(ruleId, in, out);
+        }
+    }
+
+    /** Reads one record object into {@code facts}; returns the user id when it was not numeric. */
+    private static String readRecord(JsonParser parser, UserProfile facts, Map<String, Integer> ordinals,
+                                     Set<String> lists) throws IOException {
+        String idText = null;
+        facts.reset();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "userId":
+                    if (value == JsonToken.VALUE_NUMBER_INT) facts.setUserId(parser.getLongValue());
+                    else if (value != JsonToken.VALUE_NULL) idText = parser.getText();
+                    break;
+                case "attributes":
+                    readAttributes(parser, facts, ordinals, value);
+                    break;
+                case "lists":
+                    readLists(parser, facts, lists, value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return idText;
+    }
+
+    private static void readLists(JsonParser parser, UserProfile facts, Set<String> lists, JsonToken start) throws IOException {
+        if (start != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken t;
+        while ((t = parser.nextToken()) != JsonToken.END_ARRAY && t != null) {
+            if (t != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            String list = parser.getText().toLowerCase(Locale.ROOT);
+            if (lists.contains(list)) facts.addList(list);
+        }
+    }
+
+    private static void readAttributes(JsonParser parser, UserProfile facts, Map<String, Integer> ordinals,
+                                       JsonToken start) throws IOException {
+        if (start != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer slot = ordinals.get(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (slot == null) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (value) {
+                case VALUE_NUMBER_INT: facts.setLong(slot, parser.getLongValue()); break;
+                case VALUE_NUMBER_FLOAT: facts.setDouble(slot, parser.getDoubleValue()); break;
+                case VALUE_STRING: facts.setString(slot, parser.getText()); break;
+                case VALUE_TRUE: facts.setBoolean(slot, true); break;
+                case VALUE_FALSE: facts.setBoolean(slot, false); break;
+                default: parser.skipChildren();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.eligibility.engine.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * File mode for {@link NdjsonEvaluationService}:
+ * {@code --evaluate.rule=<ruleId> --evaluate.in=users.ndjson [--evaluate.out=results.ndjson]}.
+ * Without {@code --evaluate.rule} the application starts normally and this does nothing.
+ */
+@Component
+public class NdjsonFileRunner implements ApplicationRunner {
+
+    private final NdjsonEvaluationService ndjsonService;
+
+    public NdjsonFileRunner(NdjsonEvaluationService ndjsonService) {
+        this.ndjsonService = ndjsonService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String ruleId = option(args, "evaluate.rule");
+        if (ruleId == null) return;
+
+        String in = option(args, "evaluate.in");
+        if (in == null) {
+            throw new IllegalArgumentException("--evaluate.in is required with --evaluate.rule.");
+        }
+        String out = option(args, "evaluate.out");
+        Path input = Path.of(in);
+        Path output = out != null ? Path.of(out) : Path.of(in + ".results.ndjson");
+
+        System.out.println("--- [STREAM] Evaluating " + input + " against rule " + ruleId + " -> " + output + " ---");
+        ndjsonService.evaluateFile(ruleId, input, output);
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
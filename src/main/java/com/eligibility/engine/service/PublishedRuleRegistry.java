@@ -0,0 +1,165 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.BinaryRuleCodec;
+import com.eligibility.engine.evaluation.CompiledPredicate;
+import com.eligibility.engine.evaluation.CompiledRule;
+import com.eligibility.engine.evaluation.PredicateInterner;
+import com.eligibility.engine.evaluation.RuleCompiler;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.util.RuleJsonImporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * All published rules, compiled, as one immutable versioned {@link Snapshot}.
+ * Writers build a new map and swap it in (the same copy-on-write as {@code SchemaServiceImpl.applySnapshot}),
+ * so readers only do a volatile read and never lock or see a half-built snapshot.
+ * <p>
+ * New publishes arrive through {@link RulePublishedEvent} in this instance and through a poll on
+ * {@code createdAtEpochMs} for rules published by other instances. The poll re-reads a short overlap
+ * window behind the newest timestamp seen, since documents from different clocks can land slightly out of order.
+ * <p>
+ * This is the only place published rules are compiled, and evaluation only reads the current snapshot, so no
+ * request ever waits on the rule store or sees a rule the snapshot does not hold.
+ * <p>
+ * {@link #retire} takes rules out of the snapshot and trims the interner to the rules left, so subtrees only the
+ * retired rules used are released. Retirement is kept in memory: this instance never registers a retired id
+ * again, but it is not written to the rule store.
+ */
+@Service
+public class PublishedRuleRegistry {
+
+    public record Snapshot(long version, long watermarkEpochMs, Map<String, CompiledRule> rules) {
+        static final Snapshot EMPTY = new Snapshot(0, 0, Map.of());
+    }
+
+    private final UserSchemaService schemaService;
+    // Published rules share subtrees through the interner; ad-hoc rules do not, so requests cannot grow it.
+    private final PredicateInterner interner = new PredicateInterner();
+    private final RuleCompiler compiler;
+    private final RuleStore finalRuleRepo;
+    private final ApplicationEventPublisher events;
+    private final long overlapMs;
+    private final Set<String> retired = new HashSet<>();   // guarded by "this"
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public PublishedRuleRegistry(UserSchemaService schemaService,
+                                 RuleStore finalRuleRepo,
+                                 ApplicationEventPublisher events,
+                                 @Value("${eligibility.registry.poll-overlap-ms:2000}") long overlapMs) {
+        this.schemaService = schemaService;
+        this.compiler = new RuleCompiler(schemaService, interner);
+        this.finalRuleRepo = finalRuleRepo;
+        this.events = events;
+        this.overlapMs = overlapMs;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /** The compiled published rule, or {@code null} if it is not (yet) registered. */
+    public CompiledRule get(String ruleId) {
+        return snapshot.rules().get(ruleId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPublishedRules() {
+        register(finalRuleRepo.findAll());
+        System.out.println("--- [REGISTRY] Loaded " + snapshot.rules().size() + " published rules (v" + snapshot.version() + "). ---");
+    }
+
+    @Scheduled(fixedDelayString = "${eligibility.registry.poll-ms:5000}")
+    public void poll() {
+        long since = Math.max(0, snapshot.watermarkEpochMs() - overlapMs);
+        register(finalRuleRepo.findPublishedSince(since));
+    }
+
+    @EventListener
+    public void onRulePublished(RulePublishedEvent event) {
+        register(List.of(event.rule()));
+    }
+
+    /** Adds the documents not yet registered; returns the number added. */
+    int register(Collection<FinalizedRuleDoc> docs) {
+        Snapshot swapped;
+        List<CompiledRule> added = new ArrayList<>();
+        synchronized (this) {
+            Snapshot current = snapshot;
+            long watermark = current.watermarkEpochMs();
+            Map<String, CompiledRule> next = null;
+            for (FinalizedRuleDoc doc : docs) {
+                watermark = Math.max(watermark, doc.createdAtEpochMs);
+                if (doc.id == null || retired.contains(doc.id) || current.rules().containsKey(doc.id)
+                        || (next != null && next.containsKey(doc.id))) continue;
+                try {
+                    CompiledRule rule = compile(doc);
+                    if (next == null) next = new HashMap<>(current.rules());
+                    next.put(doc.id, rule);
+                    added.add(rule);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("--- [REGISTRY] Skipping rule " + doc.id + ": " + e.getMessage() + " ---");
+                }
+            }
+            if (next == null) {
+                if (watermark != current.watermarkEpochMs()) {
+                    snapshot = new Snapshot(current.version(), watermark, current.rules());
+                }
+                return 0;
+            }
+            swapped = new Snapshot(current.version() + 1, watermark, Collections.unmodifiableMap(next));
+            snapshot = swapped;
+        }
+        // Listeners run outside the lock so a slow one never holds up the next publish.
+        events.publishEvent(new RulesRegisteredEvent(List.copyOf(added), swapped.version()));
+        return added.size();
+    }
+
+    /** Removes the given rules from the snapshot; returns the number removed. */
+    public int retire(Collection<String> ruleIds) {
+        Snapshot swapped;
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            Snapshot current = snapshot;
+            Map<String, CompiledRule> next = new HashMap<>(current.rules());
+            for (String id : ruleIds) {
+                retired.add(id);
+                if (next.remove(id) != null) removed.add(id);
+            }
+            if (removed.isEmpty()) return 0;
+            swapped = new Snapshot(current.version() + 1, current.watermarkEpochMs(), Collections.unmodifiableMap(next));
+            snapshot = swapped;
+            List<CompiledPredicate> live = new ArrayList<>(next.size());
+            for (CompiledRule rule : next.values()) live.add(rule.root());
+            interner.retainOnly(live);
+        }
+        events.publishEvent(new RulesRetiredEvent(List.copyOf(removed), swapped.version()));
+        return removed.size();
+    }
+
+    /** Distinct subtrees shared by the registered rules. */
+    int internedSubtrees() {
+        return interner.size();
+    }
+
+    // The binary form skips JSON parsing and schema lookups; the JSON stays the source of truth.
+    private CompiledRule compile(FinalizedRuleDoc doc) {
+        if (doc.binaryRule != null) {
+            try {
+                CompiledRule decoded = BinaryRuleCodec.decode(doc.id, doc.binaryRule, schemaService.layout());
+                return new CompiledRule(doc.id, interner.intern(decoded.root()), decoded.attributes(), decoded.lists(), decoded.layout());
+            } catch (RuntimeException e) {
+                System.out.println("--- [REGISTRY] Binary form of rule " + doc.id + " unreadable, using JSON: " + e.getMessage() + " ---");
+            }
+        }
+        return compiler.compile(doc.id, RuleJsonImporter.importRule(doc.finalRuleJson));
+    }
+}
@@ -1,32 +1,67 @@
 package com.eligibility.engine.service;
 
 import com.eligibility.engine.model.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Turns one chat turn into a draft {@link RuleNode}, or errors / a clarifying question.
+ * Results are cached ({@code eligibility.agent.parse-cache.max-entries}, 0 disables it) by the input's token stream,
+ * so whitespace and keyword case do not matter, plus the schema snapshot version; callers always get a copy.
+ */
 @Service
 public class RuleAgentService {
 
     private final UserSchemaService schemaService;
     private final ListCatalogService listCatalogService;
+    private final Map<String, AgentTurnResult> parseCache;
+    private long parseCacheVersion = -1; // guarded by parseCache
 
-    public RuleAgentService(UserSchemaService schemaService, ListCatalogService listCatalogService) {
+    public RuleAgentService(UserSchemaService schemaService, ListCatalogService listCatalogService,
+                            @Value("${eligibility.agent.parse-cache.max-entries:10000}") int parseCacheSize) {
         this.schemaService = schemaService;
         this.listCatalogService = listCatalogService;
+        this.parseCache = parseCacheSize <= 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AgentTurnResult> eldest) {
+                return size() > parseCacheSize;
+            }
+        };
     }
 
     public AgentTurnResult parseToDraft(String naturalLanguage) {
-        AgentTurnResult result = new AgentTurnResult();
-
         if (naturalLanguage == null || naturalLanguage.trim().isEmpty()) {
+            AgentTurnResult result = new AgentTurnResult();
             result.setBotReply("I'm listening. Please describe eligibility criteria (e.g., 'income > 50000').");
             return result;
         }
 
+        TokenBuffer tokens = TokenBuffer.acquire();
+        try {
+            Tokenizer.tokenize(naturalLanguage.trim(), tokens);
+            if (parseCache == null) {
+                return parse(tokens);
+            }
+            long version = schemaService.snapshotVersion();
+            String key = tokens.canonical();
+            AgentTurnResult cached = cached(key, version);
+            if (cached != null) {
+                return copy(cached);
+            }
+            AgentTurnResult result = parse(tokens);
+            store(key, version, copy(result));
+            return result;
+        } finally {
+            tokens.release();
+        }
+    }
+
+    private AgentTurnResult parse(TokenBuffer tokens) {
+        AgentTurnResult result = new AgentTurnResult();
         try {
-            List<Token> tokens = Tokenizer.tokenize(naturalLanguage.trim());
             RuleNode ast = new ExpressionParser(tokens, schemaService, listCatalogService, result).parseExpression();
 
             if (ast != null && result.getErrors().isEmpty() && result.getQuestions().isEmpty()) {
@@ -53,59 +88,234 @@ public class RuleAgentService {
         }
     }
 
+    // A new schema snapshot empties the cache, so entries parsed against the old one are never returned.
+    private AgentTurnResult cached(String key, long version) {
+        synchronized (parseCache) {
+            if (version != parseCacheVersion) {
+                parseCache.clear();
+                parseCacheVersion = version;
+                return null;
+            }
+            return parseCache.get(key);
+        }
+    }
+
+    private void store(String key, long version, AgentTurnResult result) {
+        synchronized (parseCache) {
+            if (version == parseCacheVersion) parseCache.put(key, result);
+        }
+    }
+
+    /** Copy with its own lists and draft tree; orchestration mutates drafts it combines. */
+    private static AgentTurnResult copy(AgentTurnResult r) {
+        AgentTurnResult c = new AgentTurnResult();
+        c.setBotReply(r.getBotReply());
+        c.setDraftRule(copy(r.getDraftRule()));
+        c.setReadyToFinalize(r.isReadyToFinalize());
+        c.setPendingAttributeCandidate(r.getPendingAttributeCandidate());
+        c.setQuestions(new ArrayList<>(r.getQuestions()));
+        c.setErrors(new ArrayList<>(r.getErrors()));
+        return c;
+    }
+
+    private static RuleNode copy(RuleNode root) {
+        return root == null ? null : RuleTraversal.fold(root, RuleAgentService::copy);
+    }
+
+    private static RuleNode copy(RuleNode node, List<RuleNode> children) {
+        if (node instanceof LogicalRule lr) {
+            return new LogicalRule(lr.getOperator(), new ArrayList<>(children));
+        }
+        if (node instanceof AttributeRule ar) {
+            AttributeRule c = new AttributeRule();
+            c.setAttribute(ar.getAttribute());
+            c.setOperator(ar.getOperator());
+            c.setValue(ar.getValue());
+            return c;
+        }
+        if (node instanceof ListRule lr) {
+            return new ListRule(lr.getListName(), lr.isInList());
+        }
+        return node;
+    }
+
 
     enum TokenType { IDENT, NUMBER, STRING, BOOLEAN, OP, AND, OR, NOT, LPAREN, RPAREN, IN }
 
-    record Token(TokenType type, String text) {}
+    /**
+     * Tokens of one input as parallel arrays of type and source range. Text is only materialized for the tokens
+     * the parser reads it from (names, literals, error messages); keywords, operators and parentheses use constants.
+     * Buffers are pooled, since turns run on virtual threads where a thread-local would not be reused.
+     */
+    static final class TokenBuffer {
+        private static final ConcurrentLinkedQueue<TokenBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+        private String source;
+        private int size;
+        private TokenType[] types = new TokenType[32];
+        private int[] starts = new int[32];
+        private int[] ends = new int[32];
+
+        static TokenBuffer acquire() {
+            TokenBuffer buffer = POOL.poll();
+            return buffer != null ? buffer : new TokenBuffer();
+        }
+
+        void release() {
+            source = null;
+            size = 0;
+            POOL.offer(this);
+        }
+
+        void reset(String source) {
+            this.source = source;
+            this.size = 0;
+        }
+
+        void add(TokenType type, int start, int end) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            types[size] = type;
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
 
+        int size() { return size; }
+
+        TokenType type(int i) { return types[i]; }
+
+        String text(int i) {
+            switch (types[i]) {
+                case AND: return "AND";
+                case OR: return "OR";
+                case NOT: return "NOT";
+                case IN: return "IN";
+                case LPAREN: return "(";
+                case RPAREN: return ")";
+                case BOOLEAN: return (source.charAt(starts[i]) | 0x20) == 't' ? "true" : "false";
+                case OP: return operator(source.charAt(starts[i]), ends[i] - starts[i] == 2);
+                default: return source.substring(starts[i], ends[i]);
+            }
+        }
+
+        /** Cache key: type and text of every token, so inputs differing only in spacing or keyword case share it. */
+        String canonical() {
+            StringBuilder sb = new StringBuilder(source.length() + 2 * size);
+            for (int i = 0; i < size; i++) {
+                String text = text(i);
+                sb.append((char) ('A' + types[i].ordinal())).append(text.length()).append(':').append(text);
+            }
+            return sb.toString();
+        }
+
+        boolean textEqualsIgnoreCase(int i, String s) {
+            return ends[i] - starts[i] == s.length() && source.regionMatches(true, starts[i], s, 0, s.length());
+        }
+
+        private static String operator(char first, boolean withEquals) {
+            switch (first) {
+                case '>': return withEquals ? ">=" : ">";
+                case '<': return withEquals ? "<=" : "<";
+                case '!': return "!=";
+                default: return withEquals ? "==" : "=";
+            }
+        }
+    }
+
+    /** Single pass over the chars; keywords and numbers are recognized in place, without copies or regex. */
     static class Tokenizer {
-        private static final Pattern NUMBER = Pattern.compile("^-?\\d+(\\.\\d+)?$");
-        private static final Set<String> OPS = Set.of(">=", "<=", "!=", "==", ">", "<", "=");
 
-        static List<Token> tokenize(String s) {
-            List<Token> out = new ArrayList<>();
+        static void tokenize(String s, TokenBuffer out) {
+            out.reset(s);
+            int n = s.length();
             int i = 0;
-            while (i < s.length()) {
+            while (i < n) {
                 char c = s.charAt(i);
                 if (Character.isWhitespace(c)) { i++; continue; }
-                if (c == '(') { out.add(new Token(TokenType.LPAREN, "(")); i++; continue; }
-                if (c == ')') { out.add(new Token(TokenType.RPAREN, ")")); i++; continue; }
-                if (i + 1 < s.length() && OPS.contains(s.substring(i, i + 2))) { out.add(new Token(TokenType.OP, s.substring(i, i + 2))); i += 2; continue; }
-                if (OPS.contains(String.valueOf(c))) { out.add(new Token(TokenType.OP, String.valueOf(c))); i++; continue; }
+                if (c == '(') { out.add(TokenType.LPAREN, i, i + 1); i++; continue; }
+                if (c == ')') { out.add(TokenType.RPAREN, i, i + 1); i++; continue; }
+                if (i + 1 < n && s.charAt(i + 1) == '=' && (c == '>' || c == '<' || c == '!' || c == '=')) {
+                    out.add(TokenType.OP, i, i + 2); i += 2; continue;
+                }
+                if (c == '>' || c == '<' || c == '=') { out.add(TokenType.OP, i, i + 1); i++; continue; }
                 if (c == '"' || c == '\'') {
-                    char quote = c; int j = i + 1;
-                    StringBuilder sb = new StringBuilder();
-                    while (j < s.length() && s.charAt(j) != quote) sb.append(s.charAt(j++));
-                    out.add(new Token(TokenType.STRING, sb.toString())); i = j + 1; continue;
+                    int j = i + 1;
+                    while (j < n && s.charAt(j) != c) j++;
+                    out.add(TokenType.STRING, i + 1, j); i = j + 1; continue;
                 }
                 int j = i;
-                while (j < s.length()) {
-                    char cj = s.charAt(j);
-                    if (Character.isWhitespace(cj) || "()><=! ".indexOf(cj) >= 0) break;
-                    j++;
-                }
-                String word = s.substring(i, j);
-                String w = word.toLowerCase(Locale.ROOT);
-                if (w.equals("and")) out.add(new Token(TokenType.AND, "AND"));
-                else if (w.equals("or")) out.add(new Token(TokenType.OR, "OR"));
-                else if (w.equals("not")) out.add(new Token(TokenType.NOT, "NOT"));
-                else if (w.equals("in")) out.add(new Token(TokenType.IN, "IN"));
-                else if (w.equals("true") || w.equals("false")) out.add(new Token(TokenType.BOOLEAN, w));
-                else if (NUMBER.matcher(word).matches()) out.add(new Token(TokenType.NUMBER, word));
-                else out.add(new Token(TokenType.IDENT, word));
+                while (j < n && !endsWord(s.charAt(j))) j++;
+                if (j == i) j++; // a '!' not followed by '='
+                out.add(classify(s, i, j), i, j);
                 i = j;
             }
-            return out;
+        }
+
+        private static boolean endsWord(char c) {
+            return c == '(' || c == ')' || c == '>' || c == '<' || c == '=' || c == '!' || Character.isWhitespace(c);
+        }
+
+        private static TokenType classify(String s, int from, int to) {
+            switch (to - from) {
+                case 2:
+                    if (keyword(s, from, "or")) return TokenType.OR;
+                    if (keyword(s, from, "in")) return TokenType.IN;
+                    break;
+                case 3:
+                    if (keyword(s, from, "and")) return TokenType.AND;
+                    if (keyword(s, from, "not")) return TokenType.NOT;
+                    break;
+                case 4:
+                    if (keyword(s, from, "true")) return TokenType.BOOLEAN;
+                    break;
+                case 5:
+                    if (keyword(s, from, "false")) return TokenType.BOOLEAN;
+                    break;
+                default:
+                    break;
+            }
+            return isNumber(s, from, to) ? TokenType.NUMBER : TokenType.IDENT;
+        }
+
+        // ASCII-only case folding: exactly the words whose Locale.ROOT lower case is the keyword.
+        private static boolean keyword(String s, int from, String lower) {
+            for (int k = 0; k < lower.length(); k++) {
+                char c = s.charAt(from + k);
+                if (c >= 128 || (c | 0x20) != lower.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        /** {@code -?[0-9]+(\.[0-9]+)?} */
+        private static boolean isNumber(String s, int from, int to) {
+            int i = from;
+            if (i < to && s.charAt(i) == '-') i++;
+            int digits = i;
+            while (i < to && isDigit(s.charAt(i))) i++;
+            if (i == digits) return false;
+            if (i == to) return true;
+            if (s.charAt(i) != '.') return false;
+            int fraction = ++i;
+            while (i < to && isDigit(s.charAt(i))) i++;
+            return i > fraction && i == to;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
         }
     }
     static class ExpressionParser {
-        private final List<Token> tokens;
+        private final TokenBuffer tokens;
         private int pos = 0;
         private final UserSchemaService schema;
         private final ListCatalogService lists;
         private final AgentTurnResult out;
 
-        ExpressionParser(List<Token> tokens, UserSchemaService schema, ListCatalogService lists, AgentTurnResult out) {
+        ExpressionParser(TokenBuffer tokens, UserSchemaService schema, ListCatalogService lists, AgentTurnResult out) {
             this.tokens = tokens;
             this.schema = schema;
             this.lists = lists;
@@ -114,52 +324,94 @@ public class RuleAgentService {
 
         RuleNode parseExpression() {
             RuleNode expr = parseOr();
-            if (pos < tokens.size()) out.getErrors().add("Unexpected token: " + tokens.get(pos).text());
+            if (pos < tokens.size()) out.getErrors().add("Unexpected token: " + tokens.text(pos));
             return expr;
         }
 
-        private RuleNode parseOr() {
-            RuleNode left = parseAnd();
-            while (match(TokenType.OR)) {
-                RuleNode right = parseAnd();
-                left = logical("OR", left, right);
-            }
-            return left;
-        }
+        private enum Level { OR, AND, NOT }
 
-        private RuleNode parseAnd() {
-            RuleNode left = parseNot();
-            while (match(TokenType.AND)) {
-                RuleNode right = parseNot();
-                left = logical("AND", left, right);
+        /** One pending grammar rule: an OR / AND chain, or a NOT-level operand that is a NOT or a group. */
+        private static final class Frame {
+            final Level level;
+            RuleNode left;
+            LogicalRule chain;   // the n-ary node once a second operand arrives
+            boolean started;
+            boolean negate;
+            boolean group;
+
+            Frame(Level level) {
+                this.level = level;
             }
-            return left;
         }
 
-        private RuleNode parseNot() {
-            if (match(TokenType.NOT)) {
-                RuleNode inner = parseNot();
-                if (inner == null) return null;
+        /**
+         * or  := and (OR and)*
+         * and := not (AND not)*
+         * not := NOT not | '(' or ')' | condition
+         * Run on an explicit frame stack so deeply nested parentheses and NOTs cannot overflow the thread
+         * stack; an operator chain becomes one n-ary node rather than one nesting level per operator.
+         */
+        private RuleNode parseOr() {
+            Deque<Frame> frames = new ArrayDeque<>();
+            frames.push(new Frame(Level.OR));
+            RuleNode value = null;
+            boolean descending = true;
+            while (true) {
+                Frame f = frames.peek();
+                if (descending) {
+                    if (f.level == Level.OR) {
+                        frames.push(new Frame(Level.AND));
+                    } else if (f.level == Level.AND) {
+                        frames.push(new Frame(Level.NOT));
+                    } else if (match(TokenType.NOT)) {
+                        f.negate = true;
+                        frames.push(new Frame(Level.NOT));
+                    } else if (match(TokenType.LPAREN)) {
+                        f.group = true;
+                        frames.push(new Frame(Level.OR));
+                    } else {
+                        value = parseCondition();
+                        frames.pop();
+                        descending = false;
+                    }
+                    continue;
+                }
 
-                LogicalRule notRule = new LogicalRule();
-                notRule.setOperator("NOT");
-                notRule.addRule(inner);
-                return notRule;
+                // `value` is the result of the frame just popped, handed to its parent f.
+                if (f.level == Level.NOT) {
+                    if (f.negate) {
+                        value = value == null ? null : new LogicalRule("NOT", new ArrayList<>(List.of(value)));
+                    } else {
+                        expect(TokenType.RPAREN, "Missing closing ')'");
+                    }
+                } else {
+                    String op = f.level == Level.AND ? "AND" : "OR";
+                    if (!f.started) {
+                        f.left = value;
+                        f.started = true;
+                    } else if (f.chain == null) {
+                        f.chain = logical(op, f.left, value);
+                        f.left = f.chain;
+                    } else {
+                        f.chain.addRule(value);
+                    }
+                    if (match(f.level == Level.AND ? TokenType.AND : TokenType.OR)) {
+                        frames.push(new Frame(f.level == Level.AND ? Level.NOT : Level.AND));
+                        descending = true;
+                        continue;
+                    }
+                    value = f.left;
+                }
+                frames.pop();
+                if (frames.isEmpty()) return value;
             }
-            return parsePrimary();
         }
 
-        private RuleNode parsePrimary() {
-            if (match(TokenType.LPAREN)) {
-                RuleNode inside = parseOr();
-                expect(TokenType.RPAREN, "Missing closing ')'");
-                return inside;
-            }
-
+        private RuleNode parseCondition() {
             if (peek(TokenType.IDENT)
-                    && tokens.get(pos).text().equalsIgnoreCase("users")
+                    && tokens.textEqualsIgnoreCase(pos, "users")
                     && pos + 1 < tokens.size()
-                    && tokens.get(pos + 1).type() == TokenType.IN) {
+                    && tokens.type(pos + 1) == TokenType.IN) {
                 consume();
             }
 
@@ -176,12 +428,12 @@ public class RuleAgentService {
         }
 
         private RuleNode parseListPredicate() {
-            Token listTok = consume();
-            if (listTok == null || listTok.type() != TokenType.IDENT) {
+            int listTok = consume();
+            if (listTok < 0 || tokens.type(listTok) != TokenType.IDENT) {
                 out.getErrors().add("Expected list name after 'in'. Example: in premium_users");
                 return null;
             }
-            String listName = normalizeListName(listTok.text());
+            String listName = normalizeListName(tokens.text(listTok));
 
             if (!lists.listExists(listName)) {
                 out.getErrors().add("Unknown list '" + listName + "'. Known lists: " + lists.allLists());
@@ -199,8 +451,8 @@ public class RuleAgentService {
         }
 
         private RuleNode parseAttributePredicate() {
-            Token attrTok = consume();
-            String rawAttr = attrTok.text();
+            int attrTok = consume();
+            String rawAttr = tokens.text(attrTok);
             AttributeDef def = schema.getAttribute(rawAttr);
 
             if (def == null) {
@@ -210,9 +462,9 @@ public class RuleAgentService {
                 return null;
             }
 
-            Token opTok = peek();
+            boolean hasOp = peek(TokenType.OP);
 
-            if ((opTok == null || opTok.type() != TokenType.OP)
+            if (!hasOp
                     && "Boolean".equalsIgnoreCase(def.type())) {
                 AttributeRule rule = new AttributeRule();
                 rule.setAttribute(def.name());
@@ -221,7 +473,7 @@ public class RuleAgentService {
                 return rule;
             }
 
-            if (opTok == null || opTok.type() != TokenType.OP) {
+            if (!hasOp) {
                 out.getQuestions().add("How should I check '" + rawAttr + "'? (e.g., " + rawAttr + " > 50000)");
 
                 out.setPendingAttributeCandidate(rawAttr);
@@ -229,11 +481,10 @@ public class RuleAgentService {
                 return null;
             }
 
-            consume();
-            String op = normalizeOperator(opTok.text());
+            String op = normalizeOperator(tokens.text(consume()));
 
-            Token lit = consume();
-            if (lit == null) {
+            int lit = consume();
+            if (lit < 0) {
                 out.getQuestions().add("What value should '" + rawAttr + " " + op + "' compare against?");
                 return null;
             }
@@ -264,21 +515,20 @@ public class RuleAgentService {
                 default -> true;
             };
         }
-        private static Object parseLiteral(Token t) {
-            return switch (t.type()) {
-                case NUMBER -> t.text().contains(".") ? Double.parseDouble(t.text()) : Integer.parseInt(t.text());
-                case STRING -> t.text();
-                case BOOLEAN -> Boolean.parseBoolean(t.text());
-                default -> t.text();
+        private Object parseLiteral(int t) {
+            String text = tokens.text(t);
+            return switch (tokens.type(t)) {
+                case NUMBER -> text.contains(".") ? Double.parseDouble(text) : Integer.parseInt(text);
+                case BOOLEAN -> Boolean.parseBoolean(text);
+                default -> text;
             };
         }
         private static String normalizeOperator(String op) { return op.equals("=") ? "==" : op; }
         private static String normalizeListName(String s) { return s.trim().toLowerCase().replace(" ", "_"); }
         private void expect(TokenType t, String m) { if (!match(t)) out.getErrors().add(m); }
-        private boolean match(TokenType t) { if (pos < tokens.size() && tokens.get(pos).type() == t) { pos++; return true; } return false; }
-        private boolean peek(TokenType t) { return pos < tokens.size() && tokens.get(pos).type() == t; }
-        private Token consume() { return pos < tokens.size() ? tokens.get(pos++) : null; }
-        private Token peek() { return pos < tokens.size() ? tokens.get(pos) : null; }
-        private RuleNode logical(String op, RuleNode l, RuleNode r) { LogicalRule lr = new LogicalRule(); lr.setOperator(op); lr.addRule(l); lr.addRule(r); return lr; }
+        private boolean match(TokenType t) { if (pos < tokens.size() && tokens.type(pos) == t) { pos++; return true; } return false; }
+        private boolean peek(TokenType t) { return pos < tokens.size() && tokens.type(pos) == t; }
+        private int consume() { return pos < tokens.size() ? pos++ : -1; }
+        private LogicalRule logical(String op, RuleNode l, RuleNode r) { LogicalRule lr = new LogicalRule(); lr.setOperator(op); lr.addRule(l); lr.addRule(r); return lr; }
     }
 }
\ No newline at end of file
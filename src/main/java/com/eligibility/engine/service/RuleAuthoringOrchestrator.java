@@ -1,38 +1,86 @@
 package com.eligibility.engine.service;
 
 import com.eligibility.engine.model.*;
-import com.eligibility.engine.repository.ConversationRepository;
 import com.eligibility.engine.repository.FinalizedRuleDoc;
-import com.eligibility.engine.repository.FinalizedRuleRepository;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.session.ConversationSessionCache;
 import com.eligibility.engine.util.RuleJsonExporter;
+import com.eligibility.engine.util.RuleNormalizer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class RuleAuthoringOrchestrator {
 
-    private final ConversationRepository conversationRepo;
+    private final ConversationSessionCache sessions;
     private final RuleAgentService ruleAgentService;
     private final MockValidatorService validatorService;
-    private final FinalizedRuleRepository finalRuleRepo;
+    private final RuleStore finalRuleRepo;
+    private final ApplicationEventPublisher events;
+    private final RuleEvaluationService evaluationService;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public RuleAuthoringOrchestrator(ConversationRepository conversationRepo,
+    public RuleAuthoringOrchestrator(ConversationSessionCache sessions,
                                      RuleAgentService ruleAgentService,
                                      MockValidatorService validatorService,
-                                     FinalizedRuleRepository finalRuleRepo
+                                     RuleStore finalRuleRepo,
+                                     ApplicationEventPublisher events,
+                                     RuleEvaluationService evaluationService
                                      ) {
-        this.conversationRepo = conversationRepo;
+        this.sessions = sessions;
         this.ruleAgentService = ruleAgentService;
         this.validatorService = validatorService;
         this.finalRuleRepo = finalRuleRepo;
+        this.events = events;
+        this.evaluationService = evaluationService;
 
     }
 
     public AgentTurnResult processUserMessage(String sessionId, String userText) {
-        ConversationState state = conversationRepo.findById(sessionId).orElse(new ConversationState());
+        return sessions.apply(sessionId, state -> applyTurn(state, sessionId, userText));
+    }
+
+    public record ChatTurn(String sessionId, String message) {}
+
+    /**
+     * Replays many turns at once: sessions not yet cached are read with one query, turns are applied in list
+     * order (so each session sees its own messages in order) and logged with one sync; the session cache
+     * writes them to Mongo in its next bulk flush. Results are in the order of {@code turns}; a turn without
+     * text is answered with an error and leaves its session untouched.
+     */
+    public List<AgentTurnResult> processBatch(List<ChatTurn> turns) {
+        List<String> sessionIds = new ArrayList<>(turns.size());
+        List<Function<ConversationState, AgentTurnResult>> work = new ArrayList<>(turns.size());
+        for (ChatTurn turn : turns) {
+            if (turn.message() == null) continue;
+            sessionIds.add(turn.sessionId());
+            work.add(state -> applyTurn(state, turn.sessionId(), turn.message()));
+        }
+        Iterator<AgentTurnResult> applied = sessions.applyAll(sessionIds, work).iterator();
+
+        List<AgentTurnResult> results = new ArrayList<>(turns.size());
+        for (ChatTurn turn : turns) {
+            if (turn.message() != null) {
+                results.add(applied.next());
+                continue;
+            }
+            AgentTurnResult empty = new AgentTurnResult();
+            empty.getErrors().add("Message is empty.");
+            empty.setBotReply("Message is empty.");
+            results.add(empty);
+        }
+        return results;
+    }
+
+    /**
+     * One chat turn against {@code state}, which is updated in place. The session cache holds only the
+     * messages not yet in Mongo, and persists what the turn adds and changes.
+     */
+    private AgentTurnResult applyTurn(ConversationState state, String sessionId, String userText) {
         state.setId(sessionId);
         state.addMessage("User", userText);
 
@@ -61,7 +109,7 @@ public class RuleAuthoringOrchestrator {
             RuleNode newRule = result.getDraftRule();
 
             if (joinOp != null && state.getCurrentDraftRule() != null) {
-                LogicalRule combined = new LogicalRule(joinOp, List.of(state.getCurrentDraftRule(), newRule));
+                LogicalRule combined = combine(joinOp, state.getCurrentDraftRule(), newRule);
                 state.setCurrentDraftRule(combined);
                 result.setDraftRule(combined);
                 result.setBotReply("Updated rule with " + joinOp + " condition.");
@@ -79,21 +127,28 @@ public class RuleAuthoringOrchestrator {
         }
 
         state.addMessage("Bot", result.getBotReply());
-        conversationRepo.save(state);
         return result;
     }
 
     public FinalizeResult finalizeRule(String sessionId) {
         if (sessionId == null || sessionId.trim().isEmpty()) {
-            return new FinalizeResult(false, "Session ID is missing.", null, null);
+            return new FinalizeResult(false, "Session ID is missing.", null, null, null);
         }
 
-        ConversationState state = conversationRepo.findById(sessionId).orElse(null);
-        if (state == null || state.getCurrentDraftRule() == null) {
-            return new FinalizeResult(false, "No active rule to finalize.", null, null);
+        RuleNode draft = sessions.apply(sessionId, ConversationState::getCurrentDraftRule);
+        if (draft == null) {
+            return new FinalizeResult(false, "No active rule to finalize.", null, null, null);
         }
 
-        MockValidatorService.ValidationReport report = validatorService.validate(state.getCurrentDraftRule());
+        RuleNormalizer.Result normalized;
+        try {
+            normalized = RuleNormalizer.normalize(draft);
+        } catch (IllegalArgumentException e) {
+            return new FinalizeResult(false, "Malformed rule: " + e.getMessage(), null, null, null);
+        }
+
+        MockValidatorService.ValidationReport report = validatorService.validate(normalized.rule());
+        addNormalizerFindings(report, normalized);
 
         String reportJson;
         try {
@@ -103,26 +158,70 @@ public class RuleAuthoringOrchestrator {
         }
 
         if (!report.valid) {
-            return new FinalizeResult(false, "Validation Failed: " + (report.errors.isEmpty() ? "" : report.errors.get(0)), null, reportJson);
+            return new FinalizeResult(false, "Validation Failed: " + (report.errors.isEmpty() ? "" : report.errors.get(0)), null, null, reportJson);
         }
 
         try {
-            String finalJson = RuleJsonExporter.export(state.getCurrentDraftRule());
+            String finalJson = RuleJsonExporter.export(normalized.rule());
 
             FinalizedRuleDoc doc = new FinalizedRuleDoc(sessionId, finalJson, reportJson);
+            doc.id = UUID.randomUUID().toString();
+            doc.binaryRule = evaluationService.encode(normalized.rule());
+            doc.attributes = attributesOf(normalized.rule());
             finalRuleRepo.save(doc);
+            events.publishEvent(new RulePublishedEvent(doc));
 
-            state.addMessage("Bot", "Finalized and saved.");
-            conversationRepo.save(state);
+            sessions.apply(sessionId, state -> {
+                state.addMessage("Bot", "Finalized and saved.");
+                return null;
+            });
 
-            return new FinalizeResult(true, "Rule Published!", finalJson, reportJson);
+            return new FinalizeResult(true, "Rule Published!", doc.id, finalJson, reportJson);
         } catch (Exception e) {
-            return new FinalizeResult(false, "Export failed: " + e.getMessage(), null, reportJson);
+            return new FinalizeResult(false, "Export failed: " + e.getMessage(), null, null, reportJson);
         }
     }
 
-    public record FinalizeResult(boolean success, String message, String finalRuleJson, String validationReportJson) {}
+    /** Appends to an existing same-operator draft instead of nesting it one level deeper every turn. */
+    private static LogicalRule combine(String joinOp, RuleNode current, RuleNode newRule) {
+        List<RuleNode> children = new ArrayList<>();
+        if (current instanceof LogicalRule lr && joinOp.equalsIgnoreCase(lr.getOperator())) {
+            children.addAll(lr.getRules());
+        } else {
+            children.add(current);
+        }
+        children.add(newRule);
+        return new LogicalRule(joinOp, children);
+    }
+
+    /** Lower-cased attribute names the rule compares, for the catalog's attribute filter. */
+    private static List<String> attributesOf(RuleNode rule) {
+        Set<String> attributes = new TreeSet<>();
+        RuleTraversal.walk(rule, new RuleTraversal.Visitor() {
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                if (node instanceof AttributeRule ar && ar.getAttribute() != null) {
+                    attributes.add(ar.getAttribute().toLowerCase(Locale.ROOT));
+                }
+                return RuleTraversal.Step.CONTINUE;
+            }
+        });
+        return List.copyOf(attributes);
+    }
+
+    /** A rule that can never match is an error; dead branches and tautologies are warnings. */
+    private static void addNormalizerFindings(MockValidatorService.ValidationReport report, RuleNormalizer.Result normalized) {
+        List<String> errors = new ArrayList<>(report.errors);
+        List<String> warnings = new ArrayList<>(report.warnings);
+        (normalized.unsatisfiable() ? errors : warnings).addAll(normalized.contradictions());
+        warnings.addAll(normalized.tautologies());
+        report.errors = errors;
+        report.warnings = warnings;
+        report.valid = report.valid && errors.isEmpty();
+    }
+
+    public record FinalizeResult(boolean success, String message, String ruleId, String finalRuleJson, String validationReportJson) {}
     public ConversationState getHistory(String sessionId) {
-        return conversationRepo.findById(sessionId).orElse(null);
+        return sessions.history(sessionId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.repository.RuleQuery;
+import com.eligibility.engine.storage.RuleStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Admin listing of published rules: newest first, filtered by time range / session / referenced attribute,
+ * paged by keyset cursor so each page costs O(page size) whatever page it is. Rule and report JSON are only
+ * read when asked for.
+ */
+@Service
+public class RuleCatalogService {
+
+    public record RuleSummary(String id, String sessionId, long createdAtEpochMs, List<String> attributes,
+                              String finalRuleJson, String validationReportJson) {}
+
+    /** {@code nextCursor} is {@code null} on the last page. */
+    public record Page(List<RuleSummary> rules, String nextCursor) {}
+
+    private final RuleStore rules;
+    private final int maxPageSize;
+
+    public RuleCatalogService(RuleStore rules,
+                              @Value("${eligibility.catalog.max-page-size:500}") int maxPageSize) {
+        this.rules = rules;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Page list(Long fromEpochMs, Long toEpochMs, String sessionId, String attribute,
+                     String cursor, int limit, boolean includeRule) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize + ".");
+        }
+        Long afterCreatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            int colon = cursor.indexOf(':');
+            try {
+                afterCreatedAt = Long.parseLong(cursor.substring(0, Math.max(colon, 0)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed cursor '" + cursor + "'.");
+            }
+            afterId = cursor.substring(colon + 1);
+        }
+        RuleQuery query = new RuleQuery(fromEpochMs, toEpochMs, blankToNull(sessionId),
+                attribute == null || attribute.isBlank() ? null : attribute.trim().toLowerCase(Locale.ROOT),
+                afterCreatedAt, afterId, limit + 1, includeRule);
+
+        // One extra row tells whether another page follows without a count.
+        List<FinalizedRuleDoc> docs = rules.findPage(query);
+        boolean more = docs.size() > limit;
+        List<RuleSummary> page = new ArrayList<>(Math.min(docs.size(), limit));
+        for (int i = 0; i < docs.size() && i < limit; i++) page.add(summary(docs.get(i), includeRule));
+        String next = null;
+        if (more) {
+            RuleSummary last = page.get(page.size() - 1);
+            next = last.createdAtEpochMs() + ":" + last.id();
+        }
+        return new Page(page, next);
+    }
+
+    public Optional<RuleSummary> get(String id, boolean includeRule) {
+        return rules.findById(id).map(doc -> summary(doc, includeRule));
+    }
+
+    private static RuleSummary summary(FinalizedRuleDoc doc, boolean includeRule) {
+        return new RuleSummary(doc.id, doc.sessionId, doc.createdAtEpochMs,
+                doc.attributes == null ? List.of() : doc.attributes,
+                includeRule ? doc.finalRuleJson : null,
+                includeRule ? doc.validationReportJson : null);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
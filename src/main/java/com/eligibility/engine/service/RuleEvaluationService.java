@@ -0,0 +1,202 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.AdaptiveRule;
+import com.eligibility.engine.evaluation.AttributeLayout;
+import com.eligibility.engine.evaluation.BinaryRuleCodec;
+import com.eligibility.engine.evaluation.ColumnarBatch;
+import com.eligibility.engine.evaluation.ColumnarEvaluator;
+import com.eligibility.engine.evaluation.CompiledRule;
+import com.eligibility.engine.evaluation.DecisionCache;
+import com.eligibility.engine.evaluation.DecisionKey;
+import com.eligibility.engine.evaluation.FactFingerprint;
+import com.eligibility.engine.evaluation.MapUserFacts;
+import com.eligibility.engine.evaluation.RuleCompiler;
+import com.eligibility.engine.evaluation.RuleTrace;
+import com.eligibility.engine.evaluation.UserFacts;
+import com.eligibility.engine.evaluation.UserProfile;
+import com.eligibility.engine.membership.ListMembershipStore;
+import com.eligibility.engine.model.RuleNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process eligibility API. Published rules are read from the current {@link PublishedRuleRegistry} snapshot,
+ * a volatile read with no store access or lock on the request path; a rule not in the snapshot is unknown.
+ * With {@code eligibility.evaluation.adaptive=true}, published rules are evaluated through an
+ * {@link AdaptiveRule} plan that is periodically reordered from observed selectivity and cost.
+ * Decisions for published rules can be cached ({@code eligibility.cache.decisions.*}; off by default, since building
+ * the key reads every fact the rule references and costs more than evaluating a rule over in-memory facts)
+ * by rule version and the values of only the facts the rule reads.
+ * {@link #explain} traces one evaluation; {@code eligibility.evaluation.trace-sample-rate=N} also logs the trace of
+ * about 1 in N published-rule evaluations (0 disables sampling).
+ */
+@Service
+public class RuleEvaluationService {
+
+    // What the decision cache keys a published rule by; version changes whenever the id maps to a new rule.
+    private record Fingerprinted(CompiledRule rule, FactFingerprint fingerprint, long version) {}
+
+    private final PublishedRuleRegistry registry;
+    private final ListMembershipStore listStore;
+    private final UserSchemaService schemaService;
+    private final RuleCompiler compiler;
+    private final boolean adaptive;
+    private final Map<String, AdaptiveRule> adaptiveRules = new ConcurrentHashMap<>();
+    private final DecisionCache decisionCache;
+    private final Map<String, Fingerprinted> fingerprints = new ConcurrentHashMap<>();
+    private final int traceSampleRate;
+
+    public RuleEvaluationService(PublishedRuleRegistry registry,
+                                 UserSchemaService schemaService,
+                                 ListMembershipStore listStore,
+                                 @Value("${eligibility.evaluation.adaptive:false}") boolean adaptive,
+                                 @Value("${eligibility.cache.decisions.max-entries:0}") int decisionCacheSize,
+                                 @Value("${eligibility.cache.decisions.ttl-ms:30000}") long decisionTtlMs,
+                                 @Value("${eligibility.evaluation.trace-sample-rate:0}") int traceSampleRate) {
+        this.registry = registry;
+        this.listStore = listStore;
+        this.schemaService = schemaService;
+        this.compiler = new RuleCompiler(schemaService);
+        this.adaptive = adaptive;
+        this.decisionCache = decisionCacheSize > 0 ? new DecisionCache(decisionCacheSize, decisionTtlMs) : null;
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    /**
+     * Facts for one user; list checks consult {@code lists} first, then the list store by {@code userId}.
+     * With a schema layout the attributes are indexed into a {@link UserProfile} that rules read by ordinal;
+     * values are converted only when a rule reads them, with the same results as {@link MapUserFacts}.
+     */
+    /** The one place request and stored profiles become facts; attribute names are normalized here. */
+    public UserFacts factsFor(Map<String, Object> attributes, Collection<String> lists, Long userId) {
+        attributes = UserFacts.normalizedNames(attributes);
+        AttributeLayout layout = schemaService.layout();
+        if (layout == null) {
+            return new MapUserFacts(attributes, lists, userId, listStore);
+        }
+        return UserProfile.of(layout, attributes, lists, userId, listStore);
+    }
+
+    public CompiledRule compile(RuleNode rule) {
+        return compiler.compile(null, rule);
+    }
+
+    public CompiledRule published(String ruleId) {
+        if (ruleId == null || ruleId.isBlank()) {
+            throw new IllegalArgumentException("Rule ID is missing.");
+        }
+        CompiledRule rule = registry.get(ruleId);
+        if (rule == null) {
+            throw new IllegalArgumentException("Unknown rule '" + ruleId + "'.");
+        }
+        return rule;
+    }
+
+    /** Binary form stored next to the JSON when publishing; {@code null} if the rule does not compile. */
+    public byte[] encode(RuleNode rule) {
+        try {
+            return BinaryRuleCodec.encode(compile(rule));
+        } catch (IllegalArgumentException e) {
+            System.out.println("--- [EVAL] Rule not encoded: " + e.getMessage() + " ---");
+            return null;
+        }
+    }
+
+    public boolean evaluate(String ruleId, UserFacts facts) {
+        if (traceSampleRate > 0 && ThreadLocalRandom.current().nextInt(traceSampleRate) == 0) {
+            logTrace(ruleId, facts);
+        }
+        if (decisionCache == null) {
+            return evaluateUncached(published(ruleId), facts);
+        }
+        CompiledRule rule = published(ruleId);
+        Fingerprinted f = fingerprints.get(ruleId);
+        if (f == null || f.rule() != rule) {
+            f = fingerprints.compute(ruleId, (id, old) -> old != null && old.rule() == rule ? old
+                    : new Fingerprinted(rule, FactFingerprint.of(rule), old == null ? 0 : old.version() + 1));
+        }
+        DecisionKey key = f.fingerprint().key(ruleId, decisionVersion(rule, f.version()), facts);
+        Boolean cached = decisionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        boolean decision = evaluateUncached(rule, facts);
+        decisionCache.put(key, decision);
+        return decision;
+    }
+
+    // Each component only grows, so any change to the rule, the schema or a list the rule reads yields a new value.
+    private long decisionVersion(CompiledRule rule, long ruleVersion) {
+        long version = ruleVersion + schemaService.snapshotVersion();
+        for (String list : rule.lists()) {
+            version += listStore.generation(list);
+        }
+        return version;
+    }
+
+    /** Hit rate and occupancy of the decision cache, or {@code null} when it is disabled. */
+    public DecisionCache.Stats decisionCacheStats() {
+        return decisionCache == null ? null : decisionCache.stats();
+    }
+
+    private boolean evaluateUncached(CompiledRule rule, UserFacts facts) {
+        if (!adaptive) {
+            return rule.test(facts);
+        }
+        // A plan is only used for the exact rule the snapshot holds under its id.
+        AdaptiveRule plan = adaptiveRules.get(rule.ruleId());
+        if (plan == null || plan.rule() != rule) {
+            plan = adaptiveRules.compute(rule.ruleId(), (id, old) -> old != null && old.rule() == rule ? old : new AdaptiveRule(rule));
+        }
+        return plan.test(facts);
+    }
+
+    @Scheduled(fixedDelayString = "${eligibility.evaluation.replan-interval-ms:10000}")
+    public void replanAdaptiveRules() {
+        // Plans and fingerprints of rules the snapshot no longer holds are dropped here rather than on the request path.
+        adaptiveRules.values().removeIf(plan -> registry.get(plan.rule().ruleId()) != plan.rule());
+        fingerprints.values().removeIf(f -> registry.get(f.rule().ruleId()) != f.rule());
+        for (AdaptiveRule rule : adaptiveRules.values()) {
+            rule.replan();
+        }
+    }
+
+    public boolean evaluate(RuleNode rule, UserFacts facts) {
+        return compile(rule).test(facts);
+    }
+
+    /** Evaluates without the decision cache and reports which predicates failed and where evaluation stopped. */
+    public RuleTrace.Explanation explain(String ruleId, UserFacts facts) {
+        return RuleTrace.explain(published(ruleId), facts);
+    }
+
+    public RuleTrace.Explanation explain(RuleNode rule, UserFacts facts) {
+        return RuleTrace.explain(compile(rule), facts);
+    }
+
+    private void logTrace(String ruleId, UserFacts facts) {
+        try {
+            RuleTrace.Explanation e = explain(ruleId, facts);
+            System.out.println("--- [TRACE] Rule " + ruleId + ": eligible=" + e.eligible() + ", failed=" + e.failed()
+                    + "\n" + String.join("\n", e.trace()) + " ---");
+        } catch (IllegalArgumentException e) {
+            // The evaluation itself reports the error.
+        }
+    }
+
+    /** Evaluates a published rule for every row of the batch; bit {@code i} is set when row {@code i} is eligible. */
+    public BitSet evaluateBatch(String ruleId, ColumnarBatch batch) {
+        return ColumnarEvaluator.evaluate(published(ruleId), batch, listStore);
+    }
+
+    public long countEligible(String ruleId, ColumnarBatch batch) {
+        return ColumnarEvaluator.count(published(ruleId), batch, listStore);
+    }
+}
@@ -0,0 +1,57 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.RuleMatchIndex;
+import com.eligibility.engine.evaluation.UserFacts;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Reverse lookup over all published rules: which rules does this user match.
+ * Backed by a {@link RuleMatchIndex} over the rules of the current {@link PublishedRuleRegistry} snapshot. The
+ * index is extended when the registry registers rules and rebuilt when it retires some; a lookup that finds the
+ * snapshot ahead of the index (its event not handled yet) catches up first, so it never answers from rules other
+ * than the snapshot's.
+ */
+@Service
+public class RuleMatchService {
+
+    private final PublishedRuleRegistry registry;
+    private volatile RuleMatchIndex index = new RuleMatchIndex();
+    private volatile long indexedVersion;
+
+    public RuleMatchService(PublishedRuleRegistry registry) {
+        this.registry = registry;
+    }
+
+    @EventListener
+    public void onRulesRegistered(RulesRegisteredEvent event) {
+        catchUp(registry.snapshot());
+    }
+
+    @EventListener
+    public void onRulesRetired(RulesRetiredEvent event) {
+        catchUp(registry.snapshot());
+    }
+
+    public List<String> matchingRules(UserFacts facts) {
+        PublishedRuleRegistry.Snapshot snapshot = registry.snapshot();
+        if (snapshot.version() != indexedVersion) {
+            catchUp(snapshot);
+        }
+        return index.match(facts);
+    }
+
+    private synchronized void catchUp(PublishedRuleRegistry.Snapshot snapshot) {
+        if (snapshot.version() <= indexedVersion) return;
+        index.addAll(snapshot.rules().values());   // skips rules already indexed
+        if (index.size() != snapshot.rules().size()) {
+            // Rules were retired; the index cannot drop rules, so it is rebuilt from the snapshot.
+            RuleMatchIndex rebuilt = new RuleMatchIndex();
+            rebuilt.addAll(snapshot.rules().values());
+            index = rebuilt;
+        }
+        indexedVersion = snapshot.version();
+    }
+}
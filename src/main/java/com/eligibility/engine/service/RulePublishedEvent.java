@@ -0,0 +1,8 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+
+/**
+ * Published by {@link RuleAuthoringOrchestrator#finalizeRule(String)} after a rule has been persisted.
+ */
+public record RulePublishedEvent(FinalizedRuleDoc rule) {}
@@ -0,0 +1,10 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.CompiledRule;
+
+import java.util.List;
+
+/**
+ * Published by {@link PublishedRuleRegistry} after a snapshot containing {@code added} has been swapped in.
+ */
+public record RulesRegisteredEvent(List<CompiledRule> added, long snapshotVersion) {}
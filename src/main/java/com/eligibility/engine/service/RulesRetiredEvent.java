@@ -0,0 +1,8 @@
+package com.eligibility.engine.service;
+
+import java.util.List;
+
+/**
+ * Published by {@link PublishedRuleRegistry} after a snapshot without the {@code retired} rules has been swapped in.
+ */
+public record RulesRetiredEvent(List<String> retired, long snapshotVersion) {}
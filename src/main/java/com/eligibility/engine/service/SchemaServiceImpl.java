@@ -1,20 +1,36 @@
 package com.eligibility.engine.service;
 
+import com.eligibility.engine.evaluation.AttributeLayout;
 import com.eligibility.engine.model.AttributeDef;
+import com.eligibility.engine.util.SuggestionIndex;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SchemaServiceImpl implements UserSchemaService, ListCatalogService {
 
+    static final int MAX_EDIT_DISTANCE = 2;
+    static final int MAX_SUGGESTIONS = 5;
+
     private volatile Map<String, AttributeDef> attributes = Collections.emptyMap();
     private volatile Set<String> lists = Collections.emptySet();
+    // Rebuilt with each snapshot; typo suggestions search these instead of comparing against every name.
+    private volatile SuggestionIndex attributeSuggestions = SuggestionIndex.of(List.of());
+    private volatile SuggestionIndex listSuggestions = SuggestionIndex.of(List.of());
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    // Append-only across snapshots, so ordinals bound by already compiled rules stay valid.
+    private volatile AttributeLayout layout = AttributeLayout.empty();
 
     public void applySnapshot(Map<String, AttributeDef> newAttributes, Set<String> newLists) {
 
         this.attributes = Collections.unmodifiableMap(new HashMap<>(newAttributes));
         this.lists = Collections.unmodifiableSet(new HashSet<>(newLists));
+        this.layout = layout.extend(newAttributes.values());
+        this.attributeSuggestions = SuggestionIndex.of(attributes.keySet());
+        this.listSuggestions = SuggestionIndex.of(lists);
+        snapshotVersion.incrementAndGet();
 
         System.out.println("--- [CACHE] Snapshot applied. " +
                 attributes.size() + " attributes, " +
@@ -22,6 +38,16 @@ public class SchemaServiceImpl implements UserSchemaService, ListCatalogService
     }
 
 
+    @Override
+    public long snapshotVersion() {
+        return snapshotVersion.get();
+    }
+
+    @Override
+    public AttributeLayout layout() {
+        return layout;
+    }
+
     @Override
     public AttributeDef getAttribute(String name) {
         return attributes.get(name.toLowerCase());
@@ -34,19 +60,13 @@ public class SchemaServiceImpl implements UserSchemaService, ListCatalogService
 
     @Override
     public List<String> suggestAttributes(String wrong) {
-        List<String> suggestions = new ArrayList<>();
         String input = wrong.toLowerCase();
 
         if (input.equals("active")) {
             return List.of("status", "is_verified");
         }
 
-        for (String key : attributes.keySet()) {
-            if (calculateLevenshtein(input, key) <= 2) {
-                suggestions.add(key);
-            }
-        }
-        return suggestions;
+        return attributeSuggestions.suggest(input, MAX_EDIT_DISTANCE, MAX_SUGGESTIONS);
     }
 
 
@@ -62,32 +82,6 @@ public class SchemaServiceImpl implements UserSchemaService, ListCatalogService
 
     @Override
     public List<String> suggestLists(String wrong) {
-        List<String> suggestions = new ArrayList<>();
-        String input = wrong.toLowerCase();
-
-        for (String list : lists) {
-            if (calculateLevenshtein(input, list) <= 2) {
-                suggestions.add(list);
-            }
-        }
-        return suggestions;
-    }
-
-    private int calculateLevenshtein(String x, String y) {
-        int[][] dp = new int[x.length() + 1][y.length() + 1];
-
-        for (int i = 0; i <= x.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= y.length(); j++) dp[0][j] = j;
-
-        for (int i = 1; i <= x.length(); i++) {
-            for (int j = 1; j <= y.length(); j++) {
-                int cost = (x.charAt(i - 1) == y.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
-            }
-        }
-        return dp[x.length()][y.length()];
+        return listSuggestions.suggest(wrong.toLowerCase(), MAX_EDIT_DISTANCE, MAX_SUGGESTIONS);
     }
-}
\ No newline at end of file
+}
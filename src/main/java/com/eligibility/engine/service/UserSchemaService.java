@@ -1,5 +1,6 @@
 package com.eligibility.engine.service;
 
+import com.eligibility.engine.evaluation.AttributeLayout;
 import com.eligibility.engine.model.AttributeDef;
 import java.util.List;
 
@@ -7,4 +8,14 @@ public interface UserSchemaService {
     AttributeDef getAttribute(String name);
     List<String> allAttributeNames();
     List<String> suggestAttributes(String wrong);
+
+    /** Bumped whenever the attribute definitions change; lets callers invalidate derived state. */
+    default long snapshotVersion() {
+        return 0;
+    }
+
+    /** Ordinals of the current attributes, or {@code null} if this schema has none; rules then read facts by name. */
+    default AttributeLayout layout() {
+        return null;
+    }
 }
\ No newline at end of file
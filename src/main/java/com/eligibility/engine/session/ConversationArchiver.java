@@ -0,0 +1,56 @@
+package com.eligibility.engine.session;
+
+import com.eligibility.engine.storage.ConversationStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keeps the hot conversation records small. Each run moves all but the newest {@code keep-messages} of a
+ * session's inline history into a compressed archive chunk once at least {@code chunk-messages} more have
+ * piled up, then deletes sessions with no turn for {@code eligibility.sessions.ttl-ms} (0 keeps them forever).
+ * Both steps handle at most {@code batch} sessions per run. {@code GET /api/history} still returns the
+ * whole conversation: {@link ConversationStore#findById} stitches the archive back in front.
+ */
+@Service
+public class ConversationArchiver {
+
+    private final ConversationStore store;
+    private final ConversationSessionCache sessions;
+    private final int keepMessages;
+    private final int chunkMessages;
+    private final int batch;
+    private final long ttlMs;
+
+    public ConversationArchiver(ConversationStore store,
+                                ConversationSessionCache sessions,
+                                @Value("${eligibility.sessions.archive.keep-messages:50}") int keepMessages,
+                                @Value("${eligibility.sessions.archive.chunk-messages:50}") int chunkMessages,
+                                @Value("${eligibility.sessions.archive.batch:500}") int batch,
+                                @Value("${eligibility.sessions.ttl-ms:2592000000}") long ttlMs) {
+        if (keepMessages < 0 || chunkMessages < 1 || batch < 1) {
+            throw new IllegalArgumentException("Archive settings must be keep-messages >= 0, chunk-messages >= 1, batch >= 1.");
+        }
+        this.store = store;
+        this.sessions = sessions;
+        this.keepMessages = keepMessages;
+        this.chunkMessages = chunkMessages;
+        this.batch = batch;
+        this.ttlMs = ttlMs;
+    }
+
+    @Scheduled(fixedDelayString = "${eligibility.sessions.archive.interval-ms:60000}")
+    public void run() {
+        int archived = 0;
+        for (String id : store.findIdsWithHistoryOver(keepMessages + chunkMessages, batch)) {
+            if (store.archiveHistory(id, keepMessages)) archived++;
+        }
+        List<String> expired = ttlMs > 0 ? store.deleteIdleSince(System.currentTimeMillis() - ttlMs, batch) : List.of();
+        sessions.forget(expired);
+        if (archived > 0 || !expired.isEmpty()) {
+            System.out.println("--- [SESSIONS] Archived history of " + archived + " sessions, expired " + expired.size() + " ---");
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.eligibility.engine.session;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.storage.ConversationStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Write-behind cache of active chat sessions in front of the {@link ConversationStore}.
+ * <p>
+ * A cached {@link ConversationState} holds the draft fields plus only the messages not yet in Mongo. A turn
+ * runs against it under the session's lock, is appended to the {@link WriteAheadLog} and acknowledged; a
+ * scheduled flush then writes every dirty session with one bulk {@code appendTurns}. On startup the log is
+ * replayed, skipping records a document already holds ({@code walLsn}), and flushed. Every write carries the
+ * turn's {@code walLsn} and the store ignores one it already holds, so retries and replays are idempotent.
+ * <p>
+ * Assumes a session is served by one node at a time (sticky routing); another node would not see turns that
+ * are still only in this node's cache. A blank {@code eligibility.sessions.wal.dir} disables the log.
+ */
+@Service
+public class ConversationSessionCache {
+
+    private static final class Entry {
+        final ConversationState state;
+        ConversationState unflushed;   // a delta whose write failed; resent as is, never merged with newer turns
+        boolean dirty;
+        boolean evicted;
+
+        Entry(ConversationState state) {
+            this.state = state;
+        }
+    }
+
+    private final ConversationStore store;
+    private final WriteAheadLog wal;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object flushLock = new Object();
+    private long lastLsn;
+
+    public ConversationSessionCache(ConversationStore store,
+                                    @Value("${eligibility.sessions.wal.dir:data/wal}") String walDir,
+                                    @Value("${eligibility.sessions.wal.fsync:always}") String fsync,
+                                    @Value("${eligibility.sessions.cache.max-entries:10000}") int maxEntries) {
+        this.store = store;
+        this.wal = walDir == null || walDir.isBlank()
+                ? null
+                : new WriteAheadLog(Path.of(walDir), WriteAheadLog.Fsync.valueOf(fsync.trim().toUpperCase(Locale.ROOT)));
+        this.maxEntries = maxEntries;
+    }
+
+    /** Replays turns that were acknowledged but not flushed before the last shutdown. */
+    @PostConstruct
+    public void recover() {
+        if (wal == null) return;
+        List<WriteAheadLog.Record> records;
+        try {
+            records = wal.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open session log", e);
+        }
+        if (records.isEmpty()) return;
+
+        Set<String> ids = new LinkedHashSet<>();
+        for (WriteAheadLog.Record r : records) ids.add(r.sessionId());
+        Map<String, Long> persisted = new HashMap<>();
+        for (ConversationState s : store.findAllWithoutHistory(ids)) persisted.put(s.getId(), s.getWalLsn());
+
+        int replayed = 0;
+        synchronized (entries) {
+            for (WriteAheadLog.Record r : records) {
+                if (r.lsn() <= persisted.getOrDefault(r.sessionId(), 0L)) continue;
+                Entry e = entries.computeIfAbsent(r.sessionId(), id -> {
+                    ConversationState s = new ConversationState();
+                    s.setId(id);
+                    return new Entry(s);
+                });
+                apply(e, r);
+                replayed++;
+            }
+        }
+        System.out.println("--- [SESSIONS] Replayed " + replayed + " of " + records.size() + " logged turns ---");
+        flush();
+    }
+
+    private static void apply(Entry e, WriteAheadLog.Record r) {
+        if (r.messages() != null) e.state.getHistory().addAll(r.messages());
+        e.state.setCurrentDraftRule(r.draft());
+        e.state.setPendingAttribute(r.pendingAttribute());
+        e.state.setWalLsn(r.lsn());
+        e.dirty = true;
+    }
+
+    /**
+     * Runs one turn against the session's state (loaded from Mongo on a miss) and logs it before returning.
+     * {@code turn} may add messages and change the draft fields; the state's history only holds the messages
+     * that are not in Mongo yet. A turn that changes nothing is neither logged nor written.
+     */
+    public <T> T apply(String sessionId, Function<ConversationState, T> turn) {
+        T result = applyLogged(sessionId, turn);
+        if (wal != null) wal.commit();
+        return result;
+    }
+
+    /** {@link #apply} for many turns in order: misses are loaded with one query, the log is synced once. */
+    public <T> List<T> applyAll(List<String> sessionIds, List<Function<ConversationState, T>> turns) {
+        preload(sessionIds);
+        List<T> results = new ArrayList<>(turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            results.add(applyLogged(sessionIds.get(i), turns.get(i)));
+        }
+        if (wal != null) wal.commit();
+        return results;
+    }
+
+    private <T> T applyLogged(String sessionId, Function<ConversationState, T> turn) {
+        while (true) {
+            Entry e = entry(sessionId);
+            synchronized (e) {
+                if (e.evicted) continue;   // lost a race with eviction; load again
+                ConversationState state = e.state;
+                int before = state.getHistory().size();
+                Object draft = state.getCurrentDraftRule(), pending = state.getPendingAttribute();
+                T result = turn.apply(state);
+                if (state.getHistory().size() == before && state.getCurrentDraftRule() == draft && state.getPendingAttribute() == pending) {
+                    return result;   // read-only turn: nothing to log or write
+                }
+                if (wal != null) {
+                    List<ChatMessage> added = new ArrayList<>(state.getHistory().subList(before, state.getHistory().size()));
+                    state.setWalLsn(wal.append(sessionId, added, state.getCurrentDraftRule(), state.getPendingAttribute()));
+                } else {
+                    state.setWalLsn(nextLsn());
+                }
+                e.dirty = true;
+                return result;
+            }
+        }
+    }
+
+    // Without a log, turns are still numbered the way the log numbers them so the store can skip a turn it holds.
+    private synchronized long nextLsn() {
+        lastLsn = Math.max(lastLsn + 1, System.currentTimeMillis() * 1000);
+        return lastLsn;
+    }
+
+    private Entry entry(String sessionId) {
+        synchronized (entries) {
+            Entry e = entries.get(sessionId);
+            if (e != null) return e;
+        }
+        ConversationState loaded = store.findWithoutHistory(sessionId).orElseGet(ConversationState::new);
+        loaded.setId(sessionId);
+        synchronized (entries) {
+            return entries.computeIfAbsent(sessionId, id -> new Entry(loaded));
+        }
+    }
+
+    private void preload(Collection<String> sessionIds) {
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (entries) {
+            for (String id : sessionIds) {
+                if (!entries.containsKey(id)) missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) return;
+        Map<String, ConversationState> loaded = new HashMap<>();
+        for (ConversationState s : store.findAllWithoutHistory(missing)) loaded.put(s.getId(), s);
+        synchronized (entries) {
+            for (String id : missing) {
+                ConversationState s = loaded.get(id);
+                if (s == null) {
+                    s = new ConversationState();
+                    s.setId(id);
+                }
+                entries.putIfAbsent(id, new Entry(s));
+            }
+        }
+    }
+
+    /** The session as stored, including turns still waiting to be flushed; {@code null} if unknown. */
+    public ConversationState history(String sessionId) {
+        synchronized (flushLock) {
+            Entry e;
+            synchronized (entries) {
+                e = entries.get(sessionId);
+            }
+            if (e != null) flush(List.of(e));
+        }
+        return store.findById(sessionId).orElse(null);
+    }
+
+    /** Writes every dirty session in one bulk write, then trims the cache back to its bound. */
+    @Scheduled(fixedDelayString = "${eligibility.sessions.flush-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (wal != null) {
+                wal.tick();
+                try {
+                    wal.rotate();
+                } catch (IOException e) {
+                    System.out.println("--- [SESSIONS] Log rotation failed: " + e.getMessage() + " ---");
+                    return;
+                }
+            }
+            List<Entry> all;
+            synchronized (entries) {
+                all = new ArrayList<>(entries.values());
+            }
+            if (flush(all) && wal != null) {
+                try {
+                    wal.deleteSealed();
+                } catch (IOException e) {
+                    System.out.println("--- [SESSIONS] Could not delete flushed log segments: " + e.getMessage() + " ---");
+                }
+            }
+            evict();
+        }
+    }
+
+    // Caller holds flushLock. Snapshot each dirty entry (moving its messages out) and write. A delta whose write
+    // fails is kept and resent unchanged, so the store can recognise it by walLsn if the failed write did apply
+    // it; turns that arrived meanwhile go in a following write. True when everything was written.
+    private boolean flush(List<Entry> candidates) {
+        List<Entry> pending = candidates;
+        while (!pending.isEmpty()) {
+            List<Entry> flushed = new ArrayList<>();
+            List<Entry> next = new ArrayList<>();
+            List<ConversationState> deltas = new ArrayList<>();
+            for (Entry e : pending) {
+                synchronized (e) {
+                    if (!e.dirty) continue;
+                    ConversationState delta = e.unflushed != null ? e.unflushed : delta(e.state);
+                    e.unflushed = null;
+                    e.dirty = e.state.getWalLsn() > delta.getWalLsn();
+                    if (e.dirty) next.add(e);
+                    flushed.add(e);
+                    deltas.add(delta);
+                }
+            }
+            if (deltas.isEmpty()) return true;
+            try {
+                store.appendTurns(deltas);
+            } catch (RuntimeException ex) {
+                System.out.println("--- [SESSIONS] Flush of " + deltas.size() + " sessions failed, will retry: " + ex.getMessage() + " ---");
+                for (int i = 0; i < flushed.size(); i++) {
+                    Entry e = flushed.get(i);
+                    synchronized (e) {
+                        e.unflushed = deltas.get(i);
+                        e.dirty = true;
+                    }
+                }
+                return false;
+            }
+            pending = next;
+        }
+        return true;
+    }
+
+    private static ConversationState delta(ConversationState state) {
+        ConversationState delta = new ConversationState();
+        delta.setId(state.getId());
+        delta.setHistory(new ArrayList<>(state.getHistory()));
+        delta.setCurrentDraftRule(state.getCurrentDraftRule());
+        delta.setPendingAttribute(state.getPendingAttribute());
+        delta.setWalLsn(state.getWalLsn());
+        state.getHistory().clear();
+        return delta;
+    }
+
+    // Least recently used clean sessions go first; dirty ones stay until a flush has written them.
+    private void evict() {
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                Entry e = it.next();
+                synchronized (e) {
+                    if (e.dirty) continue;
+                    e.evicted = true;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /** Drops the given sessions if cached and clean (they were deleted from the store). */
+    public void forget(Collection<String> sessionIds) {
+        synchronized (entries) {
+            for (String id : sessionIds) {
+                Entry e = entries.get(id);
+                if (e == null) continue;
+                synchronized (e) {
+                    if (e.dirty) continue;   // a turn arrived since; its flush recreates the session
+                    e.evicted = true;
+                    entries.remove(id);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        if (wal != null) wal.close();
+    }
+}
@@ -0,0 +1,168 @@
+package com.eligibility.engine.session;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.RuleNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of chat turns, one JSON line per turn, in segment files {@code wal-<firstLsn>.log}.
+ * Appends go to the newest segment; {@link #rotate()} starts a new one so that everything before it can be
+ * deleted with {@link #deleteSealed()} once it is safely in Mongo. Log sequence numbers increase across
+ * restarts (they start from the clock), so a document's {@code walLsn} tells which records it already holds.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public enum Fsync {
+        /** Force to disk before a turn is acknowledged. */
+        ALWAYS,
+        /** Force once per flush interval; a crash can lose up to one interval of turns. */
+        INTERVAL,
+        /** Leave it to the OS. */
+        NEVER
+    }
+
+    /** One turn: the messages it added plus the session's draft fields after it. */
+    public record Record(long lsn, String sessionId, List<ChatMessage> messages, RuleNode draft, String pendingAttribute) {}
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Path directory;
+    private final Fsync fsync;
+    private final List<Path> sealed = new ArrayList<>();
+    private FileChannel current;
+    private Path currentPath;
+    private long currentBytes;
+    private long lastLsn;
+    private boolean unsynced;
+
+    public WriteAheadLog(Path directory, Fsync fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Reads every existing segment in order and opens a fresh one for new appends; the old segments stay
+     * until the next {@link #deleteSealed()}. A line that does not parse (a torn write at crash time) is skipped.
+     */
+    public synchronized List<Record> open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) existing.add(file);
+        }
+        existing.sort(null);   // names carry a zero-padded first LSN
+
+        List<Record> records = new ArrayList<>();
+        for (Path file : existing) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        Record record = mapper.readValue(line, Record.class);
+                        records.add(record);
+                        lastLsn = Math.max(lastLsn, record.lsn());
+                    } catch (IOException e) {
+                        System.out.println("--- [WAL] Skipping unreadable record in " + file.getFileName() + " ---");
+                    }
+                }
+            }
+        }
+        sealed.addAll(existing);
+        startSegment();
+        return records;
+    }
+
+    /** Writes one record and returns its LSN; durable once {@link #commit()} returns (per the fsync policy). */
+    public synchronized long append(String sessionId, List<ChatMessage> messages, RuleNode draft, String pendingAttribute) {
+        long lsn = Math.max(lastLsn + 1, System.currentTimeMillis() * 1000);
+        try {
+            byte[] line = (mapper.writeValueAsString(new Record(lsn, sessionId, messages, draft, pendingAttribute)) + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) current.write(buffer);
+            currentBytes += line.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Session log write failed", e);
+        }
+        lastLsn = lsn;
+        unsynced = true;
+        return lsn;
+    }
+
+    /** End of an acknowledged unit of work: forces the log under {@link Fsync#ALWAYS}. */
+    public void commit() {
+        if (fsync == Fsync.ALWAYS) force();
+    }
+
+    /** Periodic sync point: forces the log under {@link Fsync#INTERVAL}. */
+    public void tick() {
+        if (fsync == Fsync.INTERVAL) force();
+    }
+
+    private synchronized void force() {
+        if (!unsynced) return;
+        try {
+            current.force(false);
+            unsynced = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Session log sync failed", e);
+        }
+    }
+
+    /** Seals the current segment (if it has anything in it) and starts a new one. */
+    public synchronized void rotate() throws IOException {
+        if (currentBytes == 0) return;
+        current.force(false);
+        current.close();
+        sealed.add(currentPath);
+        startSegment();
+    }
+
+    /** Deletes the segments sealed so far; call only once their records are all in Mongo. */
+    public synchronized void deleteSealed() throws IOException {
+        for (Path p : sealed) Files.deleteIfExists(p);
+        sealed.clear();
+    }
+
+    private void startSegment() throws IOException {
+        long first = Math.max(lastLsn + 1, System.currentTimeMillis() * 1000);
+        while (Files.exists(segmentPath(first))) first++;
+        lastLsn = first - 1;
+        currentPath = segmentPath(first);
+        current = FileChannel.open(currentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentBytes = current.size();
+        unsynced = false;
+    }
+
+    private Path segmentPath(long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstLsn, SUFFIX));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.force(false);
+            current.close();
+            current = null;
+        }
+    }
+}
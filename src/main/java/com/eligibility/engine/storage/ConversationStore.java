@@ -0,0 +1,37 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.model.ConversationState;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where chat sessions live. Turn-sized like {@code ConversationRepositoryCustom}: states read without history
+ * carry only the messages added since the read, and {@link #appendTurns} appends exactly those.
+ */
+public interface ConversationStore {
+
+    /** The whole session, archived history included. */
+    Optional<ConversationState> findById(String id);
+
+    Optional<ConversationState> findWithoutHistory(String id);
+
+    List<ConversationState> findAllWithoutHistory(Collection<String> ids);
+
+    /**
+     * Appends each state's new messages and sets its draft fields, creating sessions as needed. The writes are
+     * durable when this returns; the session cache relies on that to delete its write-ahead log. A state whose
+     * {@code walLsn} the session already holds is skipped, so writing the same states again appends nothing.
+     */
+    int appendTurns(Collection<ConversationState> states);
+
+    /** Ids of up to {@code limit} sessions holding at least {@code minMessages} messages outside the archive. */
+    List<String> findIdsWithHistoryOver(int minMessages, int limit);
+
+    /** Compresses all but the newest {@code keep} unarchived messages into an archive chunk; false if it did not. */
+    boolean archiveHistory(String id, int keep);
+
+    /** Deletes up to {@code limit} sessions whose last turn is before {@code cutoffEpochMs}; returns their ids. */
+    List<String> deleteIdleSince(long cutoffEpochMs, int limit);
+}
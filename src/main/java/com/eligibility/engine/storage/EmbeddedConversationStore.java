@@ -0,0 +1,195 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.model.RuleNode;
+import com.eligibility.engine.util.HistoryCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Sessions as a small head record ({@code s:<id>}: draft fields, log position, chunk bounds) plus one history
+ * chunk per {@link #appendTurns} call that added messages ({@code h:<id>:<n>}). A turn writes one head and at
+ * most one chunk however long the session is; only {@link #findById} reads the chunks. Archiving replaces the
+ * older chunks with one compressed {@code a:<id>:<n>} record.
+ */
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "embedded")
+public class EmbeddedConversationStore implements ConversationStore {
+
+    // Live history chunks are firstChunk..chunks-1 holding hotMessages messages; archives are 0..archivedChunks-1.
+    private record Head(RuleNode currentDraftRule, String pendingAttribute, long walLsn, int chunks,
+                        int firstChunk, int hotMessages, int archivedChunks, long lastActiveEpochMs) {}
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final JavaType headType = mapper.constructType(Head.class);
+    private final JavaType messagesType = mapper.getTypeFactory().constructCollectionType(List.class, ChatMessage.class);
+    private final LogStore log;
+
+    public EmbeddedConversationStore(EmbeddedStorage storage) {
+        this.log = storage.open("conversations");
+    }
+
+    @Override
+    public Optional<ConversationState> findById(String id) {
+        Head head = head(id);
+        if (head == null) return Optional.empty();
+        ConversationState state = state(id, head);
+        for (int n = 0; n < head.archivedChunks(); n++) {
+            byte[] archive = log.get(archiveKey(id, n));
+            if (archive != null) state.getHistory().addAll(HistoryCodec.decompress(archive));
+        }
+        state.getHistory().addAll(hotHistory(id, head));
+        return Optional.of(state);
+    }
+
+    private List<ChatMessage> hotHistory(String id, Head head) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int n = head.firstChunk(); n < head.chunks(); n++) {
+            byte[] chunk = log.get(chunkKey(id, n));
+            if (chunk != null) messages.addAll(this.<List<ChatMessage>>read(chunk, messagesType));
+        }
+        return messages;
+    }
+
+    @Override
+    public Optional<ConversationState> findWithoutHistory(String id) {
+        Head head = head(id);
+        return head == null ? Optional.empty() : Optional.of(state(id, head));
+    }
+
+    @Override
+    public List<ConversationState> findAllWithoutHistory(Collection<String> ids) {
+        List<ConversationState> found = new ArrayList<>();
+        for (String id : ids) findWithoutHistory(id).ifPresent(found::add);
+        return found;
+    }
+
+    @Override
+    public synchronized int appendTurns(Collection<ConversationState> states) {
+        long now = System.currentTimeMillis();
+        Map<String, Head> heads = new HashMap<>();
+        Map<String, byte[]> writes = new LinkedHashMap<>();
+        for (ConversationState state : states) {
+            String id = state.getId();
+            Head head = heads.containsKey(id) ? heads.get(id) : head(id);
+            if (head == null) head = new Head(null, null, 0, 0, 0, 0, 0, 0);
+            if (state.getWalLsn() > 0 && state.getWalLsn() <= head.walLsn()) continue;   // already applied
+            int chunks = head.chunks();
+            if (!state.getHistory().isEmpty()) {
+                writes.put(chunkKey(id, chunks++), write(state.getHistory()));
+            }
+            head = new Head(state.getCurrentDraftRule(), state.getPendingAttribute(),
+                    Math.max(head.walLsn(), state.getWalLsn()), chunks, head.firstChunk(),
+                    head.hotMessages() + state.getHistory().size(), head.archivedChunks(), now);
+            heads.put(id, head);
+            writes.put(headKey(id), write(head));
+        }
+        log.putAll(writes);
+        // Durable on return whatever sync-writes says: the session cache deletes its write-ahead log after this.
+        log.force();
+        return heads.size();
+    }
+
+    @Override
+    public List<String> findIdsWithHistoryOver(int minMessages, int limit) {
+        List<String> ids = new ArrayList<>();
+        for (String key : log.keys()) {
+            if (ids.size() >= limit) break;
+            if (!key.startsWith("s:")) continue;
+            String id = key.substring(2);
+            Head head = head(id);
+            if (head != null && head.hotMessages() >= minMessages) ids.add(id);
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized boolean archiveHistory(String id, int keep) {
+        Head head = head(id);
+        if (head == null) return false;
+        List<ChatMessage> hot = hotHistory(id, head);
+        int move = hot.size() - keep;
+        if (move <= 0) return false;
+
+        // New records first, old chunks last: a crash in between leaves the old head pointing at intact chunks.
+        Map<String, byte[]> writes = new LinkedHashMap<>();
+        writes.put(archiveKey(id, head.archivedChunks()), HistoryCodec.compress(hot.subList(0, move)));
+        int chunks = head.chunks();
+        if (keep > 0) writes.put(chunkKey(id, chunks++), write(hot.subList(move, hot.size())));
+        writes.put(headKey(id), write(new Head(head.currentDraftRule(), head.pendingAttribute(), head.walLsn(),
+                chunks, head.chunks(), hot.size() - move, head.archivedChunks() + 1, head.lastActiveEpochMs())));
+        log.putAll(writes);
+        for (int n = head.firstChunk(); n < head.chunks(); n++) log.delete(chunkKey(id, n));
+        return true;
+    }
+
+    @Override
+    public synchronized List<String> deleteIdleSince(long cutoffEpochMs, int limit) {
+        List<String> deleted = new ArrayList<>();
+        for (String key : log.keys()) {
+            if (deleted.size() >= limit) break;
+            if (!key.startsWith("s:")) continue;
+            String id = key.substring(2);
+            Head head = head(id);
+            if (head == null || head.lastActiveEpochMs() == 0 || head.lastActiveEpochMs() >= cutoffEpochMs) continue;
+            log.delete(headKey(id));
+            for (int n = head.firstChunk(); n < head.chunks(); n++) log.delete(chunkKey(id, n));
+            for (int n = 0; n < head.archivedChunks(); n++) log.delete(archiveKey(id, n));
+            deleted.add(id);
+        }
+        return deleted;
+    }
+
+    private Head head(String id) {
+        byte[] bytes = log.get(headKey(id));
+        return bytes == null ? null : read(bytes, headType);
+    }
+
+    private static ConversationState state(String id, Head head) {
+        ConversationState state = new ConversationState();
+        state.setId(id);
+        state.setCurrentDraftRule(head.currentDraftRule());
+        state.setPendingAttribute(head.pendingAttribute());
+        state.setWalLsn(head.walLsn());
+        state.setArchivedChunks(head.archivedChunks());
+        state.setLastActiveEpochMs(head.lastActiveEpochMs());
+        return state;
+    }
+
+    private static String headKey(String id) {
+        return "s:" + id;
+    }
+
+    private static String chunkKey(String id, int n) {
+        return "h:" + id + ":" + n;
+    }
+
+    private static String archiveKey(String id, int n) {
+        return "a:" + id + ":" + n;
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode session", e);
+        }
+    }
+
+    private <T> T read(byte[] bytes, JavaType type) {
+        try {
+            return mapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable session record", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.CachedMetadata;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "embedded")
+public class EmbeddedMetadataStore implements MetadataStore {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final LogStore log;
+
+    public EmbeddedMetadataStore(EmbeddedStorage storage) {
+        this.log = storage.open("metadata");
+    }
+
+    @Override
+    public Optional<CachedMetadata> findById(String id) {
+        byte[] bytes = log.get(id);
+        if (bytes == null) return Optional.empty();
+        try {
+            return Optional.of(mapper.readValue(bytes, CachedMetadata.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable metadata " + id, e);
+        }
+    }
+
+    @Override
+    public CachedMetadata save(CachedMetadata metadata) {
+        try {
+            log.put(metadata.id, mapper.writeValueAsBytes(metadata));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write metadata " + metadata.id, e);
+        }
+        return metadata;
+    }
+}
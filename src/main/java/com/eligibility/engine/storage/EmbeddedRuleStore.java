@@ -0,0 +1,131 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.repository.RuleQuery;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Published rules keyed by id. Catalog and poll reads walk in-memory {@code (createdAtEpochMs, id)} indexes,
+ * overall and per session / attribute, and decode only the documents they return.
+ */
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "embedded")
+public class EmbeddedRuleStore implements RuleStore {
+
+    private record Key(long createdAt, String id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(createdAt, o.createdAt);
+            return c != 0 ? c : id.compareTo(o.id);
+        }
+    }
+
+    private record Summary(Key key, String sessionId, List<String> attributes) {}
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final LogStore log;
+    private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+    private final NavigableSet<Key> byCreatedAt = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<Key>> bySession = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Key>> byAttribute = new ConcurrentHashMap<>();
+
+    public EmbeddedRuleStore(EmbeddedStorage storage) {
+        this.log = storage.open("rules");
+        log.forEach((id, bytes) -> index(decode(bytes)));
+    }
+
+    @Override
+    public synchronized FinalizedRuleDoc save(FinalizedRuleDoc doc) {
+        if (doc.id == null) doc.id = UUID.randomUUID().toString();
+        try {
+            log.put(doc.id, mapper.writeValueAsBytes(doc));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write rule " + doc.id, e);
+        }
+        Summary old = summaries.get(doc.id);
+        if (old != null) {
+            byCreatedAt.remove(old.key());
+            if (old.sessionId() != null) bySession.get(old.sessionId()).remove(old.key());
+            for (String a : old.attributes()) byAttribute.get(a).remove(old.key());
+        }
+        index(doc);
+        return doc;
+    }
+
+    private void index(FinalizedRuleDoc doc) {
+        Summary s = new Summary(new Key(doc.createdAtEpochMs, doc.id), doc.sessionId,
+                doc.attributes == null ? List.of() : List.copyOf(doc.attributes));
+        summaries.put(doc.id, s);
+        byCreatedAt.add(s.key());
+        if (s.sessionId() != null) bySession.computeIfAbsent(s.sessionId(), k -> new ConcurrentSkipListSet<>()).add(s.key());
+        for (String a : s.attributes()) byAttribute.computeIfAbsent(a, k -> new ConcurrentSkipListSet<>()).add(s.key());
+    }
+
+    @Override
+    public Optional<FinalizedRuleDoc> findById(String id) {
+        byte[] bytes = log.get(id);
+        return bytes == null ? Optional.empty() : Optional.of(decode(bytes));
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findAll() {
+        List<FinalizedRuleDoc> all = new ArrayList<>();
+        log.forEach((id, bytes) -> all.add(decode(bytes)));
+        return all;
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findPublishedSince(long sinceEpochMs) {
+        List<FinalizedRuleDoc> docs = new ArrayList<>();
+        for (Key k : byCreatedAt.tailSet(new Key(sinceEpochMs, ""), true)) findById(k.id()).ifPresent(docs::add);
+        return docs;
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findPage(RuleQuery q) {
+        // Walk the narrowest index newest first from the cursor; the other filters are checked on the summary.
+        NavigableSet<Key> keys = q.sessionId() != null ? bySession.get(q.sessionId())
+                : q.attribute() != null ? byAttribute.get(q.attribute())
+                : byCreatedAt;
+        if (keys == null) return List.of();
+        NavigableSet<Key> range = keys.descendingSet();
+        if (q.hasCursor()) range = range.tailSet(new Key(q.afterCreatedAt(), q.afterId()), false);
+        else if (q.toEpochMs() != null) range = range.tailSet(new Key(q.toEpochMs(), ""), false);
+
+        List<FinalizedRuleDoc> page = new ArrayList<>();
+        for (Key k : range) {
+            if (page.size() >= q.limit()) break;
+            if (q.fromEpochMs() != null && k.createdAt() < q.fromEpochMs()) break;
+            if (q.toEpochMs() != null && k.createdAt() >= q.toEpochMs()) continue;
+            Summary s = summaries.get(k.id());
+            if (s == null || (q.attribute() != null && !s.attributes().contains(q.attribute()))) continue;
+            findById(k.id()).ifPresent(doc -> {
+                if (!q.includeBodies()) {
+                    doc.finalRuleJson = null;
+                    doc.binaryRule = null;
+                    doc.validationReportJson = null;
+                }
+                page.add(doc);
+            });
+        }
+        return page;
+    }
+
+    private FinalizedRuleDoc decode(byte[] bytes) {
+        try {
+            return mapper.readValue(bytes, FinalizedRuleDoc.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable rule", e);
+        }
+    }
+}
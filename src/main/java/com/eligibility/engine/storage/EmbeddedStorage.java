@@ -0,0 +1,71 @@
+package com.eligibility.engine.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link LogStore}s behind the embedded backend ({@code eligibility.storage.backend=embedded}), one directory
+ * each under {@code eligibility.storage.embedded.dir}. Periodically forces them to disk and compacts any whose
+ * sealed segments are mostly dead records.
+ */
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "embedded")
+public class EmbeddedStorage {
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean syncWrites;
+    private final double compactRatio;
+    private final Map<String, LogStore> stores = new ConcurrentHashMap<>();
+
+    public EmbeddedStorage(@Value("${eligibility.storage.embedded.dir:data/store}") String directory,
+                           @Value("${eligibility.storage.embedded.segment-bytes:67108864}") int segmentBytes,
+                           @Value("${eligibility.storage.embedded.sync-writes:false}") boolean syncWrites,
+                           @Value("${eligibility.storage.embedded.compact-ratio:0.5}") double compactRatio) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+        this.compactRatio = compactRatio;
+    }
+
+    /** The named store, recovered from disk on first use. */
+    public LogStore open(String name) {
+        return stores.computeIfAbsent(name, n -> {
+            LogStore store = new LogStore(directory.resolve(n), segmentBytes, syncWrites);
+            try {
+                store.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open store " + n, e);
+            }
+            return store;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${eligibility.storage.embedded.maintenance-ms:5000}")
+    public void maintain() {
+        for (Map.Entry<String, LogStore> e : stores.entrySet()) {
+            LogStore store = e.getValue();
+            store.force();
+            if (store.garbageRatio() < compactRatio) continue;
+            try {
+                store.compact();
+            } catch (IOException ex) {
+                System.out.println("--- [STORE] Compaction of " + e.getKey() + " failed: " + ex.getMessage() + " ---");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        stores.values().forEach(LogStore::close);
+    }
+}
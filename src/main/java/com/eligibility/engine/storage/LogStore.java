@@ -0,0 +1,332 @@
+package com.eligibility.engine.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded key-value log. Every put or delete is appended to the active segment file, an in-memory index maps
+ * each key to its latest record, and reads copy the value straight out of the segment's memory mapping.
+ * <p>
+ * Segments are named {@code seg-<first>-<last>.log}; a written segment has {@code first == last}. The active one
+ * is preallocated (sparse) and written through its mapping, so a write costs a memory copy; it reaches disk with
+ * {@link #force()} or, with {@code syncWrites}, before the write returns. {@link #compact()} copies the live
+ * records of every sealed segment into one file covering their whole id range, written under a temporary name
+ * and renamed into place, so after a crash its range says which older files it replaces.
+ * <p>
+ * Each record carries a CRC. {@link #open()} scans the segments oldest first, stops reading a segment at its
+ * first bad record (a torn write) and starts a fresh active segment.
+ */
+public class LogStore implements Closeable {
+
+    // Record: crc32c(int) | key length(int) | value length(int, -1 = deleted) | key | value.
+    // The CRC covers everything after it; a zero key length marks the unwritten tail of a segment.
+    private static final int HEADER = 12;
+    private static final int DELETED = -1;
+    private static final String PREFIX = "seg-";
+    private static final String SUFFIX = ".log";
+    private static final String TEMP = ".tmp";
+
+    private static final class Segment {
+        final long first;
+        final long last;
+        final Path path;
+        final MappedByteBuffer map;
+        final AtomicLong dead = new AtomicLong();   // bytes of superseded records and tombstones
+        int end;
+
+        Segment(long first, long last, Path path, MappedByteBuffer map) {
+            this.first = first;
+            this.last = last;
+            this.path = path;
+            this.map = map;
+        }
+    }
+
+    private record Location(Segment segment, int offset, int keyLength, int valueLength) {
+        int size() {
+            return HEADER + keyLength + valueLength;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean syncWrites;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final List<Segment> sealed = new ArrayList<>();
+    private final Object compactLock = new Object();
+    private Segment active;
+
+    public LogStore(Path directory, int segmentBytes, boolean syncWrites) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+    }
+
+    /** Rebuilds the index from the segments on disk and starts a new active segment. */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<long[]> ranges = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP)) {
+                    Files.deleteIfExists(file);   // an unfinished compaction; its inputs are still there
+                    continue;
+                }
+                if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) continue;
+                String[] bounds = name.substring(PREFIX.length(), name.length() - SUFFIX.length()).split("-");
+                if (bounds.length != 2) continue;
+                ranges.add(new long[]{Long.parseLong(bounds[0]), Long.parseLong(bounds[1])});
+            }
+        }
+        // A compacted file supersedes every segment inside its range (left over if we crashed before deleting them).
+        List<long[]> kept = new ArrayList<>();
+        for (long[] r : ranges) {
+            boolean covered = false;
+            for (long[] other : ranges) {
+                if (other != r && other[0] <= r[0] && r[1] <= other[1]) covered = true;
+            }
+            if (covered) Files.deleteIfExists(segmentPath(r[0], r[1]));
+            else kept.add(r);
+        }
+        kept.sort(Comparator.comparingLong(r -> r[1]));
+
+        long next = 1;
+        for (long[] r : kept) {
+            Segment s = map(r[0], r[1], segmentPath(r[0], r[1]), FileChannel.MapMode.READ_ONLY, -1);
+            scan(s);
+            sealed.add(s);
+            next = r[1] + 1;
+        }
+        active = create(next, segmentBytes);
+        System.out.println("--- [STORE] Opened " + directory + ": " + index.size() + " keys in " + sealed.size() + " segments ---");
+    }
+
+    private void scan(Segment s) {
+        MappedByteBuffer m = s.map;
+        int pos = 0;
+        while (pos + HEADER <= m.capacity()) {
+            int keyLength = m.getInt(pos + 4);
+            int valueLength = m.getInt(pos + 8);
+            if (keyLength == 0) break;
+            if (keyLength < 0 || valueLength < DELETED
+                    || (long) pos + HEADER + keyLength + Math.max(valueLength, 0) > m.capacity()
+                    || m.getInt(pos) != checksum(m, pos, keyLength, valueLength)) {
+                System.out.println("--- [STORE] Ignoring torn record at " + s.path.getFileName() + ":" + pos + " ---");
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            m.get(pos + HEADER, key);
+            index(s, pos, new String(key, StandardCharsets.UTF_8), keyLength, valueLength);
+            pos += HEADER + keyLength + Math.max(valueLength, 0);
+        }
+        s.end = pos;
+    }
+
+    public byte[] get(String key) {
+        Location loc = index.get(key);
+        if (loc == null) return null;
+        byte[] value = new byte[loc.valueLength()];
+        loc.segment().map.get(loc.offset() + HEADER + loc.keyLength(), value);
+        return value;
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public void put(String key, byte[] value) {
+        putAll(Map.of(key, value));
+    }
+
+    /** Appends all entries, then syncs once when {@code syncWrites} is on. */
+    public synchronized void putAll(Map<String, byte[]> entries) {
+        for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+            append(e.getKey(), Objects.requireNonNull(e.getValue(), "value"));
+        }
+        if (syncWrites) active.map.force();
+    }
+
+    public synchronized void delete(String key) {
+        if (!index.containsKey(key)) return;
+        append(key, null);
+        if (syncWrites) active.map.force();
+    }
+
+    /** Every live key with its value, in no particular order. */
+    public void forEach(BiConsumer<String, byte[]> action) {
+        for (String key : index.keySet()) {
+            byte[] value = get(key);
+            if (value != null) action.accept(key, value);
+        }
+    }
+
+    /** A snapshot of the live keys. */
+    public List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private void append(String key, byte[] value) {
+        if (key == null || key.isEmpty()) throw new IllegalArgumentException("Store keys must not be empty.");
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == null ? DELETED : value.length;
+        int size = HEADER + k.length + (value == null ? 0 : value.length);
+        if ((long) active.end + size > active.map.capacity()) roll(size);
+
+        MappedByteBuffer m = active.map;
+        int offset = active.end;
+        m.putInt(offset + 4, k.length);
+        m.putInt(offset + 8, valueLength);
+        m.put(offset + HEADER, k);
+        if (value != null) m.put(offset + HEADER + k.length, value);
+        m.putInt(offset, checksum(m, offset, k.length, valueLength));
+        active.end = offset + size;
+        index(active, offset, key, k.length, valueLength);
+    }
+
+    // Points the key at the record just read or written and charges whatever it replaces as dead space.
+    private void index(Segment s, int offset, String key, int keyLength, int valueLength) {
+        Location previous;
+        if (valueLength == DELETED) {
+            previous = index.remove(key);
+            s.dead.addAndGet(HEADER + keyLength);
+        } else {
+            previous = index.put(key, new Location(s, offset, keyLength, valueLength));
+        }
+        if (previous != null) previous.segment().dead.addAndGet(previous.size());
+    }
+
+    private static int checksum(ByteBuffer m, int offset, int keyLength, int valueLength) {
+        CRC32C crc = new CRC32C();
+        crc.update(m.slice(offset + 4, HEADER - 4 + keyLength + Math.max(valueLength, 0)));
+        return (int) crc.getValue();
+    }
+
+    private void roll(int needed) {
+        active.map.force();
+        sealed.add(active);
+        try {
+            active = create(active.last + 1, Math.max(segmentBytes, needed));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start store segment", e);
+        }
+    }
+
+    private Segment create(long id, int capacity) throws IOException {
+        return map(id, id, segmentPath(id, id), FileChannel.MapMode.READ_WRITE, capacity);
+    }
+
+    private static Segment map(long first, long last, Path path, FileChannel.MapMode mode, int capacity) throws IOException {
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new Segment(first, last, path, ch.map(mode, 0, Math.min(ch.size(), Integer.MAX_VALUE)));
+            }
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(first, last, path, ch.map(mode, 0, capacity));
+        }
+    }
+
+    private Path segmentPath(long first, long last) {
+        return directory.resolve(String.format("%s%020d-%020d%s", PREFIX, first, last, SUFFIX));
+    }
+
+    /** Share of the sealed segments' bytes that no longer back a live key. */
+    public synchronized double garbageRatio() {
+        long total = 0, dead = 0;
+        for (Segment s : sealed) {
+            total += s.end;
+            dead += s.dead.get();
+        }
+        return total == 0 ? 0 : (double) dead / total;
+    }
+
+    /**
+     * Rewrites the live records of all sealed segments into one and deletes them. Writers carry on meanwhile;
+     * a key they overwrite during the copy keeps its newer record. Returns whether anything was compacted.
+     */
+    public boolean compact() throws IOException {
+        synchronized (compactLock) {
+            List<Segment> inputs;
+            synchronized (this) {
+                if (sealed.isEmpty()) return false;
+                inputs = new ArrayList<>(sealed);
+            }
+            Set<Segment> inputSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            inputSet.addAll(inputs);
+            List<Map.Entry<String, Location>> live = new ArrayList<>();
+            long bytes = 0, before = 0;
+            for (Map.Entry<String, Location> e : index.entrySet()) {
+                if (inputSet.contains(e.getValue().segment())) {
+                    live.add(Map.entry(e.getKey(), e.getValue()));
+                    bytes += e.getValue().size();
+                }
+            }
+            for (Segment s : inputs) before += s.end;
+            if (bytes > Integer.MAX_VALUE) throw new IllegalStateException("Live data does not fit one segment: " + bytes);
+
+            long first = inputs.get(0).first, last = inputs.get(inputs.size() - 1).last;
+            Path target = segmentPath(first, last);
+            Path temp = target.resolveSibling(target.getFileName() + TEMP);
+            int[] offsets = new int[live.size()];
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                int pos = 0;
+                for (int i = 0; i < live.size(); i++) {
+                    Location loc = live.get(i).getValue();
+                    ByteBuffer record = loc.segment().map.slice(loc.offset(), loc.size());
+                    offsets[i] = pos;
+                    while (record.hasRemaining()) pos += out.write(record);
+                }
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Segment compacted = map(first, last, target, FileChannel.MapMode.READ_ONLY, -1);
+            compacted.end = (int) bytes;
+            for (int i = 0; i < live.size(); i++) {
+                Location old = live.get(i).getValue();
+                Location moved = new Location(compacted, offsets[i], old.keyLength(), old.valueLength());
+                if (!index.replace(live.get(i).getKey(), old, moved)) compacted.dead.addAndGet(moved.size());
+            }
+            synchronized (this) {
+                sealed.removeAll(inputs);
+                sealed.add(0, compacted);
+            }
+            for (Segment s : inputs) {
+                if (!s.path.equals(target)) Files.deleteIfExists(s.path);
+            }
+            System.out.println("--- [STORE] Compacted " + inputs.size() + " segments in " + directory + ": "
+                    + before + " -> " + bytes + " bytes ---");
+            return true;
+        }
+    }
+
+    /** Writes the active segment's dirty pages to disk. */
+    public synchronized void force() {
+        if (active != null) active.map.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+    }
+}
@@ -0,0 +1,13 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.CachedMetadata;
+
+import java.util.Optional;
+
+/** Where the cached schema / list snapshots live. */
+public interface MetadataStore {
+
+    Optional<CachedMetadata> findById(String id);
+
+    CachedMetadata save(CachedMetadata metadata);
+}
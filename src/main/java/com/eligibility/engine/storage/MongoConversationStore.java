@@ -0,0 +1,59 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.repository.ConversationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "mongo", matchIfMissing = true)
+public class MongoConversationStore implements ConversationStore {
+
+    private final ConversationRepository repository;
+
+    public MongoConversationStore(ConversationRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<ConversationState> findById(String id) {
+        Optional<ConversationState> found = repository.findById(id);
+        found.filter(s -> s.getArchivedChunks() > 0)
+                .ifPresent(s -> s.getHistory().addAll(0, repository.archivedHistory(id, s.getArchivedChunks())));
+        return found;
+    }
+
+    @Override
+    public Optional<ConversationState> findWithoutHistory(String id) {
+        return repository.findWithoutHistory(id);
+    }
+
+    @Override
+    public List<ConversationState> findAllWithoutHistory(Collection<String> ids) {
+        return repository.findAllWithoutHistory(ids);
+    }
+
+    @Override
+    public int appendTurns(Collection<ConversationState> states) {
+        return repository.appendTurns(states);
+    }
+
+    @Override
+    public List<String> findIdsWithHistoryOver(int minMessages, int limit) {
+        return repository.findIdsWithHistoryOver(minMessages, limit);
+    }
+
+    @Override
+    public boolean archiveHistory(String id, int keep) {
+        return repository.archiveHistory(id, keep);
+    }
+
+    @Override
+    public List<String> deleteIdleSince(long cutoffEpochMs, int limit) {
+        return repository.deleteIdleSince(cutoffEpochMs, limit);
+    }
+}
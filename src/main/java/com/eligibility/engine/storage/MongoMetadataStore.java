@@ -0,0 +1,29 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.CachedMetadata;
+import com.eligibility.engine.repository.MetadataRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "mongo", matchIfMissing = true)
+public class MongoMetadataStore implements MetadataStore {
+
+    private final MetadataRepository repository;
+
+    public MongoMetadataStore(MetadataRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<CachedMetadata> findById(String id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public CachedMetadata save(CachedMetadata metadata) {
+        return repository.save(metadata);
+    }
+}
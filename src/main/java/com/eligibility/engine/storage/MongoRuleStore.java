@@ -0,0 +1,46 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.repository.FinalizedRuleRepository;
+import com.eligibility.engine.repository.RuleQuery;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "eligibility.storage.backend", havingValue = "mongo", matchIfMissing = true)
+public class MongoRuleStore implements RuleStore {
+
+    private final FinalizedRuleRepository repository;
+
+    public MongoRuleStore(FinalizedRuleRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public FinalizedRuleDoc save(FinalizedRuleDoc doc) {
+        return repository.save(doc);
+    }
+
+    @Override
+    public Optional<FinalizedRuleDoc> findById(String id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findAll() {
+        return repository.findAll();
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findPublishedSince(long sinceEpochMs) {
+        return repository.findByCreatedAtEpochMsGreaterThanEqualOrderByCreatedAtEpochMsAsc(sinceEpochMs);
+    }
+
+    @Override
+    public List<FinalizedRuleDoc> findPage(RuleQuery query) {
+        return repository.findPage(query);
+    }
+}
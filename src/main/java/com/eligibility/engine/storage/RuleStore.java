@@ -0,0 +1,23 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.repository.RuleQuery;
+
+import java.util.List;
+import java.util.Optional;
+
+/** Where published rules live. */
+public interface RuleStore {
+
+    FinalizedRuleDoc save(FinalizedRuleDoc doc);
+
+    Optional<FinalizedRuleDoc> findById(String id);
+
+    List<FinalizedRuleDoc> findAll();
+
+    /** Rules published at or after {@code sinceEpochMs}, oldest first; used by the registry poll. */
+    List<FinalizedRuleDoc> findPublishedSince(long sinceEpochMs);
+
+    /** Up to {@code query.limit()} rules of one catalog page, in {@link RuleQuery} order. */
+    List<FinalizedRuleDoc> findPage(RuleQuery query);
+}
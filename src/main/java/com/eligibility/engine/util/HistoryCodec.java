@@ -0,0 +1,101 @@
+package com.eligibility.engine.util;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed form of archived chat history: a dictionary version byte, then the JSON array of messages deflated
+ * with a preset dictionary. The dictionary holds the message JSON skeleton and the bot's stock replies, so even
+ * a short chunk compresses well. Add a new version rather than editing one; old chunks name the one they used.
+ */
+public final class HistoryCodec {
+
+    public static final int DICTIONARY_VERSION = 1;
+
+    // Deflate finds matches closer to the end of the dictionary more cheaply, so the most frequent text is last.
+    private static final byte[] DICTIONARY_V1 = String.join("",
+            "Could not understand the rule. Try: 'income > 50000 AND NOT in blocked_users'.",
+            "I'm listening. Please describe eligibility criteria (e.g., 'income > 50000').",
+            "An internal error occurred while parsing.",
+            "Finalized and saved.",
+            "Unknown list '", "'. Known lists: [", "Unknown attribute '", "'. Valid: [", "Did you mean: [",
+            "What value should '", "' compare against?", "How should I check '", "'? (e.g., ",
+            "Updated rule with AND condition.", "Updated rule with OR condition.",
+            "I didn't understand that. ",
+            "income > 50000 AND age >= 18 OR NOT in premium_users blocked_users country == ",
+            "Draft rule updated. You can refine it or finalize.",
+            "{\"sender\":\"User\",\"text\":\"", "\",\"timestamp\":17",
+            "{\"sender\":\"Bot\",\"text\":\"Draft rule updated. You can refine it or finalize.\",\"timestamp\":17")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<ChatMessage>> MESSAGES = new TypeReference<>() {};
+
+    private HistoryCodec() {}
+
+    public static byte[] compress(List<ChatMessage> messages) {
+        byte[] json;
+        try {
+            json = MAPPER.writeValueAsBytes(messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode history", e);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary(DICTIONARY_VERSION));
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 16);
+            out.write(DICTIONARY_VERSION);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static List<ChatMessage> decompress(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty history chunk.");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) inflater.setDictionary(dictionary(data[0]));
+                    else if (inflater.needsInput()) throw new IllegalArgumentException("Truncated history chunk.");
+                }
+                out.write(buffer, 0, n);
+            }
+            return MAPPER.readValue(out.toByteArray(), MESSAGES);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt history chunk: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot decode history", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] dictionary(int version) {
+        if (version == 1) return DICTIONARY_V1;
+        throw new IllegalArgumentException("Unknown history dictionary version " + version + ".");
+    }
+}
@@ -3,7 +3,6 @@ package com.eligibility.engine.util;
 import com.eligibility.engine.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class RuleJsonExporter {
 
@@ -18,21 +17,23 @@ public class RuleJsonExporter {
         }
     }
 
-    private static Map<String, Object> toMap(RuleNode node) {
+    private static Map<String, Object> toMap(RuleNode root) {
+        return RuleTraversal.fold(root, RuleJsonExporter::toMap);
+    }
+
+    private static Map<String, Object> toMap(RuleNode node, List<Map<String, Object>> children) {
         Map<String, Object> map = new LinkedHashMap<>();
 
         if (node instanceof LogicalRule) {
             LogicalRule lr = (LogicalRule) node;
             if ("NOT".equalsIgnoreCase(lr.getOperator())) {
                 map.put("op", "NOT");
-                if (!lr.getRules().isEmpty()) {
-                    map.put("child", toMap(lr.getRules().get(0)));
+                if (!children.isEmpty()) {
+                    map.put("child", children.get(0));
                 }
             } else {
                 map.put("op", lr.getOperator());
-                map.put("children", lr.getRules().stream()
-                        .map(RuleJsonExporter::toMap)
-                        .collect(Collectors.toList()));
+                map.put("children", children);
             }
         }
         else if (node instanceof AttributeRule) {
@@ -47,7 +48,7 @@ public class RuleJsonExporter {
             map.put("type", "list");
             map.put("list", lr.getListName());
 
-            map.put("operator", "IN");
+            map.put("operator", lr.isInList() ? "IN" : "NOT IN");
         }
         return map;
     }
@@ -0,0 +1,78 @@
+package com.eligibility.engine.util;
+
+import com.eligibility.engine.model.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the compact published format written by {@link RuleJsonExporter} back into a {@link RuleNode} tree.
+ */
+public class RuleJsonImporter {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public static RuleNode importRule(String json) {
+        try {
+            return fromNode(mapper.readTree(json));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed rule JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /** An object still to be read, and the logical node it becomes a child of ({@code null} for the root). */
+    private record Pending(JsonNode json, LogicalRule parent) {}
+
+    private static RuleNode fromNode(JsonNode root) throws Exception {
+        // Explicit stack, children pushed in reverse so they are read and added in order.
+        Deque<Pending> pending = new ArrayDeque<>();
+        pending.push(new Pending(root, null));
+        RuleNode result = null;
+        while (!pending.isEmpty()) {
+            Pending next = pending.pop();
+            RuleNode node = read(next.json(), pending);
+            if (next.parent() == null) result = node;
+            else next.parent().addRule(node);
+        }
+        return result;
+    }
+
+    /** A leaf in full, or a logical node whose children are pushed onto {@code pending}. */
+    private static RuleNode read(JsonNode node, Deque<Pending> pending) throws Exception {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a rule object.");
+        }
+
+        if (node.has("op")) {
+            LogicalRule lr = new LogicalRule();
+            lr.setOperator(node.get("op").asText());
+            if ("NOT".equalsIgnoreCase(lr.getOperator())) {
+                pending.push(new Pending(node.get("child"), lr));
+            } else {
+                JsonNode children = node.path("children");
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(new Pending(children.get(i), lr));
+                }
+            }
+            return lr;
+        }
+
+        String type = node.path("type").asText();
+        if (type.equals("attr")) {
+            AttributeRule ar = new AttributeRule();
+            ar.setAttribute(node.path("attribute").asText());
+            ar.setOperator(node.path("operator").asText());
+            ar.setValue(mapper.treeToValue(node.get("value"), Object.class));
+            return ar;
+        }
+        if (type.equals("list")) {
+            boolean inList = !"NOT IN".equalsIgnoreCase(node.path("operator").asText("IN"));
+            return new ListRule(node.path("list").asText(), inList);
+        }
+        throw new IllegalArgumentException("Unknown rule node type '" + type + "'.");
+    }
+}
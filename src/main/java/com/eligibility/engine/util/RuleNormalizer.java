@@ -0,0 +1,382 @@
+package com.eligibility.engine.util;
+
+import com.eligibility.engine.model.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Rewrites a draft {@link RuleNode} tree into a smaller equivalent one before validation and export:
+ * <ul>
+ *   <li>nested AND-in-AND / OR-in-OR are flattened into one n-ary node; single-child nodes collapse</li>
+ *   <li>NOT is pushed through AND / OR (De Morgan) and {@code NOT IN list} becomes {@code ListRule.inList=false};
+ *       a negated comparison keeps its NOT, because a user missing the attribute fails {@code age > 18} and
+ *       {@code age <= 18} alike, so {@code NOT (age > 18)} holds for them while {@code age <= 18} does not</li>
+ *   <li>duplicate siblings (same operator, attribute and typed value) are removed and numeric bounds on one attribute are merged
+ *       ({@code income > 50000 AND income > 60000} becomes {@code income > 60000})</li>
+ *   <li>siblings that can never hold together (AND) are reported as contradictions and such an AND
+ *       is dropped from an enclosing OR; siblings that always hold (OR) are reported as tautologies but kept,
+ *       since a user missing the attribute still fails every comparison on it</li>
+ * </ul>
+ * The input tree is never modified.
+ */
+public class RuleNormalizer {
+
+    public record Result(RuleNode rule, List<String> contradictions, List<String> tautologies) {
+        /** The whole rule can never match. */
+        public boolean unsatisfiable() {
+            return !contradictions.isEmpty() && contradictions.get(0).startsWith(NEVER_MATCHES);
+        }
+    }
+
+    static final String NEVER_MATCHES = "Rule can never match: ";
+
+    private record Normalized(RuleNode node, boolean never) {}
+
+    // Structural identity of a normalized node. Children are referenced by id, so building and hashing a key
+    // costs O(children) rather than O(subtree).
+    private record LeafKey(String attribute, String operator, Object value) {}
+    private record ListKey(String listName, boolean inList) {}
+    private record GroupKey(String operator, List<Integer> children) {}
+
+    private final List<String> contradictions = new ArrayList<>();
+    private final List<String> tautologies = new ArrayList<>();
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final Map<RuleNode, Integer> idOf = new IdentityHashMap<>();
+
+    private RuleNormalizer() {}
+
+    public static Result normalize(RuleNode root) {
+        if (root == null) {
+            return new Result(null, List.of(), List.of());
+        }
+        RuleNormalizer n = new RuleNormalizer();
+        Normalized out = n.visit(root, false);
+        if (out.never()) {
+            n.contradictions.add(0, NEVER_MATCHES + out.node());
+        }
+        return new Result(out.node(), List.copyOf(n.contradictions), List.copyOf(n.tautologies));
+    }
+
+    /** An AND / OR being normalized: its remaining children, and the ones flattened and deduped so far. */
+    private static final class Group {
+        final boolean and;
+        final boolean negated;
+        final List<RuleNode> rules;
+        int next;
+        final LinkedHashMap<Integer, RuleNode> children = new LinkedHashMap<>();
+        RuleNode dead;
+
+        Group(boolean and, boolean negated, List<RuleNode> rules) {
+            this.and = and;
+            this.negated = negated;
+            this.rules = rules == null ? List.of() : rules;
+        }
+    }
+
+    // Runs on an explicit stack of open groups, so a deep draft (e.g. a long chain of NOTs) cannot overflow the
+    // thread's stack.
+    private Normalized visit(RuleNode root, boolean rootNegated) {
+        Deque<Group> open = new ArrayDeque<>();
+        RuleNode node = root;
+        boolean negated = rootNegated;
+        while (true) {
+            Normalized done = null;
+            while (node instanceof LogicalRule lr && lr.isUnaryNot()) {
+                if (lr.getRules() == null || lr.getRules().isEmpty()) {
+                    throw new IllegalArgumentException("NOT without a child.");
+                }
+                node = lr.getRules().get(0);
+                negated = !negated;
+            }
+            if (node instanceof LogicalRule lr) {
+                boolean and = "AND".equalsIgnoreCase(lr.getOperator());
+                if (!and && !"OR".equalsIgnoreCase(lr.getOperator())) {
+                    throw new IllegalArgumentException("Unknown logical operator '" + lr.getOperator() + "'.");
+                }
+                open.push(new Group(negated != and, negated, lr.getRules()));
+            } else {
+                done = leaf(node, negated);
+            }
+
+            // Hand results up until a group has another child to visit; a never-matching child decides an AND.
+            while (true) {
+                Group g = open.peek();
+                if (done != null) {
+                    if (g == null) return done;
+                    if (add(g, done)) {
+                        open.pop();
+                        continue;
+                    }
+                }
+                if (g.next < g.rules.size()) {
+                    node = g.rules.get(g.next++);
+                    negated = g.negated;
+                    break;
+                }
+                open.pop();
+                done = finish(g);
+            }
+        }
+    }
+
+    private Normalized leaf(RuleNode node, boolean negated) {
+        if (node instanceof ListRule lr) {
+            return new Normalized(keyed(new ListRule(lr.getListName(), lr.isInList() != negated)), false);
+        }
+        if (node instanceof AttributeRule ar) {
+            RuleNode copy = keyed(copy(ar));
+            if (negated) copy = keyed(new LogicalRule("NOT", new ArrayList<>(List.of(copy))));
+            return new Normalized(copy, false);
+        }
+        throw new IllegalArgumentException("Unsupported rule node: " + node);
+    }
+
+    /** Flattens and dedupes one child into {@code g}; {@code true} when it decides the group (see {@link #visit}). */
+    private boolean add(Group g, Normalized n) {
+        if (n.never()) {
+            if (g.and) return true;
+            g.dead = n.node();
+            return false;
+        }
+        String op = g.and ? "AND" : "OR";
+        if (n.node() instanceof LogicalRule inner && op.equalsIgnoreCase(inner.getOperator())) {
+            for (RuleNode grandChild : inner.getRules()) g.children.putIfAbsent(idOf.get(grandChild), grandChild);
+        } else {
+            g.children.putIfAbsent(idOf.get(n.node()), n.node());
+        }
+        return false;
+    }
+
+    private Normalized finish(Group g) {
+        boolean and = g.and;
+        String op = and ? "AND" : "OR";
+        LinkedHashMap<Integer, RuleNode> children = g.children;
+        if (children.isEmpty()) {
+            if (g.dead != null) return new Normalized(g.dead, true);
+            throw new IllegalArgumentException(op + " without children.");
+        }
+
+        List<RuleNode> original = new ArrayList<>(children.values());
+
+        // IN x together with NOT IN x.
+        Set<String> listKeys = new HashSet<>();
+        for (RuleNode child : original) {
+            if (child instanceof ListRule lr) {
+                listKeys.add(lr.isInList() + ":" + lr.getListName().toLowerCase());
+                if (listKeys.contains(!lr.isInList() + ":" + lr.getListName().toLowerCase())) {
+                    return decided(and, original);
+                }
+            }
+        }
+
+        // Merge comparisons per attribute, keeping each attribute at the position of its first comparison.
+        LinkedHashMap<String, Bounds> byAttribute = new LinkedHashMap<>();
+        List<Object> slots = new ArrayList<>();
+        for (RuleNode child : original) {
+            if (child instanceof AttributeRule ar && Bounds.handles(ar)) {
+                String key = ar.getAttribute().toLowerCase();
+                Bounds b = byAttribute.get(key);
+                if (b == null) {
+                    b = new Bounds();
+                    byAttribute.put(key, b);
+                    slots.add(b);
+                }
+                b.add(ar);
+            } else {
+                slots.add(child);
+            }
+        }
+
+        List<RuleNode> merged = new ArrayList<>();
+        for (Object slot : slots) {
+            if (slot instanceof Bounds b) {
+                List<AttributeRule> kept = and ? b.conjunction() : b.disjunction();
+                if (kept == null) {
+                    return decided(and, original);
+                }
+                merged.addAll(kept);
+            } else {
+                merged.add((RuleNode) slot);
+            }
+        }
+
+        if (merged.size() == 1) {
+            return new Normalized(merged.get(0), false);
+        }
+        return new Normalized(keyed(new LogicalRule(op, merged)), false);
+    }
+
+    private Normalized decided(boolean and, List<RuleNode> original) {
+        String op = and ? "AND" : "OR";
+        RuleNode node = original.size() == 1 ? original.get(0) : keyed(new LogicalRule(op, original));
+        if (and) {
+            contradictions.add("Contradiction: " + node + " can never hold.");
+        } else {
+            tautologies.add("Tautology: " + node + " always holds.");
+        }
+        return new Normalized(node, and);
+    }
+
+    /** Registers the structural id of a node whose children are already keyed, and returns the node. */
+    private RuleNode keyed(RuleNode node) {
+        Object key;
+        if (node instanceof AttributeRule ar) {
+            key = new LeafKey(ar.getAttribute(), ar.getOperator(), typed(ar.getValue()));
+        } else if (node instanceof ListRule lr) {
+            key = new ListKey(lr.getListName(), lr.isInList());
+        } else {
+            LogicalRule lr = (LogicalRule) node;
+            List<Integer> children = new ArrayList<>(lr.getRules().size());
+            for (RuleNode child : lr.getRules()) children.add(idOf.get(child));
+            key = new GroupKey(lr.getOperator().toUpperCase(Locale.ROOT), children);
+        }
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+        }
+        idOf.put(node, id);
+        return node;
+    }
+
+    // Numbers compare by value whatever their boxed type (18 and 18.0 are one key); a string never equals a number.
+    private static Object typed(Object value) {
+        if (value instanceof Number n) {
+            try {
+                return new BigDecimal(n.toString()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                return n.doubleValue();   // NaN and infinities
+            }
+        }
+        if (value instanceof Collection<?> c) {
+            List<Object> out = new ArrayList<>(c.size());
+            for (Object o : c) out.add(typed(o));
+            return out;
+        }
+        return value;
+    }
+
+    private static AttributeRule copy(AttributeRule ar) {
+        AttributeRule copy = new AttributeRule();
+        copy.setAttribute(ar.getAttribute());
+        copy.setOperator(ar.getOperator());
+        copy.setValue(ar.getValue());
+        return copy;
+    }
+
+    /** All ==, !=, and numeric ordering comparisons on one attribute inside one AND / OR. */
+    private static final class Bounds {
+        final List<AttributeRule> lowers = new ArrayList<>();   // > or >=
+        final List<AttributeRule> uppers = new ArrayList<>();   // < or <=
+        final List<AttributeRule> equal = new ArrayList<>();
+        final List<AttributeRule> notEqual = new ArrayList<>();
+
+        static boolean handles(AttributeRule ar) {
+            String op = ar.getOperator();
+            if ("==".equals(op) || "=".equals(op) || "!=".equals(op)) return !(ar.getValue() instanceof Collection);
+            return (">".equals(op) || ">=".equals(op) || "<".equals(op) || "<=".equals(op)) && ar.getValue() instanceof Number;
+        }
+
+        void add(AttributeRule ar) {
+            String op = ar.getOperator();
+            if (op.startsWith(">")) lowers.add(ar);
+            else if (op.startsWith("<")) uppers.add(ar);
+            else if (op.equals("!=")) notEqual.add(ar);
+            else equal.add(ar);
+        }
+
+        /** Kept comparisons for an AND, or {@code null} when they cannot all hold. */
+        List<AttributeRule> conjunction() {
+            AttributeRule lo = pick(lowers, true, true), hi = pick(uppers, false, true);
+            if (!equal.isEmpty()) {
+                AttributeRule eq = equal.get(0);
+                for (AttributeRule other : equal) if (!sameValue(eq, other)) return null;
+                for (AttributeRule ne : notEqual) if (sameValue(eq, ne)) return null;
+                if (!(eq.getValue() instanceof Number)) return lo == null && hi == null ? List.of(eq) : null;
+                if (lo != null && !satisfies(num(eq), lo)) return null;
+                if (hi != null && !satisfies(num(eq), hi)) return null;
+                return List.of(eq);
+            }
+            if (lo != null && hi != null) {
+                int cmp = Double.compare(num(lo), num(hi));
+                if (cmp > 0 || (cmp == 0 && (strict(lo) || strict(hi)))) return null;
+            }
+            List<AttributeRule> kept = bounds(lo, hi);
+            for (AttributeRule ne : notEqual) {
+                boolean inRange = !(ne.getValue() instanceof Number)
+                        || ((lo == null || satisfies(num(ne), lo)) && (hi == null || satisfies(num(ne), hi)));
+                if (inRange && kept.stream().noneMatch(k -> k.getOperator().equals("!=") && sameValue(k, ne))) kept.add(ne);
+            }
+            return kept;
+        }
+
+        /** Kept comparisons for an OR, or {@code null} when together they always hold. */
+        List<AttributeRule> disjunction() {
+            AttributeRule lo = pick(lowers, true, false), hi = pick(uppers, false, false);
+            if (lo != null && hi != null) {
+                int cmp = Double.compare(num(lo), num(hi));
+                if (cmp < 0 || (cmp == 0 && !(strict(lo) && strict(hi)))) return null;
+            }
+            for (AttributeRule ne : notEqual) {
+                for (AttributeRule other : notEqual) if (!sameValue(ne, other)) return null;
+                for (AttributeRule eq : equal) if (sameValue(eq, ne)) return null;
+                if (ne.getValue() instanceof Number
+                        && ((lo != null && satisfies(num(ne), lo)) || (hi != null && satisfies(num(ne), hi)))) return null;
+            }
+            List<AttributeRule> kept = bounds(lo, hi);
+            for (AttributeRule eq : equal) {
+                boolean covered = eq.getValue() instanceof Number
+                        && ((lo != null && satisfies(num(eq), lo)) || (hi != null && satisfies(num(eq), hi)));
+                if (!covered && kept.stream().noneMatch(k -> k.getOperator().startsWith("=") && sameValue(k, eq))) kept.add(eq);
+            }
+            if (!notEqual.isEmpty()) kept.add(notEqual.get(0));
+            return kept;
+        }
+
+        private static List<AttributeRule> bounds(AttributeRule lo, AttributeRule hi) {
+            List<AttributeRule> kept = new ArrayList<>();
+            if (lo != null) kept.add(lo);
+            if (hi != null) kept.add(hi);
+            return kept;
+        }
+
+        /** The most ({@code tightest}) or least restrictive bound of one side. */
+        private static AttributeRule pick(List<AttributeRule> side, boolean lower, boolean tightest) {
+            AttributeRule best = null;
+            for (AttributeRule ar : side) {
+                if (best == null) { best = ar; continue; }
+                int cmp = Double.compare(num(ar), num(best));
+                if (!lower) cmp = -cmp;
+                if (cmp == 0) cmp = Boolean.compare(strict(ar), strict(best));
+                if (tightest ? cmp > 0 : cmp < 0) best = ar;
+            }
+            return best;
+        }
+
+        private static boolean satisfies(double v, AttributeRule bound) {
+            double c = num(bound);
+            switch (bound.getOperator()) {
+                case ">": return v > c;
+                case ">=": return v >= c;
+                case "<": return v < c;
+                default: return v <= c;
+            }
+        }
+
+        private static boolean strict(AttributeRule ar) {
+            return ar.getOperator().length() == 1;
+        }
+
+        private static double num(AttributeRule ar) {
+            return ((Number) ar.getValue()).doubleValue();
+        }
+
+        private static boolean sameValue(AttributeRule a, AttributeRule b) {
+            if (a.getValue() instanceof Number x && b.getValue() instanceof Number y) {
+                return Double.compare(x.doubleValue(), y.doubleValue()) == 0;
+            }
+            return Objects.equals(a.getValue(), b.getValue());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.eligibility.engine.util;
+
+import java.util.*;
+
+/**
+ * BK-tree over a fixed set of names for "did you mean" suggestions.
+ * Every child edge holds the edit distance to its parent, so a lookup within distance {@code k} of a node at
+ * distance {@code d} only descends edges in {@code [d - k, d + k]}. Distances are computed with two reused rows
+ * and stop as soon as they exceed what the node could still need, so a typo visits a small part of the tree
+ * and allocates little beyond its result.
+ * <p>
+ * Built once per schema snapshot; immutable and safe to share afterwards.
+ */
+public final class SuggestionIndex {
+
+    private static final int NONE = -1;
+
+    private final String[] terms;
+    private final int[] edge;        // distance to the parent
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] maxChildEdge;
+
+    private SuggestionIndex(int n) {
+        terms = new String[n];
+        edge = new int[n];
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        maxChildEdge = new int[n];
+        Arrays.fill(firstChild, NONE);
+        Arrays.fill(nextSibling, NONE);
+    }
+
+    public static SuggestionIndex of(Collection<String> names) {
+        // Sorted input makes the tree, and so the visiting order, independent of the collection's iteration order.
+        String[] sorted = new TreeSet<>(names).toArray(new String[0]);
+        SuggestionIndex index = new SuggestionIndex(sorted.length);
+        int size = 0;
+        for (String term : sorted) {
+            index.insert(size++, term);
+        }
+        return index;
+    }
+
+    private void insert(int id, String term) {
+        terms[id] = term;
+        if (id == 0) return;
+        int node = 0;
+        int[][] rows = rows(term.length());
+        while (true) {
+            int d = distance(term, terms[node], Math.max(term.length(), terms[node].length()), rows);
+            int child = firstChild[node];
+            while (child != NONE && edge[child] != d) child = nextSibling[child];
+            if (child == NONE) {
+                edge[id] = d;
+                nextSibling[id] = firstChild[node];
+                firstChild[node] = id;
+                maxChildEdge[node] = Math.max(maxChildEdge[node], d);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /** Up to {@code limit} names within {@code maxDistance} edits of {@code term}, closest first, then by name. */
+    public List<String> suggest(String term, int maxDistance, int limit) {
+        if (terms.length == 0 || limit <= 0) return List.of();
+        int[][] rows = rows(term.length());
+        List<long[]> hits = new ArrayList<>(); // {distance, id}
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            // Beyond maxChildEdge + maxDistance no child can qualify, so the exact value is not needed.
+            int bound = Math.max(maxDistance, maxChildEdge[node] + maxDistance);
+            int d = distance(term, terms[node], bound, rows);
+            if (d <= maxDistance) hits.add(new long[]{d, node});
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (Math.abs(edge[child] - d) <= maxDistance) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = child;
+                }
+            }
+        }
+        hits.sort(Comparator.<long[]>comparingLong(h -> h[0]).thenComparing(h -> terms[(int) h[1]]));
+        List<String> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) out.add(terms[(int) hits.get(i)[1]]);
+        return out;
+    }
+
+    private static int[][] rows(int length) {
+        return new int[][]{new int[length + 1], new int[length + 1]};
+    }
+
+    /** Levenshtein distance of {@code a} and {@code b}, or {@code bound + 1} once it is known to exceed {@code bound}. */
+    static int distance(String a, String b, int bound, int[][] rows) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > bound) return bound + 1;
+        int[] prev = rows[0], cur = rows[1];
+        for (int i = 0; i <= n; i++) prev[i] = i;
+        for (int j = 1; j <= m; j++) {
+            cur[0] = j;
+            int rowMin = j;
+            char cb = b.charAt(j - 1);
+            for (int i = 1; i <= n; i++) {
+                int cost = a.charAt(i - 1) == cb ? 0 : 1;
+                int v = Math.min(Math.min(prev[i] + 1, cur[i - 1] + 1), prev[i - 1] + cost);
+                cur[i] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (rowMin > bound) return bound + 1;
+            int[] t = prev; prev = cur; cur = t;
+        }
+        return Math.min(prev[n], bound + 1);
+    }
+}
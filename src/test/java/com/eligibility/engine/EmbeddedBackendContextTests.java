@@ -0,0 +1,45 @@
+package com.eligibility.engine;
+
+import com.eligibility.engine.storage.ConversationStore;
+import com.eligibility.engine.storage.EmbeddedConversationStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// No Mongo is running for this test: the URI points at a closed port and nothing may try to reach it.
+@SpringBootTest(properties = {
+		"eligibility.storage.backend=embedded",
+		"spring.data.mongodb.uri=mongodb://localhost:1/unreachable"
+})
+class EmbeddedBackendContextTests {
+
+	@TempDir
+	static Path dir;
+
+	@DynamicPropertySource
+	static void dirs(DynamicPropertyRegistry registry) {
+		registry.add("eligibility.storage.embedded.dir", () -> dir.resolve("store").toString());
+		registry.add("eligibility.sessions.wal.dir", () -> dir.resolve("wal").toString());
+		registry.add("eligibility.lists.dir", () -> dir.resolve("lists").toString());
+	}
+
+	@Autowired
+	ApplicationContext context;
+
+	@Test
+	void startsWithoutMongo() {
+		assertInstanceOf(EmbeddedConversationStore.class, context.getBean(ConversationStore.class));
+		assertTrue(context.getBeansOfType(MongoTemplate.class).isEmpty());
+		assertFalse(context.containsBean("connectionPoolLimits"));
+	}
+
+}
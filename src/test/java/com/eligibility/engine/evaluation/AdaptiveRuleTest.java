@@ -0,0 +1,116 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.service.SchemaServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRuleTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")))));
+
+    /** Fake nanosecond clock; only the facts below advance it, so measured costs are exact. */
+    private final long[] now = new long[1];
+
+    /** Facts whose list lookups take 20 us on {@link #now} and are counted. */
+    class SlowListFacts extends MapUserFacts {
+        int listLookups;
+
+        SlowListFacts(int age) {
+            super(Map.of("age", age), List.of("premium_users"));
+        }
+
+        @Override
+        public boolean inList(String listName) {
+            listLookups++;
+            now[0] += 20_000;
+            return super.inList(listName);
+        }
+    }
+
+    /** Facts whose attribute reads all take the same time, so ordering depends on selectivity alone. */
+    class SlowAttributeFacts extends MapUserFacts {
+        SlowAttributeFacts(int age) {
+            super(Map.of("age", age), null);
+        }
+
+        @Override
+        public long longValue(String attribute) {
+            now[0] += 2_000;
+            return super.longValue(attribute);
+        }
+    }
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    @Test
+    void movesCheapSelectiveConditionAheadOfExpensiveLookup() {
+        LogicalRule and = new LogicalRule("AND", new ArrayList<>(List.of(
+                new ListRule("premium_users", true),
+                attr("age", "<", 18))));
+        AdaptiveRule rule = new AdaptiveRule(compiler.compile("r", and), 1, () -> now[0]);
+        assertEquals("(IN premium_users AND age < 18)", rule.plan());
+
+        SlowListFacts adult = new SlowListFacts(40);
+        for (int i = 0; i < 50; i++) assertFalse(rule.test(adult));
+        rule.replan();
+        assertEquals("(age < 18 AND IN premium_users)", rule.plan());
+
+        AdaptiveRule unsampled = new AdaptiveRule(compiler.compile("r", and), Integer.MAX_VALUE, () -> now[0]);
+        SlowListFacts fresh = new SlowListFacts(40);
+        unsampled.test(fresh);
+        assertEquals(1, fresh.listLookups);
+    }
+
+    @Test
+    void orPrefersLikelyTrueChildAndKeepsResults() {
+        LogicalRule or = new LogicalRule("OR", new ArrayList<>(List.of(
+                attr("age", "<", 18),
+                attr("age", ">", 10))));
+        AdaptiveRule rule = new AdaptiveRule(compiler.compile("r", or), 1, () -> now[0]);
+        for (int age = 0; age < 100; age++) {
+            assertEquals(age < 18 || age > 10, rule.test(new SlowAttributeFacts(age)));
+        }
+        rule.replan();
+        assertEquals("(age > 10 OR age < 18)", rule.plan());
+        for (int age = 0; age < 100; age++) {
+            assertEquals(age < 18 || age > 10, rule.test(new MapUserFacts(Map.of("age", age), null)));
+        }
+    }
+
+    @Test
+    void leavesReadCompatibleProfilesByOrdinal() {
+        SchemaServiceImpl schema = new SchemaServiceImpl();
+        schema.applySnapshot(Map.of(
+                "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+                "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+                "score", new AttributeDef("score", "Number", Set.of(">", "<", ">=", "<=", "==", "!=")),
+                "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")),
+                "is_verified", new AttributeDef("is_verified", "Boolean", Set.of("==", "!="))),
+                Set.of("premium_users", "blocked_users"));
+        RuleCompiler bound = new RuleCompiler(schema);
+        Random r = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            CompiledRule compiled = bound.compile("r" + i, RuleMatchIndexTest.randomRule(r, 3));
+            AdaptiveRule measured = new AdaptiveRule(compiled, 1, () -> now[0]);
+            AdaptiveRule planned = new AdaptiveRule(compiled, Integer.MAX_VALUE, () -> now[0]);
+            for (int u = 0; u < 20; u++) {
+                UserProfile profile = UserProfile.of(schema.layout(), RuleMatchIndexTest.randomAttributes(r),
+                        RuleMatchIndexTest.randomLists(r), null, null);
+                boolean expected = compiled.root().test(profile);
+                assertEquals(expected, measured.test(profile), compiled.root().toString());
+                assertEquals(expected, planned.test(profile), compiled.root().toString());
+            }
+        }
+    }
+}
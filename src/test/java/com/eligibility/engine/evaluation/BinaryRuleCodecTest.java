@@ -0,0 +1,93 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRuleCodecTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "score", new AttributeDef("score", "Number", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")),
+            "is_verified", new AttributeDef("is_verified", "Boolean", Set.of("==", "!=")))));
+
+    @Test
+    void binaryEvaluationAndDecodingMatchTheCompiledRule() {
+        Random r = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            CompiledRule rule = compiler.compile("r" + i, RuleMatchIndexTest.randomRule(r, 3));
+            byte[] bytes = BinaryRuleCodec.encode(rule);
+
+            CompiledRule decoded = BinaryRuleCodec.decode("r" + i, bytes);
+            assertEquals(rule.root(), decoded.root());
+            assertEquals(rule.attributes(), decoded.attributes());
+            assertEquals(rule.lists(), decoded.lists());
+
+            BinaryRule binary = BinaryRule.wrap(ByteBuffer.wrap(bytes));
+            for (int u = 0; u < 30; u++) {
+                UserFacts user = RuleMatchIndexTest.randomUser(r);
+                assertEquals(rule.test(user), binary.test(user), rule.root().toString());
+            }
+        }
+    }
+
+    @Test
+    void readsFromAnOffsetInASharedBufferAndRejectsGarbage() {
+        CompiledRule rule = compiler.compile("r", RuleMatchIndexTest.randomRule(new Random(3), 3));
+        byte[] bytes = BinaryRuleCodec.encode(rule);
+        ByteBuffer shared = ByteBuffer.allocateDirect(bytes.length + 10);
+        shared.position(10);
+        shared.put(bytes);
+        shared.position(10);
+
+        BinaryRule binary = BinaryRule.wrap(shared);
+        UserFacts user = RuleMatchIndexTest.randomUser(new Random(4));
+        assertEquals(rule.test(user), binary.test(user));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryRule.wrap(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    @Test
+    void rejectsMoreChildrenThanTheCountFieldHolds() {
+        List<RuleNode> leaves = new ArrayList<>();
+        for (int i = 0; i < 0x10000; i++) {
+            AttributeRule ar = new AttributeRule();
+            ar.setAttribute("income");
+            ar.setOperator(">");
+            ar.setValue(i);
+            leaves.add(ar);
+        }
+        CompiledRule wide = compiler.compile("w", new LogicalRule("OR", leaves));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryRuleCodec.encode(wide));
+        CompiledRule fits = compiler.compile("f", new LogicalRule("OR", new ArrayList<>(leaves.subList(0, 0xFFFF))));
+        assertEquals(fits.root(), BinaryRuleCodec.decode("f", BinaryRuleCodec.encode(fits)).root());
+    }
+
+    @Test
+    void deepTreesAreWalkedOnAnExplicitStack() {
+        // Deeper than the compiler accepts, so built directly: 100001 NOTs around (age > 18 AND NOT IN vip).
+        CompiledPredicate p = new CompiledPredicate.And(new CompiledPredicate[]{
+                new CompiledPredicate.LongComparison("age", -1, Operator.GT, 18),
+                new CompiledPredicate.ListMembership("vip", false)});
+        for (int i = 0; i < 100_001; i++) p = new CompiledPredicate.Not(p);
+        CompiledRule rule = new CompiledRule("deep", p, Set.of("age"), Set.of("vip"));
+        UserFacts adult = new MapUserFacts(Map.of("age", 30), List.of());
+        UserFacts minor = new MapUserFacts(Map.of("age", 10), List.of());
+
+        byte[] bytes = BinaryRuleCodec.encode(rule);
+        assertArrayEquals(bytes, BinaryRuleCodec.encode(BinaryRuleCodec.decode("deep", bytes)));
+        BinaryRule binary = BinaryRule.wrap(ByteBuffer.wrap(bytes));
+        assertFalse(binary.test(adult));
+        assertTrue(binary.test(minor));
+
+        assertEquals(2, RuleMatchIndex.toDnf(p, false, RuleMatchIndex.MAX_CONJUNCTIONS_PER_RULE).size());
+        assertNotEquals(FactFingerprint.of(rule).key("deep", 1, adult), FactFingerprint.of(rule).key("deep", 1, minor));
+    }
+}
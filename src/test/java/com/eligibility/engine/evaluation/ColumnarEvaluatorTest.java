@@ -0,0 +1,92 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarEvaluatorTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")))));
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private static LogicalRule logical(String op, RuleNode... children) {
+        return new LogicalRule(op, new ArrayList<>(List.of(children)));
+    }
+
+    @Test
+    void matchesRowAtATimeEvaluation() {
+        int rows = 1000;
+        Random random = new Random(42);
+        int[] income = new int[rows];
+        long[] age = new long[rows];
+        String[] city = new String[rows];
+        long[] agePresent = new long[ColumnarBatch.wordCount(rows)];
+        long[] blocked = new long[ColumnarBatch.wordCount(rows)];
+        String[] cities = {"Austin", "Boston", "Denver", null};
+
+        List<UserFacts> users = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            income[i] = random.nextInt(100_000);
+            age[i] = random.nextInt(80);
+            city[i] = cities[random.nextInt(cities.length)];
+            boolean hasAge = random.nextInt(10) != 0;
+            boolean isBlocked = random.nextInt(5) == 0;
+            if (hasAge) agePresent[i >>> 6] |= 1L << i;
+            if (isBlocked) blocked[i >>> 6] |= 1L << i;
+
+            Map<String, Object> attrs = new HashMap<>();
+            attrs.put("income", income[i]);
+            if (hasAge) attrs.put("age", age[i]);
+            if (city[i] != null) attrs.put("city", city[i]);
+            users.add(new MapUserFacts(attrs, isBlocked ? List.of("blocked_users") : List.of()));
+        }
+
+        ColumnarBatch batch = ColumnarBatch.builder(rows)
+                .intColumn("income", income, null)
+                .longColumn("age", age, agePresent)
+                .stringColumn("city", city)
+                .listMembers("blocked_users", blocked)
+                .build();
+
+        List<RuleNode> rules = List.of(
+                attr("income", ">", 50000),
+                attr("age", "!=", 30),
+                logical("NOT", attr("age", "<", 18)),
+                logical("AND", attr("income", ">=", 20000), logical("NOT", new ListRule("blocked_users", true))),
+                logical("OR", attr("city", "==", "Austin"), attr("city", "IN", List.of("Denver")), attr("age", "<=", 21.5)),
+                logical("AND", attr("city", "!=", "Boston"), new ListRule("blocked_users", false)));
+
+        for (RuleNode node : rules) {
+            CompiledRule rule = compiler.compile(null, node);
+            BitSet result = ColumnarEvaluator.evaluate(rule, batch);
+            int expectedCount = 0;
+            for (int i = 0; i < rows; i++) {
+                boolean expected = rule.test(users.get(i));
+                if (expected) expectedCount++;
+                assertEquals(expected, result.get(i), node + " row " + i);
+            }
+            assertEquals(expectedCount, ColumnarEvaluator.count(rule, batch), node.toString());
+        }
+    }
+
+    @Test
+    void missingColumnMatchesNobodyAndNotTailStaysClean() {
+        ColumnarBatch batch = ColumnarBatch.builder(70).build();
+
+        assertEquals(0, ColumnarEvaluator.count(compiler.compile(null, attr("income", ">", 1)), batch));
+        assertEquals(70, ColumnarEvaluator.count(compiler.compile(null, logical("NOT", attr("income", ">", 1))), batch));
+    }
+}
@@ -0,0 +1,87 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionCacheTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")))));
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private CompiledRule rule() {
+        return compiler.compile("r1", new LogicalRule("AND", new ArrayList<>(List.of(
+                attr("age", ">=", 18), attr("city", "==", "Pune"), new ListRule("vip_list", true)))));
+    }
+
+    @Test
+    void keyDependsOnlyOnFactsTheRuleReads() {
+        FactFingerprint fp = FactFingerprint.of(rule());
+
+        DecisionKey a = fp.key("r1", 0, new MapUserFacts(Map.of("age", 30, "city", "Pune", "income", 1), List.of("vip_list")));
+        DecisionKey b = fp.key("r1", 0, new MapUserFacts(Map.of("age", 30, "city", "Pune", "income", 2), List.of("vip_list", "other")));
+        assertEquals(a, b);
+
+        assertNotEquals(a, fp.key("r1", 0, new MapUserFacts(Map.of("age", 31, "city", "Pune"), List.of("vip_list"))));
+        assertNotEquals(a, fp.key("r1", 0, new MapUserFacts(Map.of("age", 30, "city", "Pune"), List.of())));
+        assertNotEquals(a, fp.key("r1", 0, new MapUserFacts(Map.of("age", 30), List.of("vip_list"))));
+        assertNotEquals(a, fp.key("r1", 1, new MapUserFacts(Map.of("age", 30, "city", "Pune"), List.of("vip_list"))));
+        assertNotEquals(fp.key("r1", 0, new MapUserFacts(Map.of("age", 0), null)),
+                fp.key("r1", 0, new MapUserFacts(Map.of(), null)));
+    }
+
+    @Test
+    void expiresAfterTtlAndCountsHits() {
+        AtomicLong now = new AtomicLong(1000);
+        DecisionCache cache = new DecisionCache(100, 50, now::get);
+        DecisionKey key = FactFingerprint.of(rule()).key("r1", 0, new MapUserFacts(Map.of("age", 20), null));
+
+        assertNull(cache.get(key));
+        cache.put(key, true);
+        assertEquals(Boolean.TRUE, cache.get(key));
+        now.addAndGet(50);
+        assertNull(cache.get(key));
+
+        DecisionCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void frequentKeysSurviveAScanOfOneOffKeys() {
+        DecisionCache cache = new DecisionCache(16, 60_000);
+        FactFingerprint fp = FactFingerprint.of(rule());
+        List<DecisionKey> hot = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            DecisionKey k = fp.key("r1", 0, new MapUserFacts(Map.of("age", i), null));
+            hot.add(k);
+            for (int j = 0; j < 5; j++) cache.get(k);
+            cache.put(k, i >= 18);
+        }
+        int cached = cache.size();
+
+        for (int i = 1000; i < 3000; i++) {
+            DecisionKey k = fp.key("r1", 0, new MapUserFacts(Map.of("age", i), null));
+            if (cache.get(k) == null) cache.put(k, true);
+        }
+
+        long hotHits = hot.stream().filter(k -> cache.get(k) != null).count();
+        assertEquals(cached, hotHits);
+        assertTrue(cache.stats().rejections() > 0);
+    }
+}
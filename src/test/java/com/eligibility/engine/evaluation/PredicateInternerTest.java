@@ -0,0 +1,66 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredicateInternerTest {
+
+    private static final Set<String> NUMERIC_OPS = Set.of(">", "<", ">=", "<=", "==", "!=");
+
+    private final PredicateInterner interner = new PredicateInterner();
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "credit_score", new AttributeDef("credit_score", "Integer", NUMERIC_OPS),
+            "income", new AttributeDef("income", "Integer", NUMERIC_OPS),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")))), interner);
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private static RuleNode rule(int income) {
+        return new LogicalRule("AND", new ArrayList<>(List.of(
+                new ListRule("blocked_users", false),
+                attr("credit_score", ">=", 700),
+                attr("city", "IN", List.of("Pune", "Delhi")),
+                attr("income", ">", income))));
+    }
+
+    @Test
+    void identicalSubtreesAcrossRulesAreShared() {
+        CompiledPredicate.And a = (CompiledPredicate.And) compiler.compile("a", rule(50000)).root();
+        CompiledPredicate.And b = (CompiledPredicate.And) compiler.compile("b", rule(60000)).root();
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(a.children[i], b.children[i]);
+        }
+        assertNotSame(a.children[3], b.children[3]);
+        assertNotEquals(a, b);
+
+        CompiledPredicate again = compiler.compile("c", rule(50000)).root();
+        assertSame(a, again);
+        assertEquals(7, interner.size());
+    }
+
+    @Test
+    void equalityAndHashAreStructural() {
+        RuleCompiler plain = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+                "income", new AttributeDef("income", "Integer", NUMERIC_OPS))));
+        CompiledPredicate x = plain.compile("x", attr("income", ">", 5)).root();
+        CompiledPredicate y = plain.compile("y", attr("income", ">", 5)).root();
+        CompiledPredicate z = plain.compile("z", attr("income", ">=", 5)).root();
+
+        assertNotSame(x, y);
+        assertEquals(x, y);
+        assertEquals(x.hashCode(), y.hashCode());
+        assertNotEquals(x, z);
+        assertSame(interner.intern(x), interner.intern(y));
+    }
+}
@@ -0,0 +1,153 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.service.UserSchemaService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilerTest {
+
+    static class InMemorySchema implements UserSchemaService {
+        private final Map<String, AttributeDef> defs;
+        InMemorySchema(Map<String, AttributeDef> defs) { this.defs = defs; }
+
+        @Override public AttributeDef getAttribute(String name) { return defs.get(name.toLowerCase()); }
+        @Override public List<String> allAttributeNames() { return new ArrayList<>(defs.keySet()); }
+        @Override public List<String> suggestAttributes(String wrong) { return List.of(); }
+    }
+
+    private RuleCompiler newCompiler() {
+        Map<String, AttributeDef> schema = new HashMap<>();
+        schema.put("income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+        schema.put("age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+        schema.put("city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")));
+        return new RuleCompiler(new InMemorySchema(schema));
+    }
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private static LogicalRule logical(String op, RuleNode... children) {
+        return new LogicalRule(op, new ArrayList<>(List.of(children)));
+    }
+
+    @Test
+    void compilesTypedPredicates() {
+        CompiledRule rule = newCompiler().compile("r1", logical("AND",
+                attr("income", ">", 50000),
+                attr("age", ">=", 21.5),
+                logical("NOT", new ListRule("blocked_users", true))));
+
+        assertTrue(rule.root() instanceof CompiledPredicate.And);
+        CompiledPredicate[] children = ((CompiledPredicate.And) rule.root()).children();
+        assertTrue(children[0] instanceof CompiledPredicate.LongComparison);
+        assertEquals(Operator.GT, ((CompiledPredicate.LongComparison) children[0]).op());
+        assertTrue(children[1] instanceof CompiledPredicate.DoubleComparison);
+        assertEquals(new CompiledPredicate.ListMembership("blocked_users", false), children[2]);
+
+        assertEquals(Set.of("income", "age"), rule.attributes());
+        assertEquals(Set.of("blocked_users"), rule.lists());
+    }
+
+    @Test
+    void evaluatesAgainstFacts() {
+        CompiledRule rule = newCompiler().compile("r1", logical("AND",
+                attr("income", ">", 50000),
+                logical("NOT", new ListRule("blocked_users", true)),
+                logical("OR", attr("city", "==", "Austin"), attr("age", "<", 30))));
+
+        assertTrue(rule.test(new MapUserFacts(Map.of("income", 60000, "city", "Austin"), List.of())));
+        assertTrue(rule.test(new MapUserFacts(Map.of("income", 60000, "age", 25), List.of("premium_users"))));
+        assertFalse(rule.test(new MapUserFacts(Map.of("income", 60000, "city", "Austin"), List.of("blocked_users"))));
+        assertFalse(rule.test(new MapUserFacts(Map.of("income", 40000, "city", "Austin"), List.of())));
+    }
+
+    @Test
+    void missingAttributeFailsComparisonButNotItsNegation() {
+        RuleCompiler compiler = newCompiler();
+        UserFacts empty = new MapUserFacts(Map.of(), List.of());
+
+        assertFalse(compiler.compile(null, attr("income", "!=", 5)).test(empty));
+        assertTrue(compiler.compile(null, logical("NOT", attr("income", "==", 5))).test(empty));
+    }
+
+    @Test
+    void foldsNegationsThatHaveADirectForm() {
+        RuleCompiler compiler = newCompiler();
+        CompiledPredicate age = compiler.compile(null, attr("age", ">", 18)).root();
+
+        assertEquals(age, compiler.compile(null, logical("NOT", logical("NOT", attr("age", ">", 18)))).root());
+        assertEquals(new CompiledPredicate.Not(age),
+                compiler.compile(null, logical("NOT", logical("NOT", logical("NOT", attr("age", ">", 18))))).root());
+        assertEquals(new CompiledPredicate.ListMembership("vip", true),
+                compiler.compile(null, logical("NOT", new ListRule("vip", false))).root());
+
+        // the inverted comparison would fail a user without the attribute, the negation must not
+        CompiledRule notAdult = compiler.compile(null, logical("NOT", attr("age", ">", 18)));
+        assertEquals(new CompiledPredicate.Not(age), notAdult.root());
+        assertTrue(notAdult.test(new MapUserFacts(Map.of(), List.of())));
+        assertFalse(compiler.compile(null, attr("age", "<=", 18)).test(new MapUserFacts(Map.of(), List.of())));
+
+        CompiledPredicate either = compiler.compile(null, logical("NOT",
+                logical("OR", attr("age", ">", 18), attr("income", ">", 5)))).root();
+        assertTrue(either instanceof CompiledPredicate.Not n && n.child() instanceof CompiledPredicate.Or);
+    }
+
+    @Test
+    void stringInUsesValueSet() {
+        CompiledRule rule = newCompiler().compile(null, attr("city", "IN", List.of("Austin", "Boston")));
+
+        assertTrue(rule.test(new MapUserFacts(Map.of("city", "Boston"), null)));
+        assertFalse(rule.test(new MapUserFacts(Map.of("city", "Denver"), null)));
+    }
+
+    @Test
+    void rejectsRulesTheSchemaWouldReject() {
+        RuleCompiler compiler = newCompiler();
+
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(null, attr("incom", ">", 1)));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(null, attr("city", ">", "A")));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(null, attr("income", ">", "high")));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(null, logical("AND")));
+    }
+
+    @Test
+    void flattensSameOperatorNestingAndCompilesDeepTrees() {
+        RuleNode chain = attr("age", ">", 0);
+        for (int i = 1; i <= 100_000; i++) {
+            chain = logical("AND", chain, attr("income", ">", i));
+        }
+
+        CompiledRule rule = newCompiler().compile("deep", chain);
+
+        assertEquals(100_001, ((CompiledPredicate.And) rule.root()).children().length);
+        assertTrue(rule.test(new MapUserFacts(Map.of("age", 1, "income", 100_001), List.of())));
+        assertFalse(rule.test(new MapUserFacts(Map.of("age", 1, "income", 100_000), List.of())));
+
+        CompiledRule mixed = newCompiler().compile(null, logical("AND",
+                logical("OR", attr("age", ">", 60), logical("OR", attr("age", "<", 18))),
+                logical("AND", attr("income", ">", 1), logical("NOT", logical("AND", attr("income", ">", 5), attr("age", ">", 1))))));
+        assertEquals("((age > 60 OR age < 18) AND income > 1 AND NOT ((income > 5 AND age > 1)))", mixed.root().toString());
+    }
+
+    @Test
+    void rejectsTreesNestedDeeperThanTheEvaluatorSupports() {
+        RuleNode shallow = attr("age", ">", 0);
+        for (int i = 1; i < RuleCompiler.MAX_DEPTH; i++) {
+            shallow = logical(i % 2 == 0 ? "AND" : "OR", shallow, attr("income", ">", i));
+        }
+        assertNotNull(newCompiler().compile("ok", shallow));
+
+        RuleNode deep = logical("NOT", shallow);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> newCompiler().compile("deep", deep));
+        assertEquals("Rule nests more than " + RuleCompiler.MAX_DEPTH + " levels deep.", e.getMessage());
+    }
+}
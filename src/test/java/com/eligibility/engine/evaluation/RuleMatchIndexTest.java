@@ -0,0 +1,133 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleMatchIndexTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "score", new AttributeDef("score", "Number", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")),
+            "is_verified", new AttributeDef("is_verified", "Boolean", Set.of("==", "!=")))));
+
+    private static final String[] INT_OPS = {">", "<", ">=", "<=", "==", "!="};
+    private static final String[] CITIES = {"Austin", "Boston", "Denver"};
+    private static final String[] LISTS = {"premium_users", "blocked_users"};
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    static RuleNode randomRule(Random r, int depth) {
+        if (depth == 0 || r.nextInt(3) == 0) {
+            return switch (r.nextInt(6)) {
+                case 0 -> attr("income", INT_OPS[r.nextInt(6)], r.nextInt(10) * 10);
+                case 1 -> attr("age", INT_OPS[r.nextInt(6)], r.nextInt(5));
+                case 2 -> attr("score", INT_OPS[r.nextInt(6)], r.nextInt(5) + 0.5);
+                case 3 -> r.nextBoolean()
+                        ? attr("city", r.nextBoolean() ? "==" : "!=", CITIES[r.nextInt(3)])
+                        : attr("city", "IN", List.of(CITIES[r.nextInt(3)], CITIES[r.nextInt(3)]));
+                case 4 -> attr("is_verified", r.nextBoolean() ? "==" : "!=", r.nextBoolean());
+                default -> new ListRule(LISTS[r.nextInt(2)], r.nextBoolean());
+            };
+        }
+        LogicalRule lr = new LogicalRule();
+        int kind = r.nextInt(3);
+        if (kind == 0) {
+            lr.setOperator("NOT");
+            lr.addRule(randomRule(r, depth - 1));
+        } else {
+            lr.setOperator(kind == 1 ? "AND" : "OR");
+            int n = 2 + r.nextInt(2);
+            for (int i = 0; i < n; i++) lr.addRule(randomRule(r, depth - 1));
+        }
+        return lr;
+    }
+
+    static UserFacts randomUser(Random r) {
+        Map<String, Object> attrs = randomAttributes(r);
+        return new MapUserFacts(attrs, randomLists(r));
+    }
+
+    static Map<String, Object> randomAttributes(Random r) {
+        Map<String, Object> attrs = new HashMap<>();
+        if (r.nextInt(5) != 0) attrs.put("income", r.nextInt(10) * 10);
+        if (r.nextInt(5) != 0) attrs.put("age", r.nextInt(5));
+        if (r.nextInt(5) != 0) attrs.put("score", r.nextInt(10) / 2.0);
+        if (r.nextInt(5) != 0) attrs.put("city", CITIES[r.nextInt(3)]);
+        if (r.nextInt(5) != 0) attrs.put("is_verified", r.nextBoolean());
+        return attrs;
+    }
+
+    static List<String> randomLists(Random r) {
+        List<String> lists = new ArrayList<>();
+        for (String l : LISTS) if (r.nextBoolean()) lists.add(l);
+        return lists;
+    }
+
+    @Test
+    void matchesExactlyTheRulesALinearScanMatches() {
+        Random r = new Random(7);
+        RuleMatchIndex index = new RuleMatchIndex();
+        List<CompiledRule> rules = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            CompiledRule rule = compiler.compile("r" + i, randomRule(r, 3));
+            rules.add(rule);
+            index.add(rule);
+        }
+        assertEquals(300, index.size());
+
+        for (int u = 0; u < 500; u++) {
+            UserFacts user = randomUser(r);
+            Set<String> expected = new HashSet<>();
+            for (CompiledRule rule : rules) if (rule.test(user)) expected.add(rule.ruleId());
+            assertEquals(expected, new HashSet<>(index.match(user)), "user " + u);
+        }
+    }
+
+    @Test
+    void bulkLoadMatchesLikeSingleAdds() {
+        Random r = new Random(11);
+        List<CompiledRule> rules = new ArrayList<>();
+        for (int i = 0; i < 300; i++) rules.add(compiler.compile("r" + i, randomRule(r, 3)));
+        RuleMatchIndex one = new RuleMatchIndex();
+        for (CompiledRule rule : rules) one.add(rule);
+        RuleMatchIndex bulk = new RuleMatchIndex();
+        bulk.addAll(rules.subList(0, 100));
+        bulk.addAll(rules);   // the first 100 are skipped
+        assertEquals(300, bulk.size());
+
+        for (int u = 0; u < 500; u++) {
+            UserFacts user = randomUser(r);
+            assertEquals(new HashSet<>(one.match(user)), new HashSet<>(bulk.match(user)), "user " + u);
+        }
+    }
+
+    @Test
+    void oversizedDnfFallsBackToDirectEvaluation() {
+        List<RuleNode> ors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LogicalRule or = new LogicalRule();
+            or.setOperator("OR");
+            or.addRule(attr("age", ">", i));
+            or.addRule(attr("income", ">", i));
+            ors.add(or);
+        }
+        LogicalRule and = new LogicalRule("AND", ors); // 2^10 conjunctions
+        RuleMatchIndex index = new RuleMatchIndex();
+        index.add(compiler.compile("wide", and));
+
+        assertEquals(List.of("wide"), index.match(new MapUserFacts(Map.of("age", 100), null)));
+        assertEquals(List.of(), index.match(new MapUserFacts(Map.of("age", 5, "income", 5), null)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleTraceTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new RuleCompilerTest.InMemorySchema(Map.of(
+            "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "score", new AttributeDef("score", "Number", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")),
+            "is_verified", new AttributeDef("is_verified", "Boolean", Set.of("==", "!=")))));
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    @Test
+    void reportsFailedPredicatesAndShortCircuitedSiblings() {
+        LogicalRule rule = new LogicalRule("AND", new ArrayList<>(List.of(
+                attr("income", ">", 50000),
+                attr("age", ">=", 18),
+                new ListRule("blocked_users", false))));
+        CompiledRule compiled = compiler.compile("r", rule);
+
+        RuleTrace.Explanation e = RuleTrace.explain(compiled, new MapUserFacts(Map.of("income", 60000, "age", 16), null));
+
+        assertFalse(e.eligible());
+        assertEquals(List.of("age >= 18"), e.failed());
+        assertEquals(List.of(
+                "FAIL AND",
+                "  PASS income > 50000",
+                "  FAIL age >= 18",
+                "  SKIP NOT IN blocked_users"), e.trace());
+    }
+
+    @Test
+    void agreesWithPlainEvaluation() {
+        Random r = new Random(21);
+        for (int i = 0; i < 300; i++) {
+            CompiledRule rule = compiler.compile("r" + i, RuleMatchIndexTest.randomRule(r, 4));
+            for (int u = 0; u < 20; u++) {
+                UserFacts user = RuleMatchIndexTest.randomUser(r);
+                RuleTrace.Explanation e = RuleTrace.explain(rule, user);
+                assertEquals(rule.test(user), e.eligible(), rule.root().toString());
+                assertTrue(e.trace().get(0).startsWith(e.eligible() ? "PASS" : "FAIL"));
+            }
+        }
+    }
+
+    @Test
+    void failedListsOnlyLeavesThatMadeTheRuleFail() {
+        // NOT IN blocked_users helped, and the first OR alternative lost to the second: neither is a failure.
+        LogicalRule rule = new LogicalRule("AND", new ArrayList<>(List.of(
+                new LogicalRule("NOT", new ArrayList<>(List.of(new ListRule("blocked_users", true)))),
+                new LogicalRule("OR", new ArrayList<>(List.of(attr("income", ">", 50000), attr("age", ">=", 18)))))));
+        CompiledRule compiled = compiler.compile("r", rule);
+
+        RuleTrace.Explanation eligible = RuleTrace.explain(compiled, new MapUserFacts(Map.of("income", 10, "age", 30), null));
+        assertTrue(eligible.eligible());
+        assertEquals(List.of(), eligible.failed());
+
+        RuleTrace.Explanation young = RuleTrace.explain(compiled, new MapUserFacts(Map.of("income", 10, "age", 16), null));
+        assertEquals(List.of("income > 50000", "age >= 18"), young.failed());
+
+        RuleTrace.Explanation blocked = RuleTrace.explain(compiled,
+                new MapUserFacts(Map.of("income", 90000, "age", 30), List.of("blocked_users")));
+        assertEquals(List.of("NOT IN blocked_users"), blocked.failed());
+    }
+
+    @Test
+    void failedIsEmptyExactlyWhenTheUserIsEligible() {
+        Random r = new Random(8);
+        for (int i = 0; i < 300; i++) {
+            CompiledRule rule = compiler.compile("r" + i, RuleMatchIndexTest.randomRule(r, 4));
+            for (int u = 0; u < 20; u++) {
+                RuleTrace.Explanation e = RuleTrace.explain(rule, RuleMatchIndexTest.randomUser(r));
+                assertEquals(e.eligible(), e.failed().isEmpty(), rule.root() + " " + e.failed());
+            }
+        }
+    }
+}
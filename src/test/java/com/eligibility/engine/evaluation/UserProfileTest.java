@@ -0,0 +1,106 @@
+package com.eligibility.engine.evaluation;
+
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.service.SchemaServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileTest {
+
+    private static final Map<String, AttributeDef> SCHEMA = Map.of(
+            "income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "score", new AttributeDef("score", "Number", Set.of(">", "<", ">=", "<=", "==", "!=")),
+            "city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")),
+            "is_verified", new AttributeDef("is_verified", "Boolean", Set.of("==", "!=")));
+
+    private static SchemaServiceImpl schema() {
+        SchemaServiceImpl schema = new SchemaServiceImpl();
+        schema.applySnapshot(SCHEMA, Set.of("premium_users", "blocked_users"));
+        return schema;
+    }
+
+    @Test
+    void boundRulesAgreeWithEvaluationByName() {
+        SchemaServiceImpl schema = schema();
+        RuleCompiler compiler = new RuleCompiler(schema);
+        Random r = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            CompiledRule rule = compiler.compile("r" + i, RuleMatchIndexTest.randomRule(r, 3));
+            assertSame(schema.layout(), rule.layout());
+            for (int u = 0; u < 30; u++) {
+                Map<String, Object> attrs = RuleMatchIndexTest.randomAttributes(r);
+                List<String> lists = RuleMatchIndexTest.randomLists(r);
+                UserProfile profile = UserProfile.of(schema.layout(), attrs, lists, null, null);
+                assertEquals(rule.test(new MapUserFacts(attrs, lists)), rule.test(profile), rule.root().toString());
+            }
+        }
+    }
+
+    @Test
+    void ordinalsSurviveNewSnapshotsAndOlderProfilesLackNewAttributes() {
+        SchemaServiceImpl schema = schema();
+        AttributeLayout first = schema.layout();
+        int income = first.ordinal("income");
+
+        Map<String, AttributeDef> grown = new HashMap<>(SCHEMA);
+        grown.put("tenure", new AttributeDef("tenure", "Integer", Set.of(">", ">=")));
+        schema.applySnapshot(grown, Set.of());
+        AttributeLayout second = schema.layout();
+
+        assertEquals(income, second.ordinal("income"));
+        assertEquals(first.size(), second.ordinal("tenure"));
+        assertTrue(second.compatibleWith(first));
+        assertFalse(second.compatibleWith(AttributeLayout.of(SCHEMA.values())));
+
+        AttributeRule rule = new AttributeRule();
+        rule.setAttribute("tenure");
+        rule.setOperator(">");
+        rule.setValue(2);
+        CompiledRule tenure = new RuleCompiler(schema).compile("t", rule);
+
+        assertTrue(tenure.test(UserProfile.of(second, Map.of("tenure", 5), null, null, null)));
+        assertFalse(tenure.test(UserProfile.of(first, Map.of("tenure", 5, "income", 1), null, null, null)));
+    }
+
+    @Test
+    void valuesAreConvertedWhenRead() {
+        AttributeLayout layout = AttributeLayout.of(SCHEMA.values());
+        UserProfile profile = UserProfile.of(layout,
+                Map.of("income", "60000", "score", 7, "is_verified", "true", "unknown", 1), List.of("VIP"), null, null);
+
+        assertEquals(60000L, profile.longValue("income"));
+        assertEquals(7.0, profile.doubleValue("score"));
+        assertTrue(profile.booleanValue("is_verified"));
+        assertFalse(profile.has("age"));
+        assertFalse(profile.has("unknown"));
+        assertTrue(profile.inList("vip"));
+
+        profile.reset();
+        assertFalse(profile.has("income"));
+        UserProfile unread = UserProfile.of(layout, Map.of("age", "old", "income", 1), null, null, null);
+        assertEquals(1L, unread.longValue("income"));
+        assertThrows(IllegalArgumentException.class, () -> unread.longValue("age"));
+    }
+
+    @Test
+    void fractionalValuesOfIntegerAttributesMatchTheMapPath() {
+        SchemaServiceImpl schema = schema();
+        RuleCompiler compiler = new RuleCompiler(schema);
+        AttributeRule over = new AttributeRule();
+        over.setAttribute("age");
+        over.setOperator(">");
+        over.setValue(18.2);
+        CompiledRule rule = compiler.compile("a", over);
+
+        for (Object age : List.of(18.5, "18.5", 18, "18")) {
+            Map<String, Object> attrs = Map.of("age", age);
+            assertEquals(rule.test(new MapUserFacts(attrs, null)),
+                    rule.test(UserProfile.of(schema.layout(), attrs, null, null, null)), "age " + age);
+        }
+        assertTrue(rule.test(UserProfile.of(schema.layout(), Map.of("age", 18.5), null, null, null)));
+    }
+}
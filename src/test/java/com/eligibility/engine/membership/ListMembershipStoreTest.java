@@ -0,0 +1,83 @@
+package com.eligibility.engine.membership;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListMembershipStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segmentFindsEveryIdAcrossFenceBlocks() throws Exception {
+        Path file = dir.resolve("evens.1.seg");
+        long written = ListSegmentWriter.write(file, LongStream.range(0, 10_000).map(i -> i * 2).iterator(), 16);
+        assertEquals(10_000, written);
+
+        ListSegment segment = ListSegment.open(file);
+        assertEquals(10_000, segment.size());
+        for (long i = 0; i < 20_000; i++) {
+            assertEquals(i % 2 == 0, segment.contains(i), "id " + i);
+        }
+        assertFalse(segment.contains(-1));
+        assertFalse(segment.contains(20_000));
+    }
+
+    @Test
+    void writerDropsDuplicatesAndRejectsUnsortedInput() throws Exception {
+        assertEquals(3, ListSegmentWriter.write(dir.resolve("a.1.seg"), LongStream.of(1, 1, 5, 9, 9).iterator()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ListSegmentWriter.write(dir.resolve("b.1.seg"), LongStream.of(5, 1).iterator()));
+        assertFalse(Files.exists(dir.resolve("b.1.seg.tmp")));
+    }
+
+    @Test
+    void replaceSwapsListAndSurvivesRestart() throws Exception {
+        ListMembershipStore store = new ListMembershipStore(dir.toString(), event -> {});
+        store.init();
+
+        store.replace("Premium_Users", new long[]{42, 7, 1000});
+        assertTrue(store.contains("premium_users", 7));
+        assertFalse(store.contains("premium_users", 8));
+
+        store.replace("premium_users", new long[]{8});
+        assertFalse(store.contains("premium_users", 7));
+        assertTrue(store.contains("premium_users", 8));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+
+        ListMembershipStore restarted = new ListMembershipStore(dir.toString(), event -> {});
+        restarted.init();
+        assertTrue(restarted.contains("premium_users", 8));
+        assertEquals(1, restarted.size("premium_users"));
+        assertEquals(Arrays.asList("premium_users"), restarted.loadedLists().stream().toList());
+    }
+
+    @Test
+    void strayFileWithBadVersionDoesNotStopOtherListsLoading() throws Exception {
+        ListSegmentWriter.write(dir.resolve("premium_users.5.seg"), LongStream.of(7).iterator());
+        Files.write(dir.resolve("premium_users.backup.seg"), new byte[]{1, 2, 3});
+
+        ListMembershipStore store = new ListMembershipStore(dir.toString(), event -> {});
+        store.init();
+        assertTrue(store.contains("premium_users", 7));
+        assertTrue(Files.exists(dir.resolve("premium_users.backup.seg")));
+    }
+
+    @Test
+    void unusableDirectoryFailsStartup() throws Exception {
+        Path notADirectory = Files.write(dir.resolve("lists"), new byte[]{1});
+        ListMembershipStore store = new ListMembershipStore(notADirectory.toString(), event -> {});
+
+        assertThrows(UncheckedIOException.class, store::init);
+    }
+}
@@ -0,0 +1,117 @@
+package com.eligibility.engine.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleTraversalTest {
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private static LogicalRule logical(String op, RuleNode... children) {
+        return new LogicalRule(op, new ArrayList<>(List.of(children)));
+    }
+
+    /** NOT (a AND (b OR c)) alternating {@code depth} times around a single leaf. */
+    private static RuleNode deep(int depth) {
+        RuleNode node = attr("age", ">", 0);
+        for (int i = 0; i < depth; i++) {
+            node = switch (i % 3) {
+                case 0 -> logical("AND", attr("income", ">", i), node);
+                case 1 -> logical("OR", node, new ListRule("vip", true));
+                default -> logical("NOT", node);
+            };
+        }
+        return node;
+    }
+
+    @Test
+    void visitsPreAndPostOrderWithIndexAndDepth() {
+        RuleNode rule = logical("AND", attr("a", ">", 1), logical("NOT", new ListRule("l", true)), attr("b", "<", 2));
+        List<String> seen = new ArrayList<>();
+
+        assertTrue(RuleTraversal.walk(rule, new RuleTraversal.Visitor() {
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                seen.add("enter " + label(node) + " @" + index + "/" + depth);
+                return RuleTraversal.Step.CONTINUE;
+            }
+
+            @Override
+            public RuleTraversal.Step leave(RuleNode node, int depth) {
+                seen.add("leave " + label(node));
+                return RuleTraversal.Step.CONTINUE;
+            }
+        }));
+
+        assertEquals(List.of(
+                "enter AND @0/0",
+                "enter a > 1 @0/1", "leave a > 1",
+                "enter NOT @1/1", "enter IN l @0/2", "leave IN l", "leave NOT",
+                "enter b < 2 @2/1", "leave b < 2",
+                "leave AND"), seen);
+    }
+
+    @Test
+    void skipsChildrenAndStopsEarly() {
+        RuleNode rule = logical("OR", logical("AND", attr("a", ">", 1), attr("b", ">", 2)), attr("c", ">", 3), attr("d", ">", 4));
+        List<String> entered = new ArrayList<>();
+
+        boolean completed = RuleTraversal.walk(rule, new RuleTraversal.Visitor() {
+            @Override
+            public RuleTraversal.Step enter(RuleNode node, int index, int depth) {
+                entered.add(label(node));
+                if (node instanceof LogicalRule lr && lr.getOperator().equals("AND")) return RuleTraversal.Step.SKIP_CHILDREN;
+                return label(node).startsWith("c") ? RuleTraversal.Step.STOP : RuleTraversal.Step.CONTINUE;
+            }
+        });
+
+        assertFalse(completed);
+        assertEquals(List.of("OR", "AND", "c > 3"), entered);
+    }
+
+    @Test
+    void foldsBottomUp() {
+        RuleNode rule = logical("AND", attr("a", ">", 1), logical("OR", attr("b", ">", 2), attr("c", ">", 3)));
+
+        int leaves = RuleTraversal.fold(rule, (node, children) ->
+                children.isEmpty() ? 1 : children.stream().mapToInt(Integer::intValue).sum());
+
+        assertEquals(3, leaves);
+    }
+
+    @Test
+    void deepTreesDoNotOverflowTheStack() {
+        RuleNode rule = deep(200_001);
+
+        String text = rule.toString();
+        assertTrue(text.startsWith("NOT (((income > 199998 AND "));
+        assertTrue(text.contains("(income > 0 AND age > 0)"));
+
+        int depth = RuleTraversal.fold(rule, (node, children) ->
+                1 + children.stream().mapToInt(Integer::intValue).max().orElse(0));
+        assertEquals(200_002, depth);
+    }
+
+    @Test
+    void toStringMatchesTheNestedForm() {
+        RuleNode rule = logical("OR",
+                logical("NOT", logical("AND", attr("income", ">", 50000), new ListRule("vip", false))),
+                logical("AND"),
+                attr("age", ">=", 18));
+
+        assertEquals("(NOT ((income > 50000 AND NOT IN vip)) OR  OR age >= 18)", rule.toString());
+    }
+
+    private static String label(RuleNode node) {
+        return node instanceof LogicalRule lr ? lr.getOperator() : node.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.membership.ListMembershipStore;
+import com.eligibility.engine.membership.ListReplacedEvent;
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.util.RuleJsonExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EligibilityMaterializationServiceTest {
+
+    @TempDir
+    Path listDir;
+
+    private PublishedRuleRegistry registry;
+    private RuleEvaluationService evaluation;
+    private ListMembershipStore lists;
+
+    private EligibilityMaterializationService newService() {
+        Map<String, AttributeDef> schema = new HashMap<>();
+        schema.put("income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+        schema.put("age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+
+        EligibilityMaterializationService[] svc = new EligibilityMaterializationService[1];
+        lists = new ListMembershipStore(listDir.toString(), event -> svc[0].onListReplaced((ListReplacedEvent) event));
+        lists.init();
+
+        UserSchemaService schemaService = new RuleAgentServiceTest.InMemorySchema(schema);
+        registry = new PublishedRuleRegistry(schemaService, mock(RuleStore.class),
+                event -> svc[0].onRulesRegistered((RulesRegisteredEvent) event), 2000);
+        evaluation = new RuleEvaluationService(registry, schemaService, lists, false, 0, 0, 0);
+        svc[0] = new EligibilityMaterializationService(evaluation);
+        return svc[0];
+    }
+
+    private FinalizedRuleDoc publish(EligibilityMaterializationService svc, String id, RuleNode rule) {
+        FinalizedRuleDoc doc = new FinalizedRuleDoc("s-" + id, RuleJsonExporter.export(rule), "{}");
+        doc.id = id;
+        registry.onRulePublished(new RulePublishedEvent(doc));
+        return doc;
+    }
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    @Test
+    void onlyRulesReferencingChangedAttributesAreReEvaluated() {
+        EligibilityMaterializationService svc = newService();
+        publish(svc, "rich", attr("income", ">", 50000));
+        publish(svc, "adult", attr("age", ">=", 18));
+
+        EligibilityMaterializationService.ChangeResult first = svc.applyChange(1L, Map.of("income", 60000, "age", 30), null);
+        assertEquals(2, first.rulesEvaluated());
+        assertEquals(Set.of("rich", "adult"), new HashSet<>(first.gained()));
+
+        EligibilityMaterializationService.ChangeResult drop = svc.applyChange(1L, Map.of("income", 1000), null);
+        assertEquals(1, drop.rulesEvaluated());
+        assertEquals(List.of("rich"), drop.lost());
+        assertFalse(svc.isEligible("rich", 1L));
+        assertTrue(svc.isEligible("adult", 1L));
+    }
+
+    @Test
+    void mixedCaseNamesUpdateTheSameAttribute() {
+        EligibilityMaterializationService svc = newService();
+        publish(svc, "adult", attr("age", ">=", 18));
+
+        assertEquals(List.of("adult"), svc.applyChange(3L, Map.of("Age", 30), null).gained());
+
+        EligibilityMaterializationService.ChangeResult younger = svc.applyChange(3L, Map.of("AGE", 12), Map.of("VIP", true));
+        assertEquals(1, younger.rulesEvaluated());
+        assertEquals(List.of("adult"), younger.lost());
+        assertFalse(svc.isEligible("adult", 3L));
+    }
+
+    @Test
+    void listChangesAndLatePublishesUpdateMaterializedSets() {
+        EligibilityMaterializationService svc = newService();
+        svc.applyChange(7L, Map.of("income", 90000), null);
+
+        LogicalRule notBlocked = new LogicalRule();
+        notBlocked.setOperator("NOT");
+        notBlocked.addRule(new ListRule("blocked_users", true));
+        publish(svc, "open", notBlocked);
+        assertTrue(svc.isEligible("open", 7L));
+
+        EligibilityMaterializationService.ChangeResult blocked = svc.applyChange(7L, null, Map.of("blocked_users", true));
+        assertEquals(List.of("open"), blocked.lost());
+        assertEquals(Set.of(), svc.eligibleUsers("open"));
+    }
+
+    @Test
+    void replacingAListInTheStoreReEvaluatesRulesThatReadIt() throws Exception {
+        EligibilityMaterializationService svc = newService();
+        LogicalRule notBlocked = new LogicalRule();
+        notBlocked.setOperator("NOT");
+        notBlocked.addRule(new ListRule("blocked_users", true));
+        publish(svc, "open", notBlocked);
+        publish(svc, "rich", attr("income", ">", 50000));
+        svc.applyChange(9L, Map.of("income", 90000), null);
+        assertTrue(svc.isEligible("open", 9L));
+
+        lists.replace("blocked_users", new long[]{9});
+        assertFalse(svc.isEligible("open", 9L));
+        assertTrue(svc.isEligible("rich", 9L));
+
+        lists.replace("blocked_users", new long[]{});
+        assertTrue(svc.isEligible("open", 9L));
+    }
+}
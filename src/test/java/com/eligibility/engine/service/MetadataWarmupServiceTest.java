@@ -2,7 +2,7 @@ package com.eligibility.engine.service;
 
 import com.eligibility.engine.model.AttributeDef;
 import com.eligibility.engine.repository.CachedMetadata;
-import com.eligibility.engine.repository.MetadataRepository;
+import com.eligibility.engine.storage.MetadataStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -16,7 +16,7 @@ class MetadataWarmupServiceTest {
 
     @Test
     void warmup_usesPersistentCache_andSkipsRemoteDiscovery() throws Exception {
-        MetadataRepository repo = mock(MetadataRepository.class);
+        MetadataStore repo = mock(MetadataStore.class);
         MockExternalDiscoveryService remote = mock(MockExternalDiscoveryService.class);
         SchemaServiceImpl schemaService = mock(SchemaServiceImpl.class);
 
@@ -39,7 +39,7 @@ class MetadataWarmupServiceTest {
 
     @Test
     void warmup_fetchesRemote_whenCacheMissing_andPersists() throws Exception {
-        MetadataRepository repo = mock(MetadataRepository.class);
+        MetadataStore repo = mock(MetadataStore.class);
         MockExternalDiscoveryService remote = mock(MockExternalDiscoveryService.class);
         SchemaServiceImpl schemaService = mock(SchemaServiceImpl.class);
 
@@ -0,0 +1,99 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.membership.ListMembershipStore;
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.util.RuleJsonExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NdjsonEvaluationServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RuleEvaluationService evaluation;
+
+    private NdjsonEvaluationService newService(RuleNode rule) {
+        Map<String, AttributeDef> schema = new HashMap<>();
+        schema.put("income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+        schema.put("city", new AttributeDef("city", "String", Set.of("==", "!=", "IN")));
+
+        ListMembershipStore lists = new ListMembershipStore(dir.resolve("lists").toString(), event -> {});
+        UserSchemaService schemaService = new RuleAgentServiceTest.InMemorySchema(schema);
+        PublishedRuleRegistry registry = new PublishedRuleRegistry(schemaService, mock(RuleStore.class), event -> {}, 2000);
+        evaluation = new RuleEvaluationService(registry, schemaService, lists, false, 1000, 60_000, 0);
+        FinalizedRuleDoc doc = new FinalizedRuleDoc("s1", RuleJsonExporter.export(rule), "{}");
+        doc.id = "r1";
+        registry.onRulePublished(new RulePublishedEvent(doc));
+        return new NdjsonEvaluationService(evaluation, lists);
+    }
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    @Test
+    void evaluatesEachLineAndSkipsUnreadFields() throws Exception {
+        NdjsonEvaluationService svc = newService(new LogicalRule("AND", new ArrayList<>(List.of(
+                attr("income", ">", 50000),
+                new ListRule("blocked_users", false)))));
+
+        String input = String.join("\n",
+                "{\"userId\": 1, \"attributes\": {\"income\": 60000, \"age\": 30, \"tags\": {\"a\": [1, 2]}}}",
+                "{\"userId\": 2, \"attributes\": {\"income\": 60000}, \"lists\": [\"Blocked_Users\"]}",
+                "{\"userId\": \"u-3\", \"attributes\": {\"income\": 10}}",
+                "{\"userId\": 4, \"attributes\": {\"income\": \"lots\"}}",
+                "{\"userId\": 5, \"attributes\": {\"income\": 75000.5}}") + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        NdjsonEvaluationService.StreamResult result = svc.evaluate("r1",
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).trim().split("\n");
+        assertEquals(5, lines.length);
+        assertEquals("{\"userId\":1,\"eligible\":true}", lines[0]);
+        assertEquals("{\"userId\":2,\"eligible\":false}", lines[1]);
+        assertEquals("{\"userId\":\"u-3\",\"eligible\":false}", lines[2]);
+        assertTrue(lines[3].startsWith("{\"userId\":4,\"eligible\":false,\"error\":"));
+        assertEquals("{\"userId\":5,\"eligible\":true}", lines[4]);
+        assertEquals(new NdjsonEvaluationService.StreamResult(5, 2, 1), result);
+        assertEquals(0, evaluation.decisionCacheStats().misses(), "bulk scans bypass the decision cache");
+    }
+
+    @Test
+    void fileModeWritesOneResultPerRecord() throws Exception {
+        NdjsonEvaluationService svc = newService(attr("city", "IN", List.of("Pune", "Delhi")));
+        Path in = dir.resolve("users.ndjson");
+        Path out = dir.resolve("results.ndjson");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append("{\"userId\":").append(i).append(",\"attributes\":{\"city\":\"")
+                    .append(i % 3 == 0 ? "Pune" : "Mumbai").append("\"}}\n");
+        }
+        Files.writeString(in, sb);
+
+        NdjsonEvaluationService.StreamResult result = svc.evaluateFile("r1", in, out);
+
+        assertEquals(10_000, result.records());
+        assertEquals(3334, result.eligible());
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(10_000, lines.size());
+        assertEquals("{\"userId\":9999,\"eligible\":true}", lines.get(9999));
+    }
+}
@@ -0,0 +1,127 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.evaluation.CompiledPredicate;
+import com.eligibility.engine.model.AttributeDef;
+import com.eligibility.engine.model.AttributeRule;
+import com.eligibility.engine.model.LogicalRule;
+import com.eligibility.engine.model.RuleNode;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.util.RuleJsonExporter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PublishedRuleRegistryTest {
+
+    private final RuleStore repo = mock(RuleStore.class);
+    private final List<Object> events = new ArrayList<>();
+
+    private PublishedRuleRegistry newRegistry() {
+        Map<String, AttributeDef> schema = new HashMap<>();
+        schema.put("income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
+        return new PublishedRuleRegistry(new RuleAgentServiceTest.InMemorySchema(schema), repo, events::add, 2000);
+    }
+
+    private static AttributeRule attr(String attribute, String op, int value) {
+        AttributeRule rule = new AttributeRule();
+        rule.setAttribute(attribute);
+        rule.setOperator(op);
+        rule.setValue(value);
+        return rule;
+    }
+
+    private static FinalizedRuleDoc doc(String id, long createdAt, String attribute) {
+        return doc(id, createdAt, attr(attribute, ">", 100));
+    }
+
+    private static FinalizedRuleDoc doc(String id, long createdAt, RuleNode rule) {
+        FinalizedRuleDoc doc = new FinalizedRuleDoc("s-" + id, RuleJsonExporter.export(rule), "{}");
+        doc.id = id;
+        doc.createdAtEpochMs = createdAt;
+        return doc;
+    }
+
+    @Test
+    void loadBuildsFirstSnapshotAndSkipsUncompilableRules() {
+        when(repo.findAll()).thenReturn(List.of(doc("a", 1_000, "income"), doc("bad", 2_000, "shoe_size")));
+        PublishedRuleRegistry registry = newRegistry();
+
+        registry.loadPublishedRules();
+
+        PublishedRuleRegistry.Snapshot snapshot = registry.snapshot();
+        assertEquals(1, snapshot.version());
+        assertEquals(2_000, snapshot.watermarkEpochMs());
+        assertEquals(Set.of("a"), snapshot.rules().keySet());
+        assertNotNull(registry.get("a"));
+        assertNull(registry.get("bad"));
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void pollAddsOnlyNewRulesAndLeavesOldSnapshotUntouched() {
+        when(repo.findAll()).thenReturn(List.of(doc("a", 10_000, "income")));
+        PublishedRuleRegistry registry = newRegistry();
+        registry.loadPublishedRules();
+        PublishedRuleRegistry.Snapshot before = registry.snapshot();
+
+        // The overlap window returns "a" again; it must not produce a new version on its own.
+        when(repo.findPublishedSince(anyLong()))
+                .thenReturn(List.of(doc("a", 10_000, "income")));
+        registry.poll();
+        assertSame(before, registry.snapshot());
+
+        when(repo.findPublishedSince(anyLong()))
+                .thenReturn(List.of(doc("a", 10_000, "income"), doc("b", 11_000, "income")));
+        registry.poll();
+
+        PublishedRuleRegistry.Snapshot after = registry.snapshot();
+        assertEquals(2, after.version());
+        assertEquals(Set.of("a", "b"), after.rules().keySet());
+        assertEquals(Set.of("a"), before.rules().keySet());
+        RulesRegisteredEvent last = (RulesRegisteredEvent) events.get(events.size() - 1);
+        assertEquals(2, last.snapshotVersion());
+        assertEquals(List.of("b"), last.added().stream().map(r -> r.ruleId()).toList());
+    }
+
+    @Test
+    void publishEventRegistersImmediately() {
+        PublishedRuleRegistry registry = newRegistry();
+
+        registry.onRulePublished(new RulePublishedEvent(doc("c", 5_000, "income")));
+        registry.onRulePublished(new RulePublishedEvent(doc("c", 5_000, "income")));
+
+        assertEquals(1, registry.snapshot().version());
+        assertNotNull(registry.get("c"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.snapshot().rules().remove("c"));
+    }
+
+    @Test
+    void retiringARuleReleasesSubtreesOnlyItUsed() {
+        PublishedRuleRegistry registry = newRegistry();
+        registry.onRulePublished(new RulePublishedEvent(doc("a", 1_000, new LogicalRule("AND",
+                new ArrayList<>(List.of(attr("income", ">", 100), attr("income", "<", 5000)))))));
+        registry.onRulePublished(new RulePublishedEvent(doc("b", 2_000, new LogicalRule("AND",
+                new ArrayList<>(List.of(attr("income", ">", 100), attr("income", "<", 9000)))))));
+        assertEquals(5, registry.internedSubtrees());   // income > 100 is shared
+        CompiledPredicate b = registry.get("b").root();
+
+        assertEquals(1, registry.retire(List.of("a", "unknown")));
+
+        assertEquals(3, registry.snapshot().version());
+        assertEquals(Set.of("b"), registry.snapshot().rules().keySet());
+        assertEquals(3, registry.internedSubtrees());   // b's AND and its two comparisons
+        assertEquals(new RulesRetiredEvent(List.of("a"), 3), events.get(events.size() - 1));
+
+        // what stays is still canonical, and a retired id is not registered again
+        registry.onRulePublished(new RulePublishedEvent(doc("c", 3_000, new LogicalRule("AND",
+                new ArrayList<>(List.of(attr("income", ">", 100), attr("income", "<", 9000)))))));
+        assertSame(b, registry.get("c").root());
+        registry.onRulePublished(new RulePublishedEvent(doc("a", 1_000, "income")));
+        assertNull(registry.get("a"));
+        assertEquals(0, registry.retire(List.of("a")));
+    }
+}
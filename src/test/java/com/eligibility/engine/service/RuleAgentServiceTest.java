@@ -37,7 +37,7 @@ class RuleAgentServiceTest {
         schema.put("income", new AttributeDef("income", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
         schema.put("age", new AttributeDef("age", "Integer", Set.of(">", "<", ">=", "<=", "==", "!=")));
         schema.put("city", new AttributeDef("city", "String", Set.of("==", "!=")));
-        return new RuleAgentService(new InMemorySchema(schema), new InMemoryLists(Set.of("premium_users", "blocked_users")));
+        return new RuleAgentService(new InMemorySchema(schema), new InMemoryLists(Set.of("premium_users", "blocked_users")), 100);
     }
 
     @Test
@@ -141,4 +141,97 @@ class RuleAgentServiceTest {
         assertTrue(top.getRules().get(1) instanceof LogicalRule);
         assertEquals("AND", ((LogicalRule) top.getRules().get(1)).getOperator());
     }
-}
\ No newline at end of file
+
+    @Test
+    void tokenizerRecognizesKeywordsNumbersAndQuotesInPlace() {
+        RuleAgentService.TokenBuffer tokens = RuleAgentService.TokenBuffer.acquire();
+        try {
+            RuleAgentService.Tokenizer.tokenize("Income>=-5.5 aNd NOT(city=='New York') Or in vip tRUE 1.", tokens);
+            List<String> seen = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) seen.add(tokens.type(i) + ":" + tokens.text(i));
+            assertEquals(List.of("IDENT:Income", "OP:>=", "NUMBER:-5.5", "AND:AND", "NOT:NOT", "LPAREN:(",
+                    "IDENT:city", "OP:==", "STRING:New York", "RPAREN:)", "OR:OR", "IN:IN", "IDENT:vip",
+                    "BOOLEAN:true", "IDENT:1."), seen);
+        } finally {
+            tokens.release();
+        }
+    }
+
+    @Test
+    void loneBangIsReportedInsteadOfHanging() {
+        RuleAgentService agent = newAgent();
+
+        AgentTurnResult r = agent.parseToDraft("income > 5 ! age > 1");
+        assertNull(r.getDraftRule());
+        assertEquals(List.of("Unexpected token: !"), r.getErrors());
+
+        // The pooled buffer is reused by the next turn without leaking tokens.
+        assertNotNull(agent.parseToDraft("age > 1").getDraftRule());
+    }
+
+    @Test
+    void repeatedInputIsServedFromCacheAsAnIndependentCopy() {
+        RuleAgentService agent = newAgent();
+
+        AgentTurnResult first = agent.parseToDraft("income > 50000 AND NOT in blocked_users");
+        ((LogicalRule) first.getDraftRule()).addRule(new ListRule("premium_users", true));
+        first.getErrors().add("changed by caller");
+
+        AgentTurnResult second = agent.parseToDraft("  income>50000   and not IN blocked_users ");
+        assertEquals(first.getBotReply(), second.getBotReply());
+        assertEquals(2, ((LogicalRule) second.getDraftRule()).getRules().size());
+        assertTrue(second.getErrors().isEmpty());
+        assertNotSame(first.getDraftRule(), second.getDraftRule());
+
+        // Quoted values keep their case and spacing in the key.
+        assertNotEquals(agent.parseToDraft("city == 'Austin'").getDraftRule(),
+                agent.parseToDraft("city == 'austin'").getDraftRule());
+    }
+
+    @Test
+    void newSchemaSnapshotInvalidatesCachedParses() {
+        SchemaServiceImpl schema = new SchemaServiceImpl();
+        schema.applySnapshot(Map.of("age", new AttributeDef("age", "Integer", Set.of(">"))), Set.of());
+        RuleAgentService agent = new RuleAgentService(schema, new InMemoryLists(Set.of()), 100);
+
+        assertFalse(agent.parseToDraft("tenure > 2").getErrors().isEmpty());
+
+        schema.applySnapshot(Map.of(
+                "age", new AttributeDef("age", "Integer", Set.of(">")),
+                "tenure", new AttributeDef("tenure", "Integer", Set.of(">"))), Set.of());
+        AgentTurnResult r = agent.parseToDraft("tenure > 2");
+        assertTrue(r.getErrors().isEmpty());
+        assertEquals("tenure", ((AttributeRule) r.getDraftRule()).getAttribute());
+    }
+
+    @Test
+    void operatorChainsParseToOneNode() {
+        RuleAgentService agent = newAgent();
+
+        AgentTurnResult r = agent.parseToDraft("income > 1 AND age > 2 AND age < 90 AND (city == 'Pune' AND income < 9)");
+
+        assertTrue(r.getErrors().isEmpty());
+        LogicalRule top = (LogicalRule) r.getDraftRule();
+        assertEquals("AND", top.getOperator());
+        assertEquals(4, top.getRules().size());
+        assertEquals(2, ((LogicalRule) top.getRules().get(3)).getRules().size());
+    }
+
+    @Test
+    void deeplyNestedInputDoesNotOverflowTheStack() {
+        RuleAgentService agent = newAgent();
+        int depth = 50_000;
+
+        AgentTurnResult parens = agent.parseToDraft("(".repeat(depth) + "income > 10" + ")".repeat(depth) + " OR age > 1");
+        assertTrue(parens.getErrors().isEmpty());
+        assertEquals("(income > 10.0 OR age > 1.0)", parens.getDraftRule().toString());
+
+        AgentTurnResult nots = agent.parseToDraft("NOT ".repeat(depth) + "age > 1");
+        assertTrue(nots.getErrors().isEmpty());
+        assertTrue(nots.getDraftRule().toString().endsWith("(age > 1.0" + ")".repeat(depth)));
+
+        AgentTurnResult unclosed = agent.parseToDraft("(".repeat(depth) + "age > 1");
+        assertNull(unclosed.getDraftRule());
+        assertEquals(depth, unclosed.getErrors().stream().filter(e -> e.contains("Missing closing ')'")).count());
+    }
+}
@@ -1,12 +1,16 @@
 package com.eligibility.engine.service;
 
 import com.eligibility.engine.model.*;
-import com.eligibility.engine.repository.ConversationRepository;
-import com.eligibility.engine.repository.FinalizedRuleRepository;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.ConversationStore;
+import com.eligibility.engine.storage.RuleStore;
+import com.eligibility.engine.session.ConversationSessionCache;
+import com.eligibility.engine.util.RuleJsonImporter;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -15,10 +19,11 @@ class RuleAuthoringOrchestratorTest {
 
     @Test
     void processUserMessage_combinesWithAndPrefix() {
-        ConversationRepository convRepo = mock(ConversationRepository.class);
+        ConversationStore convRepo = mock(ConversationStore.class);
         RuleAgentService agent = mock(RuleAgentService.class);
         MockValidatorService validator = mock(MockValidatorService.class);
-        FinalizedRuleRepository finalRepo = mock(FinalizedRuleRepository.class);
+        RuleStore finalRepo = mock(RuleStore.class);
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
 
         ConversationState state = new ConversationState();
         state.setId("s1");
@@ -28,7 +33,7 @@ class RuleAuthoringOrchestratorTest {
         existing.setValue(10);
         state.setCurrentDraftRule(existing);
 
-        when(convRepo.findById("s1")).thenReturn(Optional.of(state));
+        when(convRepo.findWithoutHistory("s1")).thenReturn(Optional.of(state));
 
         AttributeRule newRule = new AttributeRule();
         newRule.setAttribute("age");
@@ -41,7 +46,8 @@ class RuleAuthoringOrchestratorTest {
 
         when(agent.parseToDraft("age > 18")).thenReturn(turn);
 
-        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(convRepo, agent, validator, finalRepo);
+        ConversationSessionCache sessions = new ConversationSessionCache(convRepo, "", "never", 100);
+        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(sessions, agent, validator, finalRepo, events, mock(RuleEvaluationService.class));
 
         AgentTurnResult out = orch.processUserMessage("s1", "AND age > 18");
         assertNotNull(out.getDraftRule());
@@ -51,35 +57,42 @@ class RuleAuthoringOrchestratorTest {
         assertEquals("AND", combined.getOperator());
         assertEquals(2, combined.getRules().size());
 
-        verify(convRepo, times(1)).save(any(ConversationState.class));
+        assertEquals(2, state.getHistory().size());
+        verify(convRepo, never()).appendTurns(any());
+        sessions.flush();
+        verify(convRepo, times(1)).appendTurns(any());
+        assertTrue(state.getHistory().isEmpty());
     }
 
     @Test
     void finalizeRule_returnsFailure_whenNoDraft() {
-        ConversationRepository convRepo = mock(ConversationRepository.class);
+        ConversationStore convRepo = mock(ConversationStore.class);
         RuleAgentService agent = mock(RuleAgentService.class);
         MockValidatorService validator = mock(MockValidatorService.class);
-        FinalizedRuleRepository finalRepo = mock(FinalizedRuleRepository.class);
+        RuleStore finalRepo = mock(RuleStore.class);
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
 
         ConversationState state = new ConversationState();
         state.setId("s1");
         state.setCurrentDraftRule(null);
 
-        when(convRepo.findById("s1")).thenReturn(Optional.of(state));
+        when(convRepo.findWithoutHistory("s1")).thenReturn(Optional.of(state));
 
-        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(convRepo, agent, validator, finalRepo);
+        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(new ConversationSessionCache(convRepo, "", "never", 100), agent, validator, finalRepo, events, mock(RuleEvaluationService.class));
         RuleAuthoringOrchestrator.FinalizeResult res = orch.finalizeRule("s1");
 
         assertFalse(res.success());
         verify(finalRepo, never()).save(any());
+        verify(events, never()).publishEvent(any(RulePublishedEvent.class));
     }
 
     @Test
     void finalizeRule_savesFinalizedRule_whenValid() {
-        ConversationRepository convRepo = mock(ConversationRepository.class);
+        ConversationStore convRepo = mock(ConversationStore.class);
         RuleAgentService agent = mock(RuleAgentService.class);
         MockValidatorService validator = mock(MockValidatorService.class);
-        FinalizedRuleRepository finalRepo = mock(FinalizedRuleRepository.class);
+        RuleStore finalRepo = mock(RuleStore.class);
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
 
         ConversationState state = new ConversationState();
         state.setId("s1");
@@ -90,7 +103,7 @@ class RuleAuthoringOrchestratorTest {
         draft.setValue(50000);
         state.setCurrentDraftRule(draft);
 
-        when(convRepo.findById("s1")).thenReturn(Optional.of(state));
+        when(convRepo.findWithoutHistory("s1")).thenReturn(Optional.of(state));
 
         MockValidatorService.ValidationReport report = new MockValidatorService.ValidationReport();
         report.valid = true;
@@ -99,11 +112,93 @@ class RuleAuthoringOrchestratorTest {
 
         when(validator.validate(any())).thenReturn(report);
 
-        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(convRepo, agent, validator, finalRepo);
+        ConversationSessionCache sessions = new ConversationSessionCache(convRepo, "", "never", 100);
+        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(sessions, agent, validator, finalRepo, events, mock(RuleEvaluationService.class));
         RuleAuthoringOrchestrator.FinalizeResult res = orch.finalizeRule("s1");
 
         assertTrue(res.success());
-        verify(finalRepo, times(1)).save(any());
-        verify(convRepo, times(1)).save(any(ConversationState.class));
+        ArgumentCaptor<FinalizedRuleDoc> saved = ArgumentCaptor.forClass(FinalizedRuleDoc.class);
+        verify(finalRepo, times(1)).save(saved.capture());
+        assertEquals(List.of("income"), saved.getValue().attributes);
+        assertEquals("Finalized and saved.", state.getHistory().get(0).getText());
+        sessions.flush();
+        verify(convRepo, times(1)).appendTurns(any());
+        verify(events, times(1)).publishEvent(any(RulePublishedEvent.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void finalizeRule_handlesDeeplyNestedDrafts() {
+        ConversationStore convRepo = mock(ConversationStore.class);
+        RuleStore finalRepo = mock(RuleStore.class);
+        Map<String, AttributeDef> schema = Map.of("age", new AttributeDef("age", "Integer", Set.of(">", "<", "==")));
+
+        // 10001 NOTs: normalizing collapses them, but only if it walks the chain without recursing.
+        RuleNode draft = new AttributeRule();
+        ((AttributeRule) draft).setAttribute("age");
+        ((AttributeRule) draft).setOperator(">");
+        ((AttributeRule) draft).setValue(18);
+        for (int i = 0; i < 10_001; i++) draft = new LogicalRule("NOT", new ArrayList<>(List.of(draft)));
+        ConversationState state = new ConversationState();
+        state.setId("s1");
+        state.setCurrentDraftRule(draft);
+        when(convRepo.findWithoutHistory("s1")).thenReturn(Optional.of(state));
+
+        UserSchemaService schemaService = new RuleAgentServiceTest.InMemorySchema(schema);
+        RuleEvaluationService evaluation = new RuleEvaluationService(
+                new PublishedRuleRegistry(schemaService, finalRepo, event -> {}, 2000), schemaService, null, false, 0, 0, 0);
+        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(new ConversationSessionCache(convRepo, "", "never", 100),
+                new RuleAgentService(new RuleAgentServiceTest.InMemorySchema(schema), new RuleAgentServiceTest.InMemoryLists(Set.of()), 0),
+                new MockValidatorService(), finalRepo, mock(ApplicationEventPublisher.class), evaluation);
+
+        RuleAuthoringOrchestrator.FinalizeResult res = orch.finalizeRule("s1");
+
+        assertTrue(res.success(), res.message());
+        assertEquals("NOT (age > 18)", RuleJsonImporter.importRule(res.finalRuleJson()).toString());
+    }
+
+    @Test
+    void processBatch_readsOnceAppliesTurnsInOrderAndFlushesOnce() {
+        ConversationStore convRepo = mock(ConversationStore.class);
+        Map<String, AttributeDef> schema = Map.of(
+                "income", new AttributeDef("income", "Integer", Set.of(">", "<", "==")),
+                "age", new AttributeDef("age", "Integer", Set.of(">", "<", "==")));
+        RuleAgentService agent = new RuleAgentService(new RuleAgentServiceTest.InMemorySchema(schema),
+                new RuleAgentServiceTest.InMemoryLists(Set.of("premium_users")), 0);
+
+        ConversationState existing = new ConversationState();
+        existing.setId("s1");
+        existing.setCurrentDraftRule(agent.parseToDraft("income > 10").getDraftRule());
+        when(convRepo.findAllWithoutHistory(any())).thenReturn(List.of(existing));
+        List<ConversationState> saved = new ArrayList<>();
+        when(convRepo.appendTurns(any())).thenAnswer(inv -> {
+            Collection<ConversationState> states = inv.getArgument(0);
+            saved.addAll(states);
+            return states.size();
+        });
+
+        ConversationSessionCache sessions = new ConversationSessionCache(convRepo, "", "never", 100);
+        RuleAuthoringOrchestrator orch = new RuleAuthoringOrchestrator(sessions, agent, mock(MockValidatorService.class),
+                mock(RuleStore.class), mock(ApplicationEventPublisher.class), mock(RuleEvaluationService.class));
+
+        List<AgentTurnResult> out = orch.processBatch(List.of(
+                new RuleAuthoringOrchestrator.ChatTurn("s1", "AND age > 18"),
+                new RuleAuthoringOrchestrator.ChatTurn("s2", "income > 5"),
+                new RuleAuthoringOrchestrator.ChatTurn("s1", "AND age < 60"),
+                new RuleAuthoringOrchestrator.ChatTurn("s3", null)));
+
+        assertEquals(4, out.size());
+        assertEquals("(income > 10.0 AND age > 18.0 AND age < 60.0)", out.get(2).getDraftRule().toString());
+        assertEquals("income > 5.0", out.get(1).getDraftRule().toString());
+        assertEquals(List.of("Message is empty."), out.get(3).getErrors());
+
+        assertTrue(saved.isEmpty());
+        sessions.flush();
+        assertEquals(2, saved.size());
+        Map<String, ConversationState> byId = new HashMap<>();
+        for (ConversationState state : saved) byId.put(state.getId(), state);
+        assertEquals(List.of("User", "Bot", "User", "Bot"), byId.get("s1").getHistory().stream().map(ChatMessage::getSender).toList());
+        assertEquals(2, byId.get("s2").getHistory().size());
+        verify(convRepo, times(1)).findAllWithoutHistory(any());
+        verify(convRepo, never()).findWithoutHistory(any());
+    }
+}
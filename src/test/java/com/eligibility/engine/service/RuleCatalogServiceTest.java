@@ -0,0 +1,87 @@
+package com.eligibility.engine.service;
+
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import com.eligibility.engine.storage.EmbeddedRuleStore;
+import com.eligibility.engine.storage.EmbeddedStorage;
+import com.eligibility.engine.storage.RuleStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCatalogServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RuleCatalogService publish() {
+        RuleStore rules = new EmbeddedRuleStore(new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5));
+        // r0..r9 at t = 1000..10000; r3 and r4 share a timestamp so the id breaks the tie.
+        for (int i = 0; i < 10; i++) {
+            FinalizedRuleDoc doc = new FinalizedRuleDoc(i % 2 == 0 ? "even" : "odd", "{\"rule\":" + i + "}", "{}");
+            doc.id = "r" + i;
+            doc.createdAtEpochMs = i == 4 ? 4_000 : (i + 1) * 1_000L;
+            doc.attributes = i % 3 == 0 ? List.of("age", "income") : List.of("income");
+            rules.save(doc);
+        }
+        return new RuleCatalogService(rules, 100);
+    }
+
+    private static List<String> ids(RuleCatalogService.Page page) {
+        return page.rules().stream().map(RuleCatalogService.RuleSummary::id).toList();
+    }
+
+    @Test
+    void cursorPagesVisitEveryRuleOnceNewestFirst() {
+        RuleCatalogService catalog = publish();
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RuleCatalogService.Page page = catalog.list(null, null, null, null, cursor, 3, false);
+            seen.addAll(ids(page));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(List.of("r9", "r8", "r7", "r6", "r5", "r4", "r3", "r2", "r1", "r0"), seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void filtersBySessionAttributeAndTimeRange() {
+        RuleCatalogService catalog = publish();
+        assertEquals(List.of("r8", "r6", "r4", "r2", "r0"), ids(catalog.list(null, null, "even", null, null, 10, false)));
+        assertEquals(List.of("r9", "r6", "r3", "r0"), ids(catalog.list(null, null, null, "AGE", null, 10, false)));
+        assertEquals(List.of("r6", "r0"), ids(catalog.list(null, null, "even", "age", null, 10, false)));
+        assertEquals(List.of("r5", "r4", "r3"), ids(catalog.list(4_000L, 7_000L, null, null, null, 10, false)));
+
+        RuleCatalogService.Page first = catalog.list(3_000L, null, null, "income", null, 2, false);
+        assertEquals(List.of("r9", "r8"), ids(first));
+        assertEquals(List.of("r7", "r6"), ids(catalog.list(3_000L, null, null, "income", first.nextCursor(), 2, false)));
+    }
+
+    @Test
+    void ruleJsonOnlyWhenRequested() {
+        RuleCatalogService catalog = publish();
+        RuleCatalogService.RuleSummary lean = catalog.list(null, null, null, null, null, 1, false).rules().get(0);
+        assertNull(lean.finalRuleJson());
+        assertNull(lean.validationReportJson());
+        assertEquals(List.of("age", "income"), lean.attributes());
+
+        assertEquals("{\"rule\":9}", catalog.list(null, null, null, null, null, 1, true).rules().get(0).finalRuleJson());
+        assertEquals("{\"rule\":2}", catalog.get("r2", true).orElseThrow().finalRuleJson());
+        assertTrue(catalog.get("missing", true).isEmpty());
+    }
+
+    @Test
+    void rejectsBadLimitsAndCursors() {
+        RuleCatalogService catalog = publish();
+        assertThrows(IllegalArgumentException.class, () -> catalog.list(null, null, null, null, null, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> catalog.list(null, null, null, null, null, 101, false));
+        assertThrows(IllegalArgumentException.class, () -> catalog.list(null, null, null, null, "nope", 10, false));
+    }
+}
@@ -0,0 +1,84 @@
+package com.eligibility.engine.session;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.storage.ConversationStore;
+import com.eligibility.engine.storage.EmbeddedConversationStore;
+import com.eligibility.engine.storage.EmbeddedStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationArchiverTest {
+
+    @TempDir
+    Path dir;
+
+    private static void say(ConversationSessionCache sessions, String id, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int n = i;
+            sessions.apply(id, state -> {
+                state.addMessage("User", "m" + n);
+                return null;
+            });
+        }
+        sessions.flush();
+    }
+
+    private static List<String> texts(ConversationState state) {
+        return state.getHistory().stream().map(ChatMessage::getText).toList();
+    }
+
+    private static List<String> expected(int to) {
+        return IntStream.range(0, to).mapToObj(i -> "m" + i).toList();
+    }
+
+    @Test
+    void archivesOldHistoryAndRehydratesItInOrder() {
+        EmbeddedStorage storage = new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5);
+        ConversationStore store = new EmbeddedConversationStore(storage);
+        ConversationSessionCache sessions = new ConversationSessionCache(store, "", "never", 100);
+        ConversationArchiver archiver = new ConversationArchiver(store, sessions, 3, 4, 100, 0);
+
+        say(sessions, "s1", 0, 6);
+        archiver.run();   // 6 < 3 + 4: nothing to do yet
+        assertEquals(0, store.findWithoutHistory("s1").orElseThrow().getArchivedChunks());
+
+        say(sessions, "s1", 6, 10);
+        archiver.run();
+        assertEquals(1, store.findWithoutHistory("s1").orElseThrow().getArchivedChunks());
+        assertEquals(List.of(), store.findIdsWithHistoryOver(4, 100));
+        assertEquals(expected(10), texts(sessions.history("s1")));
+
+        say(sessions, "s1", 10, 20);
+        archiver.run();
+        assertEquals(2, store.findWithoutHistory("s1").orElseThrow().getArchivedChunks());
+        storage.close();
+
+        ConversationStore reopened = new EmbeddedConversationStore(new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5));
+        assertEquals(expected(20), texts(reopened.findById("s1").orElseThrow()));
+    }
+
+    @Test
+    void expiresIdleSessionsWithTheirArchives() throws Exception {
+        EmbeddedStorage storage = new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5);
+        ConversationStore store = new EmbeddedConversationStore(storage);
+        ConversationSessionCache sessions = new ConversationSessionCache(store, "", "never", 100);
+
+        say(sessions, "idle", 0, 10);
+        new ConversationArchiver(store, sessions, 2, 2, 100, 0).run();
+        Thread.sleep(30);
+        say(sessions, "busy", 0, 1);
+
+        new ConversationArchiver(store, sessions, 2, 2, 100, 20).run();
+        assertTrue(store.findById("idle").isEmpty());
+        assertTrue(store.findById("busy").isPresent());
+        assertEquals(1, sessions.size());
+        assertNull(sessions.history("idle"));
+    }
+}
@@ -0,0 +1,219 @@
+package com.eligibility.engine.session;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.model.ListRule;
+import com.eligibility.engine.model.LogicalRule;
+import com.eligibility.engine.storage.ConversationStore;
+import com.eligibility.engine.storage.EmbeddedConversationStore;
+import com.eligibility.engine.storage.EmbeddedStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConversationSessionCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<List<ConversationState>> writes = new ArrayList<>();
+
+    private ConversationStore recordingStore() {
+        ConversationStore repo = mock(ConversationStore.class);
+        when(repo.appendTurns(any())).thenAnswer(inv -> {
+            Collection<ConversationState> states = inv.getArgument(0);
+            writes.add(new ArrayList<>(states));
+            return states.size();
+        });
+        return repo;
+    }
+
+    private static Void say(ConversationState state, String text) {
+        state.addMessage("User", text);
+        state.setCurrentDraftRule(new ListRule(text, true));
+        return null;
+    }
+
+    private static List<String> texts(ConversationState state) {
+        return state.getHistory().stream().map(ChatMessage::getText).toList();
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> Files.isRegularFile(p)).count();
+        }
+    }
+
+    @Test
+    void hotSessionIsServedFromMemoryAndFlushedInOneWrite() {
+        AtomicInteger reads = new AtomicInteger();
+        ConversationStore repo = recordingStore();
+        when(repo.findWithoutHistory(any())).thenAnswer(inv -> {
+            reads.incrementAndGet();
+            return Optional.empty();
+        });
+        ConversationSessionCache cache = new ConversationSessionCache(repo, dir.toString(), "always", 100);
+        cache.recover();
+
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            cache.apply("s1", s -> say(s, "m" + n));
+        }
+        cache.apply("s2", s -> say(s, "other"));
+        assertEquals(2, reads.get());
+        assertTrue(writes.isEmpty());
+
+        cache.flush();
+        assertEquals(1, writes.size());
+        ConversationState s1 = writes.get(0).stream().filter(s -> s.getId().equals("s1")).findFirst().orElseThrow();
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), texts(s1));
+        assertEquals("IN m4", s1.getCurrentDraftRule().toString());
+        assertTrue(s1.getWalLsn() > 0);
+
+        cache.apply("s1", s -> null);   // read-only
+        cache.flush();
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    void acknowledgedTurnsSurviveARestart() throws Exception {
+        ConversationSessionCache before = new ConversationSessionCache(recordingStore(), dir.toString(), "always", 100);
+        before.recover();
+        before.apply("s1", s -> say(s, "a"));
+        before.apply("s1", s -> {
+            s.addMessage("User", "b");
+            s.setCurrentDraftRule(new LogicalRule("NOT", new ArrayList<>(List.of(new ListRule("vip", true)))));
+            s.setPendingAttribute("income");
+            return null;
+        });
+        before.apply("s2", s -> say(s, "c"));
+        assertTrue(writes.isEmpty());
+        // no flush, no shutdown: the process dies here
+
+        ConversationSessionCache after = new ConversationSessionCache(recordingStore(), dir.toString(), "always", 100);
+        after.recover();
+
+        assertEquals(1, writes.size());
+        Map<String, ConversationState> byId = new HashMap<>();
+        for (ConversationState s : writes.get(0)) byId.put(s.getId(), s);
+        assertEquals(List.of("a", "b"), texts(byId.get("s1")));
+        assertEquals("NOT (IN vip)", byId.get("s1").getCurrentDraftRule().toString());
+        assertEquals("income", byId.get("s1").getPendingAttribute());
+        assertEquals(List.of("c"), texts(byId.get("s2")));
+        assertEquals(1, segments());   // replayed segments are gone, only the fresh one is left
+    }
+
+    @Test
+    void replaySkipsTurnsTheDocumentAlreadyHolds() {
+        ConversationSessionCache before = new ConversationSessionCache(recordingStore(), dir.toString(), "always", 100);
+        before.recover();
+        before.apply("s1", s -> say(s, "a"));
+        before.flush();
+        long flushedLsn = writes.get(0).get(0).getWalLsn();
+        before.apply("s1", s -> say(s, "b"));
+        writes.clear();
+
+        // pretend the flush of "b" also reached Mongo before the crash, but not the log cleanup
+        ConversationStore repo = recordingStore();
+        ConversationState stored = new ConversationState();
+        stored.setId("s1");
+        stored.setWalLsn(flushedLsn);
+        when(repo.findAllWithoutHistory(any())).thenReturn(List.of(stored));
+        ConversationSessionCache after = new ConversationSessionCache(repo, dir.toString(), "always", 100);
+        after.recover();
+
+        assertEquals(1, writes.size());
+        assertEquals(List.of("b"), texts(writes.get(0).get(0)));
+    }
+
+    @Test
+    void failedFlushKeepsTurnsInOrderForTheNextOne() {
+        AtomicInteger calls = new AtomicInteger();
+        ConversationStore repo = mock(ConversationStore.class);
+        when(repo.appendTurns(any())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) throw new IllegalStateException("mongo down");
+            Collection<ConversationState> states = inv.getArgument(0);
+            writes.add(new ArrayList<>(states));
+            return states.size();
+        });
+        ConversationSessionCache cache = new ConversationSessionCache(repo, dir.toString(), "interval", 100);
+        cache.recover();
+
+        cache.apply("s1", s -> say(s, "a"));
+        cache.flush();
+        cache.apply("s1", s -> say(s, "b"));
+        cache.flush();
+
+        // the failed delta is resent unchanged, the turn that came after it follows in its own write
+        assertEquals(3, calls.get());
+        assertEquals(List.of("a"), texts(writes.get(0).get(0)));
+        assertEquals(List.of("b"), texts(writes.get(1).get(0)));
+        assertTrue(writes.get(0).get(0).getWalLsn() < writes.get(1).get(0).getWalLsn());
+    }
+
+    @Test
+    void partlyAppliedFlushIsNotAppendedTwice() {
+        EmbeddedStorage storage = new EmbeddedStorage(dir.resolve("db").toString(), 1 << 16, false, 0.5);
+        ConversationStore embedded = new EmbeddedConversationStore(storage);
+        AtomicInteger calls = new AtomicInteger();
+        ConversationStore repo = mock(ConversationStore.class);
+        when(repo.appendTurns(any())).thenAnswer(inv -> {
+            List<ConversationState> states = new ArrayList<>(inv.<Collection<ConversationState>>getArgument(0));
+            if (calls.incrementAndGet() == 1) {
+                // an unordered bulk write that reached s1 and then failed for s2
+                embedded.appendTurns(states.subList(0, 1));
+                throw new IllegalStateException("write error on s2");
+            }
+            return embedded.appendTurns(states);
+        });
+        ConversationSessionCache cache = new ConversationSessionCache(repo, dir.resolve("wal").toString(), "interval", 100);
+        cache.recover();
+
+        cache.apply("s1", s -> say(s, "a"));
+        cache.apply("s2", s -> say(s, "b"));
+        cache.flush();
+        cache.apply("s1", s -> say(s, "c"));
+        cache.flush();
+
+        assertEquals(List.of("a", "c"), texts(embedded.findById("s1").orElseThrow()));
+        assertEquals(List.of("b"), texts(embedded.findById("s2").orElseThrow()));
+        storage.close();
+    }
+
+    @Test
+    void evictsOnlyCleanSessionsBeyondTheBound() {
+        ConversationSessionCache cache = new ConversationSessionCache(recordingStore(), "", "never", 1);
+        cache.apply("s1", s -> say(s, "a"));
+        cache.apply("s2", s -> say(s, "b"));
+        assertEquals(2, cache.size());
+
+        cache.flush();
+        assertEquals(1, cache.size());
+        assertEquals(2, writes.get(0).size());
+    }
+
+    @Test
+    void tornTailRecordIsSkipped() throws Exception {
+        ConversationSessionCache before = new ConversationSessionCache(recordingStore(), dir.toString(), "always", 100);
+        before.recover();
+        before.apply("s1", s -> say(s, "a"));
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.writeString(segment, "{\"lsn\":99,\"sessionId\":\"s1\",\"mess", StandardOpenOption.APPEND);
+        }
+
+        ConversationSessionCache after = new ConversationSessionCache(recordingStore(), dir.toString(), "always", 100);
+        after.recover();
+
+        assertEquals(List.of("a"), texts(writes.get(0).get(0)));
+    }
+}
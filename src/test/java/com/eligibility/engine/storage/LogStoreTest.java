@@ -0,0 +1,178 @@
+package com.eligibility.engine.storage;
+
+import com.eligibility.engine.model.ChatMessage;
+import com.eligibility.engine.model.ConversationState;
+import com.eligibility.engine.model.ListRule;
+import com.eligibility.engine.repository.FinalizedRuleDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] b) {
+        return b == null ? null : new String(b, StandardCharsets.UTF_8);
+    }
+
+    private LogStore open(int segmentBytes) throws Exception {
+        LogStore store = new LogStore(dir, segmentBytes, false);
+        store.open();
+        return store;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void latestWriteWinsAndSurvivesReopen() throws Exception {
+        LogStore store = open(1 << 16);
+        store.put("a", bytes("1"));
+        store.putAll(Map.of("b", bytes("2"), "c", bytes("3")));
+        store.put("a", bytes("one"));
+        store.delete("c");
+        assertEquals("one", text(store.get("a")));
+        assertNull(store.get("c"));
+        store.close();
+
+        LogStore reopened = open(1 << 16);
+        assertEquals(2, reopened.size());
+        assertEquals("one", text(reopened.get("a")));
+        assertEquals("2", text(reopened.get("b")));
+        assertNull(reopened.get("c"));
+    }
+
+    @Test
+    void tornTailIsIgnoredOnRecovery() throws Exception {
+        LogStore store = open(1 << 16);
+        store.put("a", bytes("kept"));
+        store.put("b", bytes("torn"));
+        store.close();
+
+        // Flip one byte of the last record's value, as if the write had not fully reached disk.
+        Path segment = segments().get(0);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int valueOfB = 12 + 1 + 4 + 12 + 1;
+            ch.write(ByteBuffer.wrap(new byte[]{'T'}), valueOfB);
+        }
+
+        LogStore reopened = open(1 << 16);
+        assertEquals("kept", text(reopened.get("a")));
+        assertNull(reopened.get("b"));
+        reopened.put("b", bytes("again"));
+        assertEquals("again", text(reopened.get("b")));
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveRecordsAcrossSegments() throws Exception {
+        LogStore store = open(64);   // a handful of records per segment
+        for (int round = 0; round < 10; round++) {
+            for (int k = 0; k < 5; k++) store.put("k" + k, bytes("v" + round));
+        }
+        store.put("gone", bytes("x"));
+        store.delete("gone");
+        assertTrue(segments().size() > 5);
+        assertTrue(store.garbageRatio() > 0.5);
+
+        assertTrue(store.compact());
+        assertEquals(0, store.garbageRatio(), 1e-9);
+        assertEquals(2, segments().size());   // the compacted file plus the active segment
+        store.put("k0", bytes("after"));
+        for (int k = 1; k < 5; k++) assertEquals("v9", text(store.get("k" + k)));
+        store.close();
+
+        LogStore reopened = open(64);
+        assertEquals(5, reopened.size());
+        assertEquals("after", text(reopened.get("k0")));
+        assertEquals("v9", text(reopened.get("k4")));
+        assertNull(reopened.get("gone"));
+    }
+
+    @Test
+    void compactedFileSupersedesInputsLeftBehindByACrash() throws Exception {
+        LogStore store = open(64);
+        for (int round = 0; round < 6; round++) store.put("k", bytes("v" + round));
+        store.close();
+        List<Path> before = segments();
+        Map<Path, byte[]> saved = new HashMap<>();
+        for (Path p : before) saved.put(p, Files.readAllBytes(p));
+
+        LogStore reopened = open(64);
+        assertTrue(reopened.compact());
+        reopened.close();
+        // Put the inputs back, as if we crashed before deleting them.
+        for (Path p : before) Files.write(p, saved.get(p));
+
+        LogStore recovered = open(64);
+        assertEquals("v5", text(recovered.get("k")));
+        assertTrue(before.stream().noneMatch(Files::exists));
+    }
+
+    @Test
+    void embeddedConversationStoreAppendsHistoryInChunks() {
+        EmbeddedStorage storage = new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5);
+        ConversationStore conversations = new EmbeddedConversationStore(storage);
+
+        ConversationState first = new ConversationState();
+        first.setId("s1");
+        first.addMessage("User", "hello");
+        first.setCurrentDraftRule(new ListRule("premium_users", true));
+        first.setWalLsn(7);
+        conversations.appendTurns(List.of(first));
+
+        ConversationState second = conversations.findWithoutHistory("s1").orElseThrow();
+        assertTrue(second.getHistory().isEmpty());
+        assertEquals(7, second.getWalLsn());
+        second.addMessage("Bot", "noted");
+        second.setCurrentDraftRule(null);
+        second.setPendingAttribute("income");
+        second.setWalLsn(8);
+        conversations.appendTurns(List.of(second));
+        conversations.appendTurns(List.of(second));   // a retried write that already landed is skipped
+
+        ConversationState stored = conversations.findById("s1").orElseThrow();
+        assertEquals(List.of("hello", "noted"), stored.getHistory().stream().map(ChatMessage::getText).toList());
+        assertNull(stored.getCurrentDraftRule());
+        assertEquals("income", stored.getPendingAttribute());
+        assertEquals(8, stored.getWalLsn());
+        assertTrue(conversations.findById("unknown").isEmpty());
+    }
+
+    @Test
+    void embeddedRuleStoreFindsRulesPublishedSince() {
+        EmbeddedStorage storage = new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5);
+        RuleStore rules = new EmbeddedRuleStore(storage);
+        for (long t : new long[]{3_000, 1_000, 2_000}) {
+            FinalizedRuleDoc doc = new FinalizedRuleDoc("s", "{}", "{}");
+            doc.id = "r" + t;
+            doc.createdAtEpochMs = t;
+            rules.save(doc);
+        }
+        storage.close();
+
+        RuleStore reopened = new EmbeddedRuleStore(new EmbeddedStorage(dir.toString(), 1 << 16, false, 0.5));
+        assertEquals(3, reopened.findAll().size());
+        assertEquals(List.of("r2000", "r3000"), reopened.findPublishedSince(2_000).stream().map(d -> d.id).toList());
+    }
+}
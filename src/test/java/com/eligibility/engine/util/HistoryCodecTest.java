@@ -0,0 +1,59 @@
+package com.eligibility.engine.util;
+
+import com.eligibility.engine.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryCodecTest {
+
+    private static List<ChatMessage> conversation(int turns) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            messages.add(new ChatMessage("User", "income > " + (50_000 + i)));
+            messages.add(new ChatMessage("Bot", "Draft rule updated. You can refine it or finalize."));
+        }
+        return messages;
+    }
+
+    private static List<String> flat(List<ChatMessage> messages) {
+        return messages.stream().map(m -> m.getSender() + "|" + m.getText() + "|" + m.getTimestamp()).toList();
+    }
+
+    @Test
+    void roundTripsMessagesInOrder() {
+        List<ChatMessage> messages = conversation(30);
+        messages.add(new ChatMessage("User", "caf\u00e9 \u2713 \"quoted\""));
+        assertEquals(flat(messages), flat(HistoryCodec.decompress(HistoryCodec.compress(messages))));
+        assertEquals(List.of(), HistoryCodec.decompress(HistoryCodec.compress(List.of())));
+    }
+
+    @Test
+    void dictionaryShrinksShortChunks() throws Exception {
+        List<ChatMessage> messages = conversation(2);
+        byte[] json = new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsBytes(messages);
+        Deflater plain = new Deflater(Deflater.BEST_COMPRESSION);
+        plain.setInput(json);
+        plain.finish();
+        int plainSize = plain.deflate(new byte[4096]);
+        plain.end();
+
+        int withDictionary = HistoryCodec.compress(messages).length;
+        assertTrue(withDictionary < plainSize * 0.7, withDictionary + " vs " + plainSize);
+    }
+
+    @Test
+    void rejectsCorruptOrUnknownChunks() {
+        byte[] chunk = HistoryCodec.compress(conversation(3));
+        byte[] unknownVersion = chunk.clone();
+        unknownVersion[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> HistoryCodec.decompress(unknownVersion));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCodec.decompress(Arrays.copyOf(chunk, chunk.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCodec.decompress(new byte[0]));
+    }
+}
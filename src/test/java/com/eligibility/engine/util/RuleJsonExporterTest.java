@@ -49,4 +49,40 @@ class RuleJsonExporterTest {
         assertTrue(json.contains("\"attribute\" : \"income\""));
         assertTrue(json.contains("\"attribute\" : \"age\""));
     }
-}
\ No newline at end of file
+
+    @Test
+    void importerReadsExportedRuleBack() {
+        AttributeRule a = new AttributeRule();
+        a.setAttribute("income");
+        a.setOperator(">");
+        a.setValue(50000);
+
+        LogicalRule not = new LogicalRule();
+        not.setOperator("NOT");
+        not.addRule(new ListRule("blocked_users", true));
+
+        LogicalRule and = new LogicalRule();
+        and.setOperator("AND");
+        and.addRule(a);
+        and.addRule(not);
+
+        RuleNode back = RuleJsonImporter.importRule(RuleJsonExporter.export(and));
+
+        assertEquals(and.toString(), back.toString());
+    }
+
+    @Test
+    void exportsDeepTreesWithoutRecursion() {
+        RuleNode node = new ListRule("vip", true);
+        for (int i = 0; i < 500; i++) {
+            LogicalRule not = new LogicalRule();
+            not.setOperator("NOT");
+            not.addRule(node);
+            node = not;
+        }
+
+        RuleNode back = RuleJsonImporter.importRule(RuleJsonExporter.export(node));
+
+        assertEquals(node.toString(), back.toString());
+    }
+}
@@ -0,0 +1,139 @@
+package com.eligibility.engine.util;
+
+import com.eligibility.engine.evaluation.CompiledRule;
+import com.eligibility.engine.evaluation.MapUserFacts;
+import com.eligibility.engine.evaluation.RuleCompiler;
+import com.eligibility.engine.model.*;
+import com.eligibility.engine.service.SchemaServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleNormalizerTest {
+
+    private static AttributeRule attr(String attribute, String op, Object value) {
+        AttributeRule ar = new AttributeRule();
+        ar.setAttribute(attribute);
+        ar.setOperator(op);
+        ar.setValue(value);
+        return ar;
+    }
+
+    private static LogicalRule logical(String op, RuleNode... children) {
+        return new LogicalRule(op, new ArrayList<>(List.of(children)));
+    }
+
+    @Test
+    void flattensNestedAndMergesBounds() {
+        RuleNode draft = logical("AND",
+                logical("AND",
+                        logical("AND", attr("income", ">", 50000), attr("age", ">=", 18)),
+                        attr("income", ">", 60000)),
+                new ListRule("premium_users", true));
+
+        RuleNormalizer.Result out = RuleNormalizer.normalize(draft);
+
+        assertEquals("(income > 60000 AND age >= 18 AND IN premium_users)", out.rule().toString());
+        assertTrue(out.contradictions().isEmpty());
+        assertTrue(out.tautologies().isEmpty());
+        assertEquals("(((income > 50000 AND age >= 18) AND income > 60000) AND IN premium_users)", draft.toString());
+    }
+
+    @Test
+    void pushesNotThroughLogicalNodesAndIntoLists() {
+        RuleNode draft = logical("NOT", logical("OR",
+                new ListRule("blocked_users", true),
+                attr("age", "<", 18),
+                logical("NOT", attr("city", "==", "Pune"))));
+
+        RuleNode out = RuleNormalizer.normalize(draft).rule();
+
+        assertEquals("(NOT IN blocked_users AND NOT (age < 18) AND city == Pune)", out.toString());
+        ListRule list = (ListRule) ((LogicalRule) out).getRules().get(0);
+        assertFalse(list.isInList());
+    }
+
+    @Test
+    void reportsUnsatisfiableRule() {
+        RuleNormalizer.Result out = RuleNormalizer.normalize(logical("AND", attr("age", ">", 60), attr("age", "<", 18)));
+
+        assertTrue(out.unsatisfiable());
+        assertEquals(2, out.contradictions().size());
+        assertTrue(out.contradictions().get(1).contains("age > 60 AND age < 18"));
+
+        assertTrue(RuleNormalizer.normalize(logical("AND",
+                new ListRule("vip_list", true), logical("NOT", new ListRule("vip_list", true)))).unsatisfiable());
+        assertTrue(RuleNormalizer.normalize(logical("AND", attr("city", "==", "Pune"), attr("city", "==", "Delhi"))).unsatisfiable());
+    }
+
+    @Test
+    void dropsDeadBranchFromOr() {
+        RuleNode draft = logical("OR",
+                logical("AND", attr("age", ">", 60), attr("age", "<", 18)),
+                attr("income", ">", 1000));
+
+        RuleNormalizer.Result out = RuleNormalizer.normalize(draft);
+
+        assertEquals("income > 1000", out.rule().toString());
+        assertFalse(out.unsatisfiable());
+        assertEquals(1, out.contradictions().size());
+    }
+
+    @Test
+    void flagsTautologyButKeepsIt() {
+        RuleNormalizer.Result out = RuleNormalizer.normalize(logical("OR", attr("age", ">", 30), attr("age", "<=", 40)));
+
+        assertEquals(1, out.tautologies().size());
+        assertEquals("(age > 30 OR age <= 40)", out.rule().toString());
+    }
+
+    @Test
+    void mergesOrBoundsAndDuplicates() {
+        RuleNode draft = logical("OR",
+                attr("income", ">", 50000), attr("income", ">=", 70000), attr("income", "==", 90000),
+                new ListRule("vip_list", true), new ListRule("vip_list", true));
+
+        assertEquals("(income > 50000 OR IN vip_list)", RuleNormalizer.normalize(draft).rule().toString());
+    }
+
+    @Test
+    void exporterWritesNotInForExcludedLists() {
+        String json = RuleJsonExporter.export(RuleNormalizer.normalize(logical("NOT", new ListRule("blocked_users", true))).rule());
+
+        assertTrue(json.contains("\"NOT IN\""));
+        ListRule back = (ListRule) RuleJsonImporter.importRule(json);
+        assertFalse(back.isInList());
+    }
+
+    @Test
+    void negatedComparisonStillHoldsForUserWithoutTheAttribute() {
+        SchemaServiceImpl schema = new SchemaServiceImpl();
+        schema.applySnapshot(Map.of("credit_score", new AttributeDef("credit_score", "Integer", Set.of("<", ">="))), Set.of());
+        RuleCompiler compiler = new RuleCompiler(schema);
+        RuleNode draft = logical("NOT", attr("credit_score", "<", 600));
+
+        RuleNode out = RuleNormalizer.normalize(draft).rule();
+
+        assertEquals("NOT (credit_score < 600)", out.toString());
+        MapUserFacts noScore = new MapUserFacts(Map.of(), null);
+        CompiledRule before = compiler.compile("before", draft), after = compiler.compile("after", out);
+        assertTrue(before.test(noScore));
+        assertEquals(before.test(noScore), after.test(noScore));
+        assertFalse(after.test(new MapUserFacts(Map.of("credit_score", 550), null)));
+    }
+
+    @Test
+    void duplicatesAreMatchedByTypedValueNotByText() {
+        RuleNode out = RuleNormalizer.normalize(logical("OR",
+                attr("age", "==", 18), attr("age", "==", "18"), attr("age", "==", 18.0))).rule();
+
+        assertEquals(2, ((LogicalRule) out).getRules().size());
+        assertEquals(18, ((AttributeRule) ((LogicalRule) out).getRules().get(0)).getValue());
+        assertEquals("18", ((AttributeRule) ((LogicalRule) out).getRules().get(1)).getValue());
+    }
+}
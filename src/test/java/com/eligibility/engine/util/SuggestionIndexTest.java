@@ -0,0 +1,66 @@
+package com.eligibility.engine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    private static int levenshtein(String x, String y) {
+        int[][] dp = new int[x.length() + 1][y.length() + 1];
+        for (int i = 0; i <= x.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= y.length(); j++) dp[0][j] = j;
+        for (int i = 1; i <= x.length(); i++) {
+            for (int j = 1; j <= y.length(); j++) {
+                int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[x.length()][y.length()];
+    }
+
+    private static String randomName(Random r) {
+        StringBuilder sb = new StringBuilder();
+        int len = 3 + r.nextInt(8);
+        for (int i = 0; i < len; i++) sb.append((char) ('a' + r.nextInt(6)));
+        return sb.toString();
+    }
+
+    @Test
+    void findsExactlyWhatAFullScanFinds() {
+        Random r = new Random(3);
+        Set<String> names = new HashSet<>();
+        while (names.size() < 3000) names.add(randomName(r));
+        SuggestionIndex index = SuggestionIndex.of(names);
+
+        for (int q = 0; q < 300; q++) {
+            String query = randomName(r);
+            List<String> expected = names.stream()
+                    .filter(n -> levenshtein(query, n) <= 2)
+                    .sorted(Comparator.comparingInt((String n) -> levenshtein(query, n)).thenComparing(n -> n))
+                    .toList();
+            assertEquals(expected, index.suggest(query, 2, Integer.MAX_VALUE), query);
+        }
+    }
+
+    @Test
+    void ranksClosestFirstAndCapsTheResult() {
+        SuggestionIndex index = SuggestionIndex.of(List.of("premium_users", "premium_user", "premum_users", "blocked_users", "beta_users"));
+
+        assertEquals(List.of("premium_users", "premium_user", "premum_users"), index.suggest("premium_users", 2, 5));
+        assertEquals(List.of("premum_users"), index.suggest("prenum_users", 1, 5));
+        assertEquals(List.of("premium_users"), index.suggest("premium_users", 2, 1));
+        assertEquals(List.of(), index.suggest("zzz", 2, 5));
+        assertEquals(List.of(), SuggestionIndex.of(List.of()).suggest("x", 2, 5));
+    }
+
+    @Test
+    void boundedDistanceStopsEarlyButIsExactWithinTheBound() {
+        int[][] rows = {new int[16], new int[16]};
+        assertEquals(3, SuggestionIndex.distance("kitten", "sitting", 3, rows));
+        assertEquals(3, SuggestionIndex.distance("kitten", "sitting", 2, rows));
+        assertEquals(2, SuggestionIndex.distance("abc", "abcdefgh", 1, rows));
+    }
+}